@@ -0,0 +1,56 @@
+package com.example.digitalsignature.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Worker pool terbatas untuk pekerjaan kripto batch (hashing dan verifikasi paralel).
+     * Jika antrean penuh, tugas dijalankan di thread pemanggil sehingga beban tetap tertahan.
+     */
+    @Bean(name = "cryptoExecutor", destroyMethod = "shutdown")
+    public ExecutorService cryptoExecutor(
+            @Value("${signature.batch.threads:0}") int threads,
+            @Value("${signature.batch.queueCapacity:1024}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "crypto-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Worker pool untuk job tanda tangan gambar asinkron (/api/signature/jobs).
+     * Antrean dibatasi dan job baru ditolak saat penuh, supaya lonjakan permintaan
+     * tidak menumpuk pekerjaan gambar tanpa batas di memori.
+     */
+    @Bean(name = "signingJobExecutor", destroyMethod = "shutdown")
+    public ExecutorService signingJobExecutor(
+            @Value("${signature.jobs.threads:0}") int threads,
+            @Value("${signature.jobs.queueCapacity:32}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "signing-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -2,9 +2,11 @@ package com.example.digitalsignature.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -23,6 +25,15 @@ public class WebConfig implements WebMvcConfigurer {
                 .maxAge(3600);
     }
 
+    // Selain header Accept, format respons bisa dipilih lewat ?response=multipart atau ?response=json
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        configurer.favorParameter(true)
+                .parameterName("response")
+                .mediaType("json", MediaType.APPLICATION_JSON)
+                .mediaType("multipart", MediaType.MULTIPART_MIXED);
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         CorsConfiguration corsConfiguration = new CorsConfiguration();
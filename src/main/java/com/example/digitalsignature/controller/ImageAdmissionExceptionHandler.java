@@ -0,0 +1,33 @@
+package com.example.digitalsignature.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.example.digitalsignature.service.ImageAdmissionException;
+
+/**
+ * Anggaran memori decode penuh: 503 + Retry-After, supaya klien mencoba lagi nanti
+ * alih-alih server kehabisan heap.
+ */
+@RestControllerAdvice
+public class ImageAdmissionExceptionHandler {
+
+    @ExceptionHandler(ImageAdmissionException.class)
+    public ResponseEntity<Map<String, String>> handleAdmission(ImageAdmissionException e) {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.toString());
+        response.put("pesan", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                // Tetap JSON meskipun klien meminta multipart/mixed
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+}
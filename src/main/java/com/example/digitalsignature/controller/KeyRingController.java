@@ -0,0 +1,103 @@
+package com.example.digitalsignature.controller;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.digitalsignature.service.CryptoService;
+import com.example.digitalsignature.service.KeyRing;
+import com.example.digitalsignature.service.SignatureAlgorithm;
+
+/**
+ * Key ring tanda tangan: daftar kunci publik (untuk verifikasi di luar server), rotasi kunci
+ * tanpa restart, dan retire kunci lama. Rotasi dan retire hanya aktif jika
+ * signature.keys.rotationEnabled=true.
+ */
+@RestController
+@RequestMapping("/api/signature/keys")
+public class KeyRingController {
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Value("${signature.keys.rotationEnabled:false}")
+    private boolean rotationEnabled = false;
+
+    @GetMapping
+    public Map<String, Object> listKeys() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (KeyRing.KeyEntry entry : cryptoService.getKeyRing().keys()) {
+            keys.add(toMap(entry));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("currentKeyId", cryptoService.getKeyId());
+        response.put("defaultAlgorithm", cryptoService.getDefaultAlgorithm().name());
+        response.put("keys", keys);
+        return response;
+    }
+
+    // Tanpa parameter algorithm, yang dirotasi adalah kunci algoritma default (signature.algorithm)
+    @PostMapping("/rotate")
+    public ResponseEntity<Map<String, Object>> rotate(
+            @RequestParam(value = "algorithm", required = false) String algorithmName) throws Exception {
+        if (!rotationEnabled) {
+            return forbidden();
+        }
+        SignatureAlgorithm algorithm;
+        try {
+            algorithm = algorithmName != null && !algorithmName.isEmpty()
+                    ? SignatureAlgorithm.parse(algorithmName) : cryptoService.getDefaultAlgorithm();
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.ok(toMap(cryptoService.rotateKey(algorithm)));
+    }
+
+    @PostMapping("/{id}/retire")
+    public ResponseEntity<Map<String, Object>> retire(@PathVariable("id") String id) throws Exception {
+        if (!rotationEnabled) {
+            return forbidden();
+        }
+        try {
+            return ResponseEntity.ok(toMap(cryptoService.retireKey(id)));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toMap(KeyRing.KeyEntry entry) {
+        Map<String, Object> key = new HashMap<>();
+        key.put("keyId", entry.getId());
+        key.put("status", entry.getStatus().name());
+        key.put("algorithm", entry.getAlgorithm().name());
+        key.put("createdAt", Instant.ofEpochMilli(entry.getCreatedAt()).toString());
+        key.put("publicKey", Base64.getEncoder().encodeToString(entry.getPublicKey().getEncoded()));
+        return key;
+    }
+
+    private ResponseEntity<Map<String, Object>> forbidden() {
+        return error(HttpStatus.FORBIDDEN, "Rotasi kunci tidak diaktifkan (signature.keys.rotationEnabled=false)");
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
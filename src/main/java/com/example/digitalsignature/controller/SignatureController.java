@@ -1,24 +1,57 @@
 package com.example.digitalsignature.controller;
 
 import java.io.IOException;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.example.digitalsignature.service.BatchSignatureService;
+import com.example.digitalsignature.service.CollectiveSignature;
+import com.example.digitalsignature.service.CollectiveSignatureService;
 import com.example.digitalsignature.service.CryptoService;
+import com.example.digitalsignature.service.ImageAdmissionService;
+import com.example.digitalsignature.service.ImageSigningService;
+import com.example.digitalsignature.service.LedgerEntry;
+import com.example.digitalsignature.service.QRCodeCache;
 import com.example.digitalsignature.service.QRCodeService;
+import com.example.digitalsignature.service.RevocationList;
+import com.example.digitalsignature.service.SignatureAlgorithm;
+import com.example.digitalsignature.service.SignatureLedger;
+import com.example.digitalsignature.service.SignatureToken;
+import com.example.digitalsignature.service.SignedImage;
+import com.example.digitalsignature.service.SigningMetrics;
 import com.example.digitalsignature.service.SteganographyService;
-import com.example.digitalsignature.service.VisibleWatermarkService;
+import com.example.digitalsignature.service.VerificationCache;
+import com.example.digitalsignature.service.WatermarkSpriteCache;
 
 @RestController
 @RequestMapping("/api/signature")
@@ -35,7 +68,41 @@ public class SignatureController {
     private SteganographyService steganographyService;
 
     @Autowired
-    private VisibleWatermarkService visibleWatermarkService;
+    private BatchSignatureService batchSignatureService;
+
+    @Autowired
+    private VerificationCache verificationCache;
+
+    @Autowired
+    private WatermarkSpriteCache watermarkSpriteCache;
+
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Autowired
+    private ImageSigningService imageSigningService;
+
+    @Autowired
+    private CollectiveSignatureService collectiveSignatureService;
+
+    @Autowired
+    private ImageAdmissionService imageAdmissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SignatureLedger signatureLedger;
+
+    @Autowired
+    private RevocationList revocationList;
+
+    // Pencabutan lewat API hanya aktif jika diizinkan eksplisit, karena endpoint ini tidak diautentikasi
+    @Value("${signature.revocation.revokeEnabled:false}")
+    private boolean revokeEnabled = false;
+
+    @Autowired(required = false)
+    private SigningMetrics signingMetrics;
 
     @GetMapping("/status")
     public Map<String, String> getStatus() {
@@ -43,32 +110,126 @@ public class SignatureController {
                       "message", "Digital Signature API is active");
     }
 
+    /**
+     * Statistik cache (hit, miss, eviction, ukuran)
+     */
+    @GetMapping("/cacheStats")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("verification", verificationCache.getStats());
+        stats.put("watermarkSprite", watermarkSpriteCache.getStats());
+        stats.put("qrCode", qrCodeCache.getStats());
+        return stats;
+    }
+
+    // Anggaran memori decode gambar: sisa KiB, panjang antrean, jumlah ditolak, dan waktu tunggu
+    @GetMapping("/admissionStats")
+    public Map<String, Object> getAdmissionStats() {
+        return imageAdmissionService.getStats();
+    }
+
+    // Ledger tanda tangan: jumlah entry, ukuran index dan log, waktu pembukaan/rebuild index
+    @GetMapping("/ledgerStats")
+    public Map<String, Object> getLedgerStats() {
+        return signatureLedger.getStats();
+    }
+
+    /**
+     * Tanda tangan terbaru yang tercatat di ledger untuk sebuah hash BLAKE3
+     * (Base64 URL-safe; Base64 standar juga diterima)
+     */
+    @GetMapping("/lookup/{hash}")
+    public ResponseEntity<Map<String, Object>> lookup(@PathVariable("hash") String hash) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        byte[] digest;
+        try {
+            digest = decodeHash(hash);
+        } catch (IllegalArgumentException e) {
+            response.put("error", "Hash harus berupa Base64 URL-safe");
+            return ResponseEntity.badRequest().body(response);
+        }
+        LedgerEntry entry = signatureLedger.lookup(digest);
+        if (entry == null) {
+            response.put("hash", hash);
+            response.put("error", "Tidak ada tanda tangan untuk hash ini di ledger");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        return ResponseEntity.ok(entry.toMap());
+    }
+
+    /**
+     * Cabut tanda tangan sebelum masa berlakunya habis: per hash/file (semua tanda tangan untuk
+     * dokumen itu) atau per token tanda tangan. Parameter boleh diulang; berlaku tanpa restart.
+     * Hanya aktif jika signature.revocation.revokeEnabled=true.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Map<String, Object>> revoke(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "hash", required = false) List<String> hashes,
+            @RequestParam(value = "signature", required = false) List<String> signatures
+    ) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        if (!revokeEnabled) {
+            response.put("error", "Pencabutan tidak diaktifkan (signature.revocation.revokeEnabled=false)");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        List<byte[]> digests = new ArrayList<>();
+        if (file != null && !file.isEmpty()) {
+            digests.add(hashUpload(file));
+        }
+        try {
+            if (hashes != null) {
+                for (String hash : hashes) {
+                    digests.add(decodeHash(hash));
+                }
+            }
+            if (digests.isEmpty() && (signatures == null || signatures.isEmpty())) {
+                response.put("error", "Sertakan file, hash, atau signature yang akan dicabut");
+                return ResponseEntity.badRequest().body(response);
+            }
+            int revoked = revocationList.revoke(digests, signatures != null ? signatures : List.of());
+            response.put("revoked", revoked);
+            response.put("requested", digests.size() + (signatures != null ? signatures.size() : 0));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", "Hash atau signature tidak valid: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Daftar pencabutan: jumlah digest/token dicabut, ukuran Bloom filter, jumlah pengecekan
+    @GetMapping("/revocationStats")
+    public Map<String, Object> getRevocationStats() {
+        return revocationList.getStats();
+    }
+
     @PostMapping("/sign")
-    public Map<String, String> signFile(
+    public ResponseEntity<Map<String, String>> signFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "designerName", required = false) String designerName,
             @RequestParam(value = "validityDays", required = false) Integer validityDays,
-            @RequestParam(value = "validityMonths", required = false) Integer validityMonths
+            @RequestParam(value = "validityMonths", required = false) Integer validityMonths,
+            @RequestParam(value = "algorithm", required = false) String algorithmName
     ) throws Exception {
-        // Hitung masa berlaku
-        long validityMillis;
-        
-        if (validityMonths != null && validityMonths > 0) {
-            // Konversi bulan ke milidetik (30 hari per bulan sebagai pendekatan)
-            validityMillis = validityMonths * 30L * 24 * 60 * 60 * 1000;
-        } else if (validityDays != null && validityDays > 0) {
-            // Konversi hari ke milidetik
-            validityMillis = validityDays * 24L * 60 * 60 * 1000;
-        } else {
-            // Default: 7 hari
-            validityMillis = 7 * 24L * 60 * 60 * 1000;
+        // Algoritma per request ("ES256" atau "Ed25519"); tanpa parameter ini dipakai signature.algorithm
+        SignatureAlgorithm algorithm = null;
+        if (algorithmName != null && !algorithmName.isEmpty()) {
+            try {
+                algorithm = SignatureAlgorithm.parse(algorithmName);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
         }
+
+
+        // Hitung masa berlaku
+        long validityMillis = validityMillis(validityDays, validityMonths);
         
-        byte[] fileBytes = file.getBytes();
-        String hash = cryptoService.hashWithBlake3(fileBytes);
+        byte[] digest = hashUpload(file);
+        String hash = Base64.getEncoder().encodeToString(digest);
         
         // Tanda tangan dengan masa berlaku yang dihitung
-        String signature = cryptoService.signData(hash.getBytes(), validityMillis);
+        String signature = cryptoService.signDigest(digest, validityMillis, designerName, algorithm);
         
         // Hitung tanggal kedaluwarsa untuk respons
         Date expiryDate = new Date(System.currentTimeMillis() + validityMillis);
@@ -85,7 +246,7 @@ public class SignatureController {
             result.put("qrCode", qrCodeBase64);
         }
         
-        return result;
+        return ResponseEntity.ok(result);
     }
     
    @PostMapping("/signWithWatermark")
@@ -94,43 +255,19 @@ public Map<String, String> signFileWithWatermark(
         @RequestParam("ownerInfo") String ownerInfo,
         @RequestParam(value = "designerName", required = false) String designerName
 ) throws Exception {
-    // Apply watermark if it's an image
-    byte[] processedData = steganographyService.embedWatermark(file, ownerInfo);
-
-     // Terapkan kompresi jika ukuran lebih dari 500KB
-    if (processedData.length > 500_000) {
-        processedData = steganographyService.compressBeforeBase64(processedData, 0.7f);
-        System.out.println("Image compressed: " + processedData.length + " bytes");
-    }
-
-    // Hash the watermarked data with BLAKE3
-    String hash = cryptoService.hashWithBlake3(processedData);
-
-    // Sign hash with ECDSA
-    String signature = cryptoService.signData(hash.getBytes());
-
-    // Generate QR Code if designerName is provided
-    String qrCodeBase64 = null;
-    if (designerName != null && !designerName.isEmpty()) {
-        String qrContent = qrCodeService.createSignatureQRContent(hash, signature, designerName);
-        qrCodeBase64 = qrCodeService.generateQRCodeBase64(qrContent, 250, 250);
-    }
-
-    // Convert processed image to base64
-    String imageBase64 = Base64.getEncoder().encodeToString(processedData);
+    return toJson("signWithWatermark", imageSigningService.signWithWatermark(file, ownerInfo, designerName));
+}
 
-    Map<String, String> result = new HashMap<>();
-    result.put("hash", hash);
-    result.put("signature", signature);
-    result.put("watermarked", "true");
-    result.put("watermarkedImage", "data:image/jpeg;base64," + imageBase64);
-    if (qrCodeBase64 != null) {
-        result.put("qrCode", qrCodeBase64);
+    // Versi streaming: metadata JSON + byte gambar mentah dalam multipart/mixed, tanpa Base64
+    @PostMapping(value = "/signWithWatermark", produces = MediaType.MULTIPART_MIXED_VALUE)
+    public ResponseEntity<StreamingResponseBody> signFileWithWatermarkStream(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("ownerInfo") String ownerInfo,
+            @RequestParam(value = "designerName", required = false) String designerName
+    ) throws Exception {
+        return toMultipart(imageSigningService.signWithWatermark(file, ownerInfo, designerName));
     }
 
-    return result;
-}
-
     @PostMapping("/signWithVisibleWatermark")
     public Map<String, String> signFileWithVisibleWatermark(
             @RequestParam("file") MultipartFile file,
@@ -141,102 +278,78 @@ public Map<String, String> signFileWithWatermark(
             @RequestParam(value = "validityDays", required = false) Integer validityDays,
             @RequestParam(value = "validityMonths", required = false) Integer validityMonths
     ) throws Exception {
-        // Hitung masa berlaku
-        long validityMillis;
-        
+        return toJson("signWithVisibleWatermark", imageSigningService.signWithVisibleWatermark(file,
+                watermarkText, opacity, fontSize, designerName, validityMillis(validityDays, validityMonths)));
+    }
+
+    @PostMapping(value = "/signWithVisibleWatermark", produces = MediaType.MULTIPART_MIXED_VALUE)
+    public ResponseEntity<StreamingResponseBody> signFileWithVisibleWatermarkStream(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("watermarkText") String watermarkText,
+            @RequestParam(value = "opacity", defaultValue = "0.5") float opacity,
+            @RequestParam(value = "fontSize", defaultValue = "36") int fontSize,
+            @RequestParam(value = "designerName", required = false) String designerName,
+            @RequestParam(value = "validityDays", required = false) Integer validityDays,
+            @RequestParam(value = "validityMonths", required = false) Integer validityMonths
+    ) throws Exception {
+        return toMultipart(imageSigningService.signWithVisibleWatermark(file, watermarkText, opacity, fontSize,
+                designerName, validityMillis(validityDays, validityMonths)));
+    }
+
+    // Masa berlaku untuk semua endpoint tanda tangan (/sign, /signWithVisibleWatermark, /signBatch):
+    // bulan kalender, lalu hari, default 7 hari
+    static long validityMillis(Integer validityDays, Integer validityMonths) {
         if (validityMonths != null && validityMonths > 0) {
             // Konversi bulan ke milidetik (menggunakan Calendar untuk presisi lebih baik)
             Calendar cal = Calendar.getInstance();
             cal.add(Calendar.MONTH, validityMonths);
-            validityMillis = cal.getTimeInMillis() - System.currentTimeMillis();
+            return cal.getTimeInMillis() - System.currentTimeMillis();
         } else if (validityDays != null && validityDays > 0) {
-            validityMillis = validityDays * 24L * 60 * 60 * 1000;
-        } else {
-            validityMillis = 7 * 24L * 60 * 60 * 1000; // Default 7 hari
-        }
-        
-        // Proses watermark seperti biasa
-        byte[] processedData = visibleWatermarkService.addVisibleWatermark(file, watermarkText, opacity, fontSize);
-        
-        // Check if processedData is valid
-        if (processedData == null || processedData.length == 0) {
-            throw new RuntimeException("Failed to create watermarked image - no data returned");
-        }
-        
-        System.out.println("Processed data length: " + processedData.length);
-        
-        // Convert processed image to base64
-        String imageBase64 = Base64.getEncoder().encodeToString(processedData);
-        
-        
-        // Get file extension
-        String extension = file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf(".") + 1);
-        String mimeType = "image/" + (extension.equalsIgnoreCase("jpg") ? "jpeg" : extension);
-        
-        // Create full base64 image URI
-        String imageDataUri = "data:" + mimeType + ";base64," + imageBase64;
-
-        // Hash the watermarked data with BLAKE3
-        String hash = cryptoService.hashWithBlake3(processedData);
-
-        // Sign hash with ECDSA, passing validity period
-        String signature = cryptoService.signData(hash.getBytes(), validityMillis);
-
-        // Generate QR Code if designerName is provided
-        String qrCodeBase64 = null;
-        if (designerName != null && !designerName.isEmpty()) {
-            String qrContent = qrCodeService.createSignatureQRContent(hash, signature, designerName);
-            qrCodeBase64 = qrCodeService.generateQRCodeBase64(qrContent, 250, 250);
-        }
-
-        // Hasil seperti biasa
-        Map<String, String> result = new HashMap<>();
-        result.put("hash", hash);
-        result.put("signature", signature);
-        result.put("validUntil", new Date(System.currentTimeMillis() + validityMillis).toString());
-        result.put("visibleWatermark", "true");
-        result.put("watermarkedImage", "data:image/jpeg;base64," + imageBase64);
-        if (qrCodeBase64 != null) {
-            result.put("qrCode", qrCodeBase64);
+            return validityDays * 24L * 60 * 60 * 1000;
         }
-
-        return result;
+        return 7 * 24L * 60 * 60 * 1000; // Default 7 hari
     }
 
     @PostMapping("/verify")
 public Map<String, Object> verifyFile(
         @RequestParam("file") MultipartFile file,
-        @RequestParam("signature") String signature
+        @RequestParam(value = "signature", required = false) String signature
 ) {
     Map<String, Object> response = new HashMap<>();
     try {
-        byte[] fileBytes = file.getBytes();
-        String hash = cryptoService.hashWithBlake3(fileBytes);
+        byte[] digest = hashUpload(file);
+
+        // Tanpa parameter signature: ambil tanda tangan terbaru untuk digest file ini dari ledger
+        if (signature == null || signature.isEmpty()) {
+            LedgerEntry entry = signatureLedger.lookup(digest);
+            if (entry == null) {
+                response.put("valid", false);
+                response.put("pesan", "Tidak ada tanda tangan untuk file ini di ledger");
+                return response;
+            }
+            signature = entry.getSignature();
+            response.put("ledger", entry.toMap());
+        }
         
-        boolean valid = cryptoService.verifySignature(hash.getBytes(), signature);
+        boolean valid = cryptoService.verifyDigest(digest, signature);
         response.put("valid", valid);
         
+        // Expiry dibaca dari token (legacy maupun compact) tanpa split ulang
+        long expiryTime = SignatureToken.parse(signature).getExpiry();
         if (!valid) {
-            // Cek apakah tanda tangan sudah kedaluwarsa
-            if (signature.contains(":")) {
-                long expiryTime = Long.parseLong(signature.split(":")[1]);
-                long currentTime = System.currentTimeMillis();
-                
-                if (currentTime > expiryTime) {
-                    response.put("pesan", "Tanda tangan digital sudah kedaluwarsa");
-                    response.put("expiredAt", new Date(expiryTime).toString());
-                } else {
-                    response.put("pesan", "Tanda tangan digital tidak valid untuk file ini");
-                }
+            // Cek apakah tanda tangan sudah dicabut atau kedaluwarsa
+            if (cryptoService.isRevoked(digest, signature)) {
+                response.put("revoked", true);
+                response.put("pesan", "Tanda tangan digital sudah dicabut");
+            } else if (System.currentTimeMillis() > expiryTime) {
+                response.put("pesan", "Tanda tangan digital sudah kedaluwarsa");
+                response.put("expiredAt", new Date(expiryTime).toString());
             } else {
                 response.put("pesan", "Tanda tangan digital tidak valid untuk file ini");
             }
         } else {
             // Tambahkan informasi masa berlaku untuk tanda tangan yang valid
-            if (signature.contains(":")) {
-                long expiryTime = Long.parseLong(signature.split(":")[1]);
-                response.put("validUntil", new Date(expiryTime).toString());
-            }
+            response.put("validUntil", new Date(expiryTime).toString());
         }
     } catch (Exception e) {
         response.put("valid", false);
@@ -250,18 +363,16 @@ public Map<String, Object> verifyFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("signature") String signature
     ) throws Exception {
-        byte[] fileBytes = file.getBytes();
-        
-        // Try to extract watermark (if it's an image)
+        // Try to extract watermark (if it's an image); only the rows holding it are decoded
         String watermark = null;
-        try {
-            watermark = steganographyService.extractWatermark(fileBytes);
+        try (InputStream input = file.getInputStream()) {
+            watermark = steganographyService.extractWatermark(input);
         } catch (IOException e) {
             // Not an image or couldn't extract watermark
         }
         
-        String hash = cryptoService.hashWithBlake3(fileBytes);
-        boolean valid = cryptoService.verifySignature(hash.getBytes(), signature);
+        byte[] digest = hashUpload(file);
+        boolean valid = cryptoService.verifyDigest(digest, signature);
         
         Map<String, Object> result = new HashMap<>();
         result.put("valid", valid);
@@ -276,32 +387,55 @@ public Map<String, Object> verifyFile(
         return result;
     }
     
+    /**
+     * Tanda tangan kolektif. Dengan collectiveSignature (format compact), peran apa pun ditambahkan
+     * di akhir urutan pihak; tanpa itu, alur lama dua peran tetap berlaku (designer, lalu brand dengan
+     * designerSignature).
+     */
     @PostMapping("/signCollective")
-    public Map<String, String> signCollectiveFile(
+    public ResponseEntity<Map<String, String>> signCollectiveFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("role") String role,
-            @RequestParam(value = "designerSignature", required = false) String designerSignature
+            @RequestParam(value = "designerSignature", required = false) String designerSignature,
+            @RequestParam(value = "collectiveSignature", required = false) String collectiveSignature
     ) throws Exception {
-        byte[] fileBytes = file.getBytes();
-        String hash = cryptoService.hashWithBlake3(fileBytes);
+        byte[] digest = hashUpload(file);
+        String hash = Base64.getEncoder().encodeToString(digest);
         
         Map<String, String> result = new HashMap<>();
         result.put("hash", hash);
         
-        if ("designer".equals(role)) {
-            // Tanda tangan sebagai desainer
-            String signature = cryptoService.signData(hash.getBytes());
+        boolean legacyBrand = "brand".equals(role) && designerSignature != null;
+        if (collectiveSignature != null || (!legacyBrand && !"designer".equals(role))) {
+            try {
+                CollectiveSignature existing = collectiveSignature != null
+                        ? CollectiveSignature.parse(collectiveSignature) : null;
+                CollectiveSignature signed = collectiveSignatureService.sign(digest, existing, role);
+                List<CollectiveSignature.Party> parties = signed.getParties();
+                result.put("signature", parties.get(parties.size() - 1).getSignature());
+                result.put("collectiveSignature", signed.encode());
+            } catch (IllegalArgumentException e) {
+                result.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(result);
+            }
+        } else if ("designer".equals(role)) {
+            // Desainer sengaja ditandatangani dua kali, masing-masing sekali:
+            // - "signature": token atas digest dokumen untuk alur lama (designerSignature), dicatat di ledger
+            // - "collectiveSignature": token compact atas pesan pihak yang terikat peran designer, tanpa
+            //   catatan ledger, untuk pihak berikutnya yang memakai format compact
+            String signature = cryptoService.signDigest(digest);
             result.put("signature", signature);
-        } else if ("brand".equals(role) && designerSignature != null) {
+            result.put("collectiveSignature", collectiveSignatureService
+                    .sign(digest, null, CollectiveSignature.ROLE_DESIGNER).encode());
+        } else {
             // Tanda tangan sebagai brand dan gabungkan dengan tanda tangan desainer
-            String brandSignature = cryptoService.signData(hash.getBytes());
+            String brandSignature = cryptoService.signDigest(digest);
             // Format: HASH || Signature_Desainer || Signature_Brand
-            String collectiveSignature = hash + "||" + designerSignature + "||" + brandSignature;
             result.put("signature", brandSignature);
-            result.put("collectiveSignature", collectiveSignature);
+            result.put("collectiveSignature", hash + "||" + designerSignature + "||" + brandSignature);
         }
         
-        return result;
+        return ResponseEntity.ok(result);
     }
     
     @PostMapping("/signCollectiveWithWatermark")
@@ -311,85 +445,151 @@ public Map<String, Object> verifyFile(
             @RequestParam("ownerInfo") String ownerInfo,
             @RequestParam(value = "designerSignature", required = false) String designerSignature
     ) throws Exception {
-        // Apply watermark if it's an image
-        byte[] processedData = steganographyService.embedWatermark(file, ownerInfo);
-        
-        // Tambahkan logging untuk debug
-        System.out.println("Processed data size after steganography: " + 
-                          (processedData != null ? processedData.length : "NULL") + " bytes");
-        
-        String hash = cryptoService.hashWithBlake3(processedData);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("hash", hash);
-        result.put("watermarked", "true");
-        // Convert processed image to base64
-        String imageBase64 = Base64.getEncoder().encodeToString(processedData);
-        System.out.println("Base64 string length: " + imageBase64.length());
-        
-        // Jika base64 kosong, gunakan image original sebagai fallback
-        if (imageBase64 == null || imageBase64.isEmpty()) {
-            System.out.println("WARNING: Base64 encoding resulted in empty string, using original image");
-            imageBase64 = Base64.getEncoder().encodeToString(file.getBytes());
-        }
-        
-        result.put("watermarkedImage", "data:image/jpeg;base64," + imageBase64);
-        
-        if ("designer".equals(role)) {
-            // Sign as designer
-            String signature = cryptoService.signData(hash.getBytes());
-            result.put("signature", signature);
-        } else if ("brand".equals(role) && designerSignature != null) {
-            // Sign as brand and combine with designer signature
-            String brandSignature = cryptoService.signData(hash.getBytes());
-            // Format: HASH || Signature_Designer || Signature_Brand
-            String collectiveSignature = hash + "||" + designerSignature + "||" + brandSignature;
-            result.put("signature", brandSignature);
-            result.put("collectiveSignature", collectiveSignature);
+        return toJson("signCollectiveWithWatermark",
+                imageSigningService.signCollectiveWithWatermark(file, role, ownerInfo, designerSignature));
+    }
+
+    @PostMapping(value = "/signCollectiveWithWatermark", produces = MediaType.MULTIPART_MIXED_VALUE)
+    public ResponseEntity<StreamingResponseBody> signCollectiveFileWithWatermarkStream(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("role") String role,
+            @RequestParam("ownerInfo") String ownerInfo,
+            @RequestParam(value = "designerSignature", required = false) String designerSignature
+    ) throws Exception {
+        return toMultipart(imageSigningService.signCollectiveWithWatermark(file, role, ownerInfo, designerSignature));
+    }
+
+    // Format JSON lama; waktu encode Base64 gambar dicatat sebagai tahap "base64"
+    @SuppressWarnings("try") // scope hanya dipakai untuk close() otomatis
+    private Map<String, String> toJson(String endpoint, SignedImage signed) {
+        try (SigningMetrics.EndpointScope scope = SigningMetrics.endpoint(endpoint)) {
+            return SigningMetrics.timed(signingMetrics, "base64", SigningMetrics.formatOf(signed.getFileName()),
+                    signed::toDataUriMap);
         }
-        
-        return result;
     }
-    
+
+    /**
+     * multipart/mixed: bagian pertama metadata JSON kecil, bagian kedua byte gambar apa adanya.
+     * Gambar ditulis langsung ke output stream response tanpa salinan Base64 di heap.
+     */
+    private ResponseEntity<StreamingResponseBody> toMultipart(SignedImage signed) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        byte[] metadata = objectMapper.writeValueAsBytes(signed.getMetadata());
+        String fileName = signed.getFileName() != null ? signed.getFileName() : "signed-image";
+        ContentDisposition imageDisposition = StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)
+                ? ContentDisposition.attachment().name("image").filename(fileName).build()
+                : ContentDisposition.attachment().name("image").filename(fileName, StandardCharsets.UTF_8).build();
+
+        StreamingResponseBody body = out -> {
+            writePartHeaders(out, boundary, MediaType.APPLICATION_JSON_VALUE,
+                    ContentDisposition.inline().name("metadata").build(), metadata.length);
+            out.write(metadata);
+            writePartHeaders(out, boundary, signed.getMimeType(), imageDisposition, signed.getImage().length);
+            out.write(signed.getImage());
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("multipart", "mixed", Map.of("boundary", boundary)))
+                .body(body);
+    }
+
+    private void writePartHeaders(OutputStream out, String boundary, String contentType,
+                                  ContentDisposition disposition, int length) throws IOException {
+        String headers = "\r\n--" + boundary + "\r\n"
+                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                + HttpHeaders.CONTENT_DISPOSITION + ": " + disposition + "\r\n"
+                + HttpHeaders.CONTENT_LENGTH + ": " + length + "\r\n\r\n";
+        out.write(headers.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifikasi tanda tangan kolektif (compact N pihak atau HASH||designer||brand). Semua pihak
+     * diverifikasi paralel; failFast=true berhenti di kegagalan pertama.
+     */
     @PostMapping("/verifyCollective")
     public Map<String, Object> verifyCollectiveFile(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("signature") String collectiveSignature
+            @RequestParam("signature") String collectiveSignature,
+            @RequestParam(value = "failFast", defaultValue = "false") boolean failFast
     ) throws Exception {
-        byte[] fileBytes = file.getBytes();
-        String calculatedHash = cryptoService.hashWithBlake3(fileBytes);
-        
-        Map<String, Object> result = new HashMap<>();
-        
-        // Parse tanda tangan kolektif (format: HASH || Signature_Desainer || Signature_Brand)
-        String[] parts = collectiveSignature.split("\\|\\|");
-        if (parts.length != 3) {
+        byte[] digest = hashUpload(file);
+
+        CollectiveSignature collective;
+        try {
+            collective = CollectiveSignature.parse(collectiveSignature);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> result = new HashMap<>();
             result.put("valid", false);
             result.put("message", "Format tanda tangan kolektif tidak valid");
             return result;
         }
-        
-        String storedHash = parts[0];
-        String designerSignature = parts[1];
-        String brandSignature = parts[2];
-        
-        // Verifikasi hash
-        boolean hashValid = calculatedHash.equals(storedHash);
-        
-        // Verifikasi tanda tangan desainer dan brand
-        boolean designerValid = cryptoService.verifySignature(storedHash.getBytes(), designerSignature);
-        boolean brandValid = cryptoService.verifySignature(storedHash.getBytes(), brandSignature);
-        
-        boolean allValid = hashValid && designerValid && brandValid;
-        
-        result.put("valid", allValid);
-        result.put("hashValid", hashValid);
-        result.put("designerValid", designerValid);
-        result.put("brandValid", brandValid);
-        
+
+        Map<String, Object> result = collectiveSignatureService.verify(digest, collective, failFast);
+        if (CollectiveSignature.isLegacy(collectiveSignature)) {
+            // Field respons format lama: designerValid dan brandValid
+            for (Object party : (List<?>) result.get("parties")) {
+                Map<?, ?> partyResult = (Map<?, ?>) party;
+                result.put(partyResult.get("role") + "Valid", partyResult.get("valid"));
+            }
+        }
         return result;
     }
 
+    /**
+     * Tanda tangan banyak file dalam satu request: hanya Merkle root yang ditandatangani,
+     * setiap file mendapat inclusion proof-nya sendiri
+     */
+    @PostMapping("/signBatch")
+    public Map<String, Object> signBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "validityDays", required = false) Integer validityDays,
+            @RequestParam(value = "validityMonths", required = false) Integer validityMonths
+    ) throws Exception {
+        return batchSignatureService.signBatch(files, validityMillis(validityDays, validityMonths));
+    }
+
+    /**
+     * Verifikasi satu file dari hasil signBatch menggunakan inclusion proof-nya
+     */
+    @PostMapping("/verifyInclusion")
+    public Map<String, Object> verifyInclusion(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("merkleRoot") String merkleRoot,
+            @RequestParam("signature") String signature,
+            @RequestParam(value = "proof", required = false) List<String> proof
+    ) {
+        try {
+            return batchSignatureService.verifyInclusion(file, merkleRoot, signature,
+                    proof != null ? proof : List.of());
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("valid", false);
+            response.put("pesan", "Terjadi kesalahan saat verifikasi: " + e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Verifikasi banyak pasangan (file, tanda tangan) sekaligus secara paralel.
+     * Gunakan parameter signatures (urutan sama dengan files) atau manifest JSON.
+     */
+    @PostMapping("/verifyBatch")
+    public Map<String, Object> verifyBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "signatures", required = false) List<String> signatures,
+            @RequestParam(value = "manifest", required = false) String manifest
+    ) {
+        try {
+            return batchSignatureService.verifyBatch(files, signatures, manifest);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("allValid", false);
+            response.put("pesan", "Terjadi kesalahan saat verifikasi batch: " + e.getMessage());
+            return response;
+        }
+    }
+
     /**
      * Endpoint untuk generate QR Code dari data tanda tangan yang sudah ada
      */
@@ -407,6 +607,18 @@ public Map<String, Object> verifyFile(
         return result;
     }
     
+    /**
+     * Membaca QR code tanda tangan (payload biner maupun teks) dari gambar
+     */
+    @PostMapping("/decodeQR")
+    public Map<String, Object> decodeQRCode(
+            @RequestParam("file") MultipartFile file
+    ) throws Exception {
+        try (InputStream input = file.getInputStream()) {
+            return qrCodeService.decodeSignatureQR(input);
+        }
+    }
+    
     /**
      * Endpoint to extract watermark from an image
      */
@@ -414,11 +626,10 @@ public Map<String, Object> verifyFile(
     public Map<String, Object> extractWatermark(
             @RequestParam("file") MultipartFile file
     ) throws Exception {
-        byte[] fileBytes = file.getBytes();
         Map<String, Object> result = new HashMap<>();
         
-        try {
-            String watermark = steganographyService.extractWatermark(fileBytes);
+        try (InputStream input = file.getInputStream()) {
+            String watermark = steganographyService.extractWatermark(input);
             if (watermark != null) {
                 result.put("success", true);
                 result.put("watermarkData", watermark);
@@ -446,4 +657,38 @@ public Map<String, Object> verifyFile(
         
         return result;
     }
-}
+
+    // Hash BLAKE3 dari path/parameter: Base64 URL-safe atau standar, padding boleh dihilangkan
+    private static byte[] decodeHash(String hash) {
+        byte[] digest = Base64.getUrlDecoder().decode(hash.replace('+', '-').replace('/', '_'));
+        if (digest.length != 32) {
+            throw new IllegalArgumentException("hash BLAKE3 harus 32 byte");
+        }
+        return digest;
+    }
+
+    /**
+     * Hash file upload langsung dari stream multipart, tanpa file.getBytes().
+     * File besar dipindahkan ke file sementara lalu di-hash paralel lewat memory map.
+     */
+    private byte[] hashUpload(MultipartFile file) throws IOException {
+        if (file.getSize() >= cryptoService.getParallelHashThreshold()) {
+            // Direktori sementara baru (izin hanya pemilik), supaya proses lain tidak bisa menaruh
+            // file atau symlink di nama tujuan sebelum transferTo
+            Path tempDir = Files.createTempDirectory("upload-");
+            Path tempFile = tempDir.resolve("upload.bin");
+            try {
+                // transferTo(File) memindahkan file temp multipart tanpa menyalin lewat heap
+                File target = tempFile.toFile();
+                file.transferTo(target);
+                return cryptoService.digestBlake3(tempFile);
+            } finally {
+                Files.deleteIfExists(tempFile);
+                Files.deleteIfExists(tempDir);
+            }
+        }
+        try (InputStream input = file.getInputStream()) {
+            return cryptoService.digestBlake3(input);
+        }
+    }
+}
\ No newline at end of file
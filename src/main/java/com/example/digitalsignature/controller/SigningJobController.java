@@ -0,0 +1,195 @@
+package com.example.digitalsignature.controller;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.digitalsignature.service.ImageSigningService;
+import com.example.digitalsignature.service.SignedImage;
+import com.example.digitalsignature.service.SigningJob;
+import com.example.digitalsignature.service.SigningJobService;
+
+/**
+ * API job asinkron untuk endpoint sign*Watermark: POST mengembalikan id job segera,
+ * pipeline gambar berjalan di signingJobExecutor, dan hasilnya diambil lewat GET /jobs/{id}
+ * (opsional long-poll dengan ?wait=detik).
+ */
+@RestController
+@RequestMapping(SigningJobController.JOBS_PATH)
+public class SigningJobController {
+
+    static final String JOBS_PATH = "/api/signature/jobs";
+
+    @Autowired
+    private SigningJobService signingJobService;
+
+    @Autowired
+    private ImageSigningService imageSigningService;
+
+    @Value("${signature.jobs.maxWaitSeconds:30}")
+    private long maxWaitSeconds = 30;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "type", defaultValue = "watermark") String type,
+            @RequestParam(value = "ownerInfo", required = false) String ownerInfo,
+            @RequestParam(value = "designerName", required = false) String designerName,
+            @RequestParam(value = "watermarkText", required = false) String watermarkText,
+            @RequestParam(value = "opacity", defaultValue = "0.5") float opacity,
+            @RequestParam(value = "fontSize", defaultValue = "36") int fontSize,
+            @RequestParam(value = "validityDays", required = false) Integer validityDays,
+            @RequestParam(value = "validityMonths", required = false) Integer validityMonths,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "designerSignature", required = false) String designerSignature
+    ) throws Exception {
+        SigningJobService.SigningTask task;
+        switch (type) {
+            case "watermark":
+                if (ownerInfo == null) {
+                    return badRequest("Parameter ownerInfo wajib untuk type=watermark");
+                }
+                task = upload -> imageSigningService.signWithWatermark(upload, ownerInfo, designerName);
+                break;
+            case "visibleWatermark":
+                if (watermarkText == null) {
+                    return badRequest("Parameter watermarkText wajib untuk type=visibleWatermark");
+                }
+                long validityMillis = SignatureController.validityMillis(validityDays, validityMonths);
+                task = upload -> imageSigningService.signWithVisibleWatermark(upload, watermarkText, opacity,
+                        fontSize, designerName, validityMillis);
+                break;
+            case "collectiveWatermark":
+                if (role == null || ownerInfo == null) {
+                    return badRequest("Parameter role dan ownerInfo wajib untuk type=collectiveWatermark");
+                }
+                task = upload -> imageSigningService.signCollectiveWithWatermark(upload, role, ownerInfo,
+                        designerSignature);
+                break;
+            default:
+                return badRequest("type harus watermark, visibleWatermark, atau collectiveWatermark");
+        }
+
+        SigningJob job;
+        try {
+            job = signingJobService.submit(type, file, task);
+        } catch (RejectedExecutionException e) {
+            // Antrean job penuh, klien sebaiknya mencoba lagi nanti
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "Antrean job penuh, coba lagi nanti");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        }
+
+        String statusUrl = JOBS_PATH + "/" + job.getId();
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, statusUrl)
+                .body(statusMap(job));
+    }
+
+    /**
+     * Status job; dengan wait > 0 request ditahan (tanpa memakai thread worker) sampai job
+     * selesai atau waktu tunggu habis, lalu status terbaru dikembalikan
+     */
+    @GetMapping("/{id}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> getJob(
+            @PathVariable("id") String id,
+            @RequestParam(value = "wait", defaultValue = "0") long wait
+    ) {
+        SigningJob job = signingJobService.getJob(id);
+        if (job == null) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>();
+            result.setResult(notFound(id));
+            return result;
+        }
+        if (wait <= 0 || job.isFinished()) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.ok(statusMap(job)));
+            return result;
+        }
+
+        long timeoutMillis = Math.min(wait, maxWaitSeconds) * 1000;
+        DeferredResult<ResponseEntity<Map<String, Object>>> result =
+                new DeferredResult<>(timeoutMillis, () -> ResponseEntity.ok(statusMap(job)));
+        job.getCompletion().thenAccept(done -> result.setResult(ResponseEntity.ok(statusMap(done))));
+        return result;
+    }
+
+    // Byte gambar hasil job tanpa Base64
+    @GetMapping("/{id}/image")
+    public ResponseEntity<?> getJobImage(@PathVariable("id") String id) {
+        SigningJob job = signingJobService.getJob(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        SignedImage signed = job.getResult();
+        if (signed == null) {
+            Map<String, Object> response = statusMap(job);
+            response.put("error", "Job belum selesai atau gagal");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(signed.getMimeType()))
+                .body(signed.getImage());
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return signingJobService.getStats();
+    }
+
+    private Map<String, Object> statusMap(SigningJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("type", job.getType());
+        response.put("status", job.getStatus().name());
+        response.put("createdAt", Instant.ofEpochMilli(job.getCreatedAt()).toString());
+        if (job.getStartedAt() > 0) {
+            response.put("startedAt", Instant.ofEpochMilli(job.getStartedAt()).toString());
+        }
+        if (job.isFinished()) {
+            response.put("finishedAt", Instant.ofEpochMilli(job.getFinishedAt()).toString());
+            response.put("durationMs", job.getFinishedAt() - job.getStartedAt());
+        }
+        // Hanya metadata; gambar diambil terpisah lewat /{id}/image supaya poll tidak meng-encode ulang
+        // seluruh gambar ke Base64
+        if (job.getResult() != null) {
+            response.put("result", new HashMap<>(job.getResult().getMetadata()));
+            response.put("imageUrl", JOBS_PATH + "/" + job.getId() + "/image");
+        }
+        if (job.getError() != null) {
+            response.put("error", job.getError());
+        }
+        return response;
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> notFound(String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", id);
+        response.put("error", "Job tidak ditemukan atau sudah dihapus dari penyimpanan hasil");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+}
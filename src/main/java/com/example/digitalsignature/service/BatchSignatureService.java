@@ -0,0 +1,228 @@
+package com.example.digitalsignature.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class BatchSignatureService {
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Autowired
+    @Qualifier("cryptoExecutor")
+    private ExecutorService cryptoExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Tanda tangan banyak file sekaligus: semua file di-hash paralel, Merkle tree dibangun
+     * di atas digest BLAKE3-nya, lalu hanya root yang ditandatangani dengan ECDSA (satu kali).
+     * Setiap file mendapat inclusion proof agar bisa diverifikasi sendiri-sendiri.
+     */
+    public Map<String, Object> signBatch(List<MultipartFile> files, long validityMillis) throws Exception {
+        List<byte[]> digests = hashAll(files);
+        MerkleTree tree = new MerkleTree(digests);
+
+        String root = Base64.getEncoder().encodeToString(tree.root());
+        String signature = cryptoService.signDigest(tree.root(), validityMillis);
+
+        List<Map<String, Object>> items = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("index", i);
+            item.put("fileName", files.get(i).getOriginalFilename());
+            item.put("hash", Base64.getEncoder().encodeToString(digests.get(i)));
+            item.put("proof", tree.proof(i));
+            items.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("merkleRoot", root);
+        result.put("signature", signature);
+        result.put("validUntil", new Date(System.currentTimeMillis() + validityMillis).toString());
+        result.put("count", files.size());
+        result.put("files", items);
+        return result;
+    }
+
+    /**
+     * Verifikasi satu file terhadap root batch: hitung ulang root dari proof,
+     * cocokkan dengan root yang diberikan, lalu verifikasi tanda tangan root.
+     * Pencabutan diperiksa untuk digest file itu sendiri maupun root/token batch-nya.
+     */
+    public Map<String, Object> verifyInclusion(MultipartFile file, String merkleRoot, String signature,
+                                               List<String> proof) throws Exception {
+        byte[] digest;
+        try (InputStream input = file.getInputStream()) {
+            digest = cryptoService.digestBlake3(input);
+        }
+
+        byte[] expectedRoot = Base64.getDecoder().decode(merkleRoot);
+        boolean inclusionValid = MessageDigest.isEqual(MerkleTree.computeRoot(digest, proof), expectedRoot);
+        boolean signatureValid = cryptoService.verifyDigest(expectedRoot, signature);
+        boolean revoked = cryptoService.isRevoked(digest, null) || cryptoService.isRevoked(expectedRoot, signature);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("hash", Base64.getEncoder().encodeToString(digest));
+        result.put("inclusionValid", inclusionValid);
+        result.put("signatureValid", signatureValid);
+        result.put("valid", inclusionValid && signatureValid && !revoked);
+        if (revoked) {
+            result.put("revoked", true);
+            result.put("pesan", "Tanda tangan digital sudah dicabut");
+        }
+        return result;
+    }
+
+    /**
+     * Verifikasi banyak pasangan (file, tanda tangan) di worker pool terbatas.
+     * Pasangan diambil dari daftar signatures (urutan sama dengan files) atau dari manifest JSON
+     * [{"file": "nama.jpg", "signature": "..."}] yang mencocokkan nama file upload.
+     * Hasil dikembalikan sesuai urutan input; item yang gagal tidak menghentikan item lain.
+     */
+    public Map<String, Object> verifyBatch(List<MultipartFile> files, List<String> signatures,
+                                           String manifest) throws Exception {
+        List<BatchItem> items = manifest != null && !manifest.isBlank()
+                ? itemsFromManifest(files, manifest)
+                : itemsFromSignatures(files, signatures);
+
+        List<Future<Map<String, Object>>> futures = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            futures.add(cryptoExecutor.submit(() -> verifyItem(item)));
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int validCount = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Map<String, Object> itemResult;
+            try {
+                itemResult = futures.get(i).get();
+            } catch (ExecutionException e) {
+                itemResult = failedItem(items.get(i), e.getCause());
+            }
+            itemResult.put("index", i);
+            if (Boolean.TRUE.equals(itemResult.get("valid"))) {
+                validCount++;
+            }
+            results.add(itemResult);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", results.size());
+        result.put("validCount", validCount);
+        result.put("invalidCount", results.size() - validCount);
+        result.put("allValid", validCount == results.size());
+        result.put("results", results);
+        return result;
+    }
+
+    private Map<String, Object> verifyItem(BatchItem item) {
+        if (item.file == null) {
+            return failedItem(item, new IllegalArgumentException("File tidak ditemukan dalam upload"));
+        }
+        if (item.signature == null || item.signature.isEmpty()) {
+            return failedItem(item, new IllegalArgumentException("Tanda tangan tidak diberikan"));
+        }
+        try (InputStream input = item.file.getInputStream()) {
+            byte[] digest = cryptoService.digestBlake3(input);
+            Map<String, Object> itemResult = new HashMap<>();
+            itemResult.put("fileName", item.fileName);
+            itemResult.put("hash", Base64.getEncoder().encodeToString(digest));
+            itemResult.put("valid", cryptoService.verifyDigest(digest, item.signature));
+            return itemResult;
+        } catch (Exception e) {
+            return failedItem(item, e);
+        }
+    }
+
+    private Map<String, Object> failedItem(BatchItem item, Throwable error) {
+        Map<String, Object> itemResult = new HashMap<>();
+        itemResult.put("fileName", item.fileName);
+        itemResult.put("valid", false);
+        itemResult.put("pesan", "Terjadi kesalahan saat verifikasi: " + error.getMessage());
+        return itemResult;
+    }
+
+    private List<BatchItem> itemsFromSignatures(List<MultipartFile> files, List<String> signatures) {
+        if (signatures == null || signatures.size() != files.size()) {
+            throw new IllegalArgumentException("Jumlah signatures harus sama dengan jumlah files");
+        }
+        List<BatchItem> items = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            items.add(new BatchItem(file.getOriginalFilename(), file, signatures.get(i)));
+        }
+        return items;
+    }
+
+    private List<BatchItem> itemsFromManifest(List<MultipartFile> files, String manifest) throws IOException {
+        List<Map<String, String>> entries = objectMapper.readValue(manifest,
+                new TypeReference<List<Map<String, String>>>() {});
+
+        Map<String, MultipartFile> filesByName = new HashMap<>();
+        for (MultipartFile file : files) {
+            filesByName.putIfAbsent(file.getOriginalFilename(), file);
+        }
+
+        List<BatchItem> items = new ArrayList<>(entries.size());
+        for (Map<String, String> entry : entries) {
+            String fileName = entry.get("file");
+            items.add(new BatchItem(fileName, filesByName.get(fileName), entry.get("signature")));
+        }
+        return items;
+    }
+
+    private static final class BatchItem {
+
+        private final String fileName;
+        private final MultipartFile file;
+        private final String signature;
+
+        BatchItem(String fileName, MultipartFile file, String signature) {
+            this.fileName = fileName;
+            this.file = file;
+            this.signature = signature;
+        }
+    }
+
+    private List<byte[]> hashAll(List<MultipartFile> files) throws IOException, InterruptedException {
+        List<Future<byte[]>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            futures.add(cryptoExecutor.submit(() -> {
+                try (InputStream input = file.getInputStream()) {
+                    return cryptoService.digestBlake3(input);
+                }
+            }));
+        }
+
+        List<byte[]> digests = new ArrayList<>(files.size());
+        for (Future<byte[]> future : futures) {
+            try {
+                digests.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IOException("Gagal meng-hash file: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return digests;
+    }
+}
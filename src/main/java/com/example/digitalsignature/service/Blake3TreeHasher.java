@@ -0,0 +1,217 @@
+package com.example.digitalsignature.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Implementasi BLAKE3 (mode hash biasa) yang menghitung subtree chunk secara paralel
+ * di ForkJoinPool, lalu menggabungkan chaining value-nya sesuai struktur pohon BLAKE3.
+ * Digest yang dihasilkan identik dengan Blake3.newInstance().
+ */
+final class Blake3TreeHasher {
+
+    private static final int OUT_LEN = 32;
+    private static final int BLOCK_LEN = 64;
+    private static final int CHUNK_LEN = 1024;
+
+    private static final int CHUNK_START = 1;
+    private static final int CHUNK_END = 2;
+    private static final int PARENT = 4;
+    private static final int ROOT = 8;
+
+    // Subtree sebesar ini atau lebih kecil dihitung langsung tanpa fork lagi
+    private static final long SEQUENTIAL_SUBTREE = 256L * CHUNK_LEN;
+
+    private static final int[] IV = {
+        0x6A09E667, 0xBB67AE85, 0x3C6EF372, 0xA54FF53A,
+        0x510E527F, 0x9B05688C, 0x1F83D9AB, 0x5BE0CD19
+    };
+
+    private static final int[] MSG_PERMUTATION = {2, 6, 3, 10, 7, 0, 4, 13, 1, 11, 12, 5, 9, 14, 15, 8};
+
+    private final ForkJoinPool pool;
+
+    Blake3TreeHasher(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Hitung digest BLAKE3 32 byte dari seluruh isi buffer (posisi 0 sampai limit).
+     * Buffer hanya dibaca dengan akses absolut, jadi aman dibaca dari banyak thread.
+     */
+    byte[] digest(ByteBuffer data) {
+        ByteBuffer input = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int[] rootWords = pool.invoke(new SubtreeTask(input, 0, input.limit(), 0, true));
+
+        ByteBuffer out = ByteBuffer.allocate(OUT_LEN).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 8; i++) {
+            out.putInt(rootWords[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * Menghitung chaining value sebuah subtree; subtree besar dipecah dan di-fork
+     */
+    private static final class SubtreeTask extends RecursiveTask<int[]> {
+
+        private final ByteBuffer input;
+        private final long offset;
+        private final long length;
+        private final long chunkCounter;
+        private final boolean root;
+
+        SubtreeTask(ByteBuffer input, long offset, long length, long chunkCounter, boolean root) {
+            this.input = input;
+            this.offset = offset;
+            this.length = length;
+            this.chunkCounter = chunkCounter;
+            this.root = root;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (length <= SEQUENTIAL_SUBTREE) {
+                return subtreeCv(input, offset, length, chunkCounter, root);
+            }
+            long leftLength = leftSubtreeLength(length);
+            SubtreeTask left = new SubtreeTask(input, offset, leftLength, chunkCounter, false);
+            SubtreeTask right = new SubtreeTask(input, offset + leftLength, length - leftLength,
+                    chunkCounter + leftLength / CHUNK_LEN, false);
+            right.fork();
+            int[] leftCv = left.compute();
+            int[] rightCv = right.join();
+            return parentOutput(leftCv, rightCv, root);
+        }
+    }
+
+    private static int[] subtreeCv(ByteBuffer input, long offset, long length, long chunkCounter, boolean root) {
+        if (length <= CHUNK_LEN) {
+            return chunkOutput(input, offset, (int) length, chunkCounter, root);
+        }
+        long leftLength = leftSubtreeLength(length);
+        int[] leftCv = subtreeCv(input, offset, leftLength, chunkCounter, false);
+        int[] rightCv = subtreeCv(input, offset + leftLength, length - leftLength,
+                chunkCounter + leftLength / CHUNK_LEN, false);
+        return parentOutput(leftCv, rightCv, root);
+    }
+
+    /**
+     * Subtree kiri selalu berisi jumlah chunk pangkat dua terbesar yang menyisakan
+     * minimal satu byte untuk subtree kanan (aturan pohon BLAKE3).
+     */
+    private static long leftSubtreeLength(long length) {
+        long fullChunks = (length - 1) / CHUNK_LEN;
+        return Long.highestOneBit(fullChunks) * CHUNK_LEN;
+    }
+
+    private static int[] chunkOutput(ByteBuffer input, long offset, int length, long chunkCounter, boolean root) {
+        int[] cv = IV.clone();
+        int[] block = new int[16];
+        int[] state = new int[16];
+        int blocks = Math.max(1, (length + BLOCK_LEN - 1) / BLOCK_LEN);
+
+        for (int b = 0; b < blocks; b++) {
+            int blockStart = b * BLOCK_LEN;
+            int blockLen = Math.min(BLOCK_LEN, length - blockStart);
+            readBlock(input, offset + blockStart, blockLen, block);
+
+            int flags = 0;
+            if (b == 0) {
+                flags |= CHUNK_START;
+            }
+            if (b == blocks - 1) {
+                flags |= CHUNK_END;
+                if (root) {
+                    flags |= ROOT;
+                }
+            }
+            compress(cv, block, chunkCounter, blockLen, flags, state);
+            System.arraycopy(state, 0, cv, 0, 8);
+        }
+        return cv;
+    }
+
+    private static int[] parentOutput(int[] leftCv, int[] rightCv, boolean root) {
+        int[] block = new int[16];
+        System.arraycopy(leftCv, 0, block, 0, 8);
+        System.arraycopy(rightCv, 0, block, 8, 8);
+        int[] state = new int[16];
+        compress(IV, block, 0, BLOCK_LEN, PARENT | (root ? ROOT : 0), state);
+        return Arrays.copyOf(state, 8);
+    }
+
+    private static void readBlock(ByteBuffer input, long position, int blockLen, int[] block) {
+        int pos = (int) position;
+        if (blockLen == BLOCK_LEN) {
+            for (int i = 0; i < 16; i++) {
+                block[i] = input.getInt(pos + i * 4);
+            }
+            return;
+        }
+        // Blok terakhir yang tidak penuh diisi nol
+        Arrays.fill(block, 0);
+        for (int i = 0; i < blockLen; i++) {
+            block[i >> 2] |= (input.get(pos + i) & 0xFF) << ((i & 3) * 8);
+        }
+    }
+
+    private static void compress(int[] cv, int[] blockWords, long counter, int blockLen, int flags, int[] state) {
+        state[0] = cv[0];
+        state[1] = cv[1];
+        state[2] = cv[2];
+        state[3] = cv[3];
+        state[4] = cv[4];
+        state[5] = cv[5];
+        state[6] = cv[6];
+        state[7] = cv[7];
+        state[8] = IV[0];
+        state[9] = IV[1];
+        state[10] = IV[2];
+        state[11] = IV[3];
+        state[12] = (int) counter;
+        state[13] = (int) (counter >>> 32);
+        state[14] = blockLen;
+        state[15] = flags;
+
+        int[] m = blockWords.clone();
+        int[] permuted = new int[16];
+        for (int round = 0; round < 7; round++) {
+            g(state, 0, 4, 8, 12, m[0], m[1]);
+            g(state, 1, 5, 9, 13, m[2], m[3]);
+            g(state, 2, 6, 10, 14, m[4], m[5]);
+            g(state, 3, 7, 11, 15, m[6], m[7]);
+            g(state, 0, 5, 10, 15, m[8], m[9]);
+            g(state, 1, 6, 11, 12, m[10], m[11]);
+            g(state, 2, 7, 8, 13, m[12], m[13]);
+            g(state, 3, 4, 9, 14, m[14], m[15]);
+            if (round < 6) {
+                for (int i = 0; i < 16; i++) {
+                    permuted[i] = m[MSG_PERMUTATION[i]];
+                }
+                int[] tmp = m;
+                m = permuted;
+                permuted = tmp;
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            state[i] ^= state[i + 8];
+            state[i + 8] ^= cv[i];
+        }
+    }
+
+    private static void g(int[] state, int a, int b, int c, int d, int mx, int my) {
+        state[a] = state[a] + state[b] + mx;
+        state[d] = Integer.rotateRight(state[d] ^ state[a], 16);
+        state[c] = state[c] + state[d];
+        state[b] = Integer.rotateRight(state[b] ^ state[c], 12);
+        state[a] = state[a] + state[b] + my;
+        state[d] = Integer.rotateRight(state[d] ^ state[a], 8);
+        state[c] = state[c] + state[d];
+        state[b] = Integer.rotateRight(state[b] ^ state[c], 7);
+    }
+}
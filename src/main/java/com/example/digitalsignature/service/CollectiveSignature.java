@@ -0,0 +1,306 @@
+package com.example.digitalsignature.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * Tanda tangan kolektif N pihak atas satu digest BLAKE3: daftar berurutan (peran, token tanda tangan),
+ * misalnya designer, manufacturer, brand, retailer. Dua bentuk:
+ * <ul>
+ *   <li>legacy (dua peran tetap): {@code Base64(digest) || token designer || token brand}</li>
+ *   <li>compact (biner, Base64 URL-safe tanpa padding):
+ *       {@code version | digest (32) | jumlah pihak | per pihak: panjang peran | peran (UTF-8) | jenis token |
+ *       panjang token (u16) | token}</li>
+ * </ul>
+ * Token compact/digest disimpan sebagai byte biner aslinya (tanpa Base64 ganda), token legacy sebagai teks.
+ * Parser membedakan kedua bentuk dari "||", yang tidak pernah muncul di alfabet Base64 URL-safe.
+ * <p>
+ * Di bentuk compact setiap pihak menandatangani {@link #partyMessage}, bukan digest dokumen langsung,
+ * sehingga tokennya terikat ke peran, posisi dan pihak-pihak sebelumnya. Bentuk legacy menandatangani
+ * digest dokumen apa adanya dan hanya diterima untuk kompatibilitas.
+ */
+public final class CollectiveSignature {
+
+    public static final int VERSION_COMPACT = 1;
+
+    public static final String ROLE_DESIGNER = "designer";
+    public static final String ROLE_BRAND = "brand";
+
+    // Sesuai batas byte panjang di encoding compact
+    public static final int MAX_PARTIES = 255;
+
+    private static final String LEGACY_SEPARATOR = "||";
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final int TOKEN_TEXT = 0;
+    private static final int TOKEN_BINARY = 1;
+
+    // Pemisah domain, supaya pesan pihak tidak pernah sama dengan digest dokumen atau digest lain
+    private static final byte[] PARTY_DOMAIN = "collective-party:v1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHAIN_DOMAIN = "collective-chain:v1".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] digest;
+    private final List<Party> parties;
+    private final boolean legacy;
+
+    public CollectiveSignature(byte[] digest, List<Party> parties) {
+        this(digest, parties, false);
+    }
+
+    private CollectiveSignature(byte[] digest, List<Party> parties, boolean legacy) {
+        if (digest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Digest harus 32 byte");
+        }
+        if (parties.size() > MAX_PARTIES) {
+            throw new IllegalArgumentException("Maksimal " + MAX_PARTIES + " pihak");
+        }
+        List<String> roles = new ArrayList<>(parties.size());
+        for (Party party : parties) {
+            if (roles.contains(party.getRole())) {
+                throw new IllegalArgumentException("Peran ganda: " + party.getRole());
+            }
+            roles.add(party.getRole());
+        }
+        this.digest = digest.clone();
+        this.parties = Collections.unmodifiableList(new ArrayList<>(parties));
+        this.legacy = legacy;
+    }
+
+    /**
+     * Tanda tangan kolektif baru dengan satu pihak tambahan di akhir urutan
+     */
+    public CollectiveSignature with(String role, String signature) {
+        List<Party> extended = new ArrayList<>(parties);
+        extended.add(new Party(role, signature));
+        return new CollectiveSignature(digest, extended);
+    }
+
+    public static boolean isLegacy(String encoded) {
+        return encoded.contains(LEGACY_SEPARATOR);
+    }
+
+    public static CollectiveSignature parse(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            throw new IllegalArgumentException("Format tanda tangan kolektif tidak valid");
+        }
+        return isLegacy(encoded) ? parseLegacy(encoded) : parseCompact(encoded);
+    }
+
+    // HASH || Signature_Desainer || Signature_Brand, dibaca dengan indexOf tanpa split regex
+    private static CollectiveSignature parseLegacy(String encoded) {
+        int first = encoded.indexOf(LEGACY_SEPARATOR);
+        int second = encoded.indexOf(LEGACY_SEPARATOR, first + 2);
+        if (second < 0 || encoded.indexOf(LEGACY_SEPARATOR, second + 2) >= 0) {
+            throw new IllegalArgumentException("Format tanda tangan kolektif tidak valid");
+        }
+        byte[] digest = Base64.getDecoder().decode(encoded.substring(0, first));
+        List<Party> parties = List.of(
+                new Party(ROLE_DESIGNER, encoded.substring(first + 2, second)),
+                new Party(ROLE_BRAND, encoded.substring(second + 2)));
+        return new CollectiveSignature(digest, parties, true);
+    }
+
+    private static CollectiveSignature parseCompact(String encoded) {
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded.getBytes(StandardCharsets.ISO_8859_1));
+        if (bytes.length < 2 + DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Tanda tangan kolektif terlalu pendek");
+        }
+        int version = bytes[0] & 0xFF;
+        if (version != VERSION_COMPACT) {
+            throw new IllegalArgumentException("Versi tanda tangan kolektif tidak dikenal: " + version);
+        }
+        byte[] digest = new byte[DIGEST_LENGTH];
+        System.arraycopy(bytes, 1, digest, 0, DIGEST_LENGTH);
+        int count = bytes[1 + DIGEST_LENGTH] & 0xFF;
+
+        int offset = 2 + DIGEST_LENGTH;
+        List<Party> parties = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int roleLength = readUnsigned(bytes, offset, 1);
+            offset += 1;
+            checkAvailable(bytes, offset, roleLength + 3);
+            String role = new String(bytes, offset, roleLength, StandardCharsets.UTF_8);
+            offset += roleLength;
+            int tokenType = bytes[offset++] & 0xFF;
+            int tokenLength = readUnsigned(bytes, offset, 2);
+            offset += 2;
+            checkAvailable(bytes, offset, tokenLength);
+            String token;
+            if (tokenType == TOKEN_BINARY) {
+                token = Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(Arrays.copyOfRange(bytes, offset, offset + tokenLength));
+            } else if (tokenType == TOKEN_TEXT) {
+                token = new String(bytes, offset, tokenLength, StandardCharsets.US_ASCII);
+            } else {
+                throw new IllegalArgumentException("Jenis token tidak dikenal: " + tokenType);
+            }
+            offset += tokenLength;
+            parties.add(new Party(role, token));
+        }
+        if (offset != bytes.length) {
+            throw new IllegalArgumentException("Tanda tangan kolektif tidak valid");
+        }
+        return new CollectiveSignature(digest, parties);
+    }
+
+    private static int readUnsigned(byte[] bytes, int offset, int length) {
+        checkAvailable(bytes, offset, length);
+        return length == 1 ? bytes[offset] & 0xFF : ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static void checkAvailable(byte[] bytes, int offset, int length) {
+        if (offset + length > bytes.length) {
+            throw new IllegalArgumentException("Tanda tangan kolektif terpotong");
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + parties.size() * 96);
+        out.write(VERSION_COMPACT);
+        out.writeBytes(digest);
+        out.write(parties.size());
+        for (Party party : parties) {
+            byte[] role = party.getRole().getBytes(StandardCharsets.UTF_8);
+            // Token legacy selalu mengandung ':', token compact/digest adalah Base64 URL-safe
+            boolean binary = party.getSignature().indexOf(':') < 0;
+            byte[] token = binary
+                    ? Base64.getUrlDecoder().decode(party.getSignature())
+                    : party.getSignature().getBytes(StandardCharsets.US_ASCII);
+            if (token.length > 0xFFFF) {
+                throw new IllegalArgumentException("Token tanda tangan terlalu panjang");
+            }
+            out.write(role.length);
+            out.writeBytes(role);
+            out.write(binary ? TOKEN_BINARY : TOKEN_TEXT);
+            out.write(token.length >>> 8);
+            out.write(token.length);
+            out.writeBytes(token);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * Bentuk legacy HASH || designer || brand; hanya untuk tepat dua pihak designer lalu brand
+     */
+    public String encodeLegacy() {
+        if (parties.size() != 2 || !ROLE_DESIGNER.equals(parties.get(0).getRole())
+                || !ROLE_BRAND.equals(parties.get(1).getRole())) {
+            throw new IllegalStateException("Format legacy hanya untuk peran designer lalu brand");
+        }
+        return Base64.getEncoder().encodeToString(digest) + LEGACY_SEPARATOR + parties.get(0).getSignature()
+                + LEGACY_SEPARATOR + parties.get(1).getSignature();
+    }
+
+    /**
+     * Pesan yang ditandatangani pihak baru dengan peran ini di posisi berikutnya (setelah semua pihak
+     * yang sudah ada)
+     */
+    public byte[] nextPartyMessage(String role) {
+        byte[] chain = chainStart();
+        for (Party party : parties) {
+            chain = chainNext(chain, party);
+        }
+        return partyMessage(parties.size(), role, chain);
+    }
+
+    /**
+     * Pesan yang ditandatangani setiap pihak, sesuai urutan pihak. Dihitung dalam satu lintasan:
+     * pesan pihak ke-i = BLAKE3(domain | digest | i | peran | hash rantai pihak 0..i-1).
+     */
+    public List<byte[]> partyMessages() {
+        List<byte[]> messages = new ArrayList<>(parties.size());
+        byte[] chain = chainStart();
+        for (int i = 0; i < parties.size(); i++) {
+            Party party = parties.get(i);
+            messages.add(partyMessage(i, party.getRole(), chain));
+            chain = chainNext(chain, party);
+        }
+        return messages;
+    }
+
+    private byte[] partyMessage(int index, String role, byte[] chain) {
+        if (index >= MAX_PARTIES) {
+            throw new IllegalArgumentException("Maksimal " + MAX_PARTIES + " pihak");
+        }
+        byte[] roleBytes = role.getBytes(StandardCharsets.UTF_8);
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(PARTY_DOMAIN);
+        hasher.update(digest);
+        hasher.update(new byte[] {(byte) index, (byte) roleBytes.length});
+        hasher.update(roleBytes);
+        hasher.update(chain);
+        return hasher.digest();
+    }
+
+    private byte[] chainStart() {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(CHAIN_DOMAIN);
+        hasher.update(digest);
+        return hasher.digest();
+    }
+
+    // Rantai = BLAKE3(rantai sebelumnya | peran | token), dengan prefix panjang agar batasnya tidak ambigu
+    private static byte[] chainNext(byte[] chain, Party party) {
+        byte[] role = party.getRole().getBytes(StandardCharsets.UTF_8);
+        byte[] token = party.getSignature().getBytes(StandardCharsets.US_ASCII);
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(chain);
+        hasher.update(new byte[] {(byte) role.length});
+        hasher.update(role);
+        hasher.update(new byte[] {(byte) (token.length >>> 8), (byte) token.length});
+        hasher.update(token);
+        return hasher.digest();
+    }
+
+    /**
+     * true jika dibaca dari format legacy HASH || designer || brand: token para pihak menandatangani
+     * digest dokumen langsung, tanpa peran
+     */
+    public boolean isLegacyFormat() {
+        return legacy;
+    }
+
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    public List<Party> getParties() {
+        return parties;
+    }
+
+    /**
+     * Satu pihak: peran (1-255 byte UTF-8) dan token tanda tangannya (format apa pun yang diterima
+     * CryptoService.verifyDigest)
+     */
+    public static final class Party {
+
+        private final String role;
+        private final String signature;
+
+        public Party(String role, String signature) {
+            if (role == null || role.isEmpty() || role.getBytes(StandardCharsets.UTF_8).length > 255) {
+                throw new IllegalArgumentException("Peran harus 1-255 byte");
+            }
+            if (signature == null || signature.isEmpty()) {
+                throw new IllegalArgumentException("Tanda tangan untuk peran " + role + " kosong");
+            }
+            this.role = role;
+            this.signature = signature;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.digitalsignature.service;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tanda tangan kolektif N pihak (designer, manufacturer, brand, retailer, ...) atas satu digest.
+ * Setiap pihak menambahkan tanda tangannya di akhir urutan; verifikasi memeriksa semua pihak
+ * bersamaan di cryptoExecutor. Setiap pihak menandatangani pesan yang mengikat digest, peran, posisi
+ * dan pihak sebelumnya (CollectiveSignature.partyMessages), sehingga token biasa dari /sign atau
+ * token pihak lain tidak bisa dipakai untuk peran lain.
+ */
+@Service
+public class CollectiveSignatureService {
+
+    // Masa berlaku tanda tangan pihak, sama seperti CryptoService.signDigest(digest)
+    private static final long PARTY_VALIDITY_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Autowired
+    @Qualifier("cryptoExecutor")
+    private ExecutorService cryptoExecutor;
+
+    /**
+     * Tanda tangani digest sebagai peran ini dan tambahkan ke tanda tangan kolektif yang sudah ada
+     * (null = tanda tangan kolektif baru). Digest harus sama dengan digest tanda tangan kolektif.
+     * Format legacy HASH || designer || brand tidak bisa diperpanjang karena tokennya tidak terikat peran.
+     * Pesan pihak bukan digest dokumen, jadi tanda tangannya tidak dicatat di ledger.
+     */
+    public CollectiveSignature sign(byte[] digest, CollectiveSignature existing, String role) throws Exception {
+        if (existing != null && !MessageDigest.isEqual(digest, existing.getDigest())) {
+            throw new IllegalArgumentException("Hash dokumen tidak sama dengan hash tanda tangan kolektif");
+        }
+        if (existing != null && existing.isLegacyFormat()) {
+            throw new IllegalArgumentException("Tanda tangan kolektif format lama (HASH||designer||brand) "
+                    + "tidak bisa ditambah pihak baru, mulai tanda tangan kolektif compact baru");
+        }
+        CollectiveSignature base = existing != null ? existing : new CollectiveSignature(digest, List.of());
+        for (CollectiveSignature.Party party : base.getParties()) {
+            if (party.getRole().equals(role)) {
+                throw new IllegalArgumentException("Peran " + role + " sudah menandatangani");
+            }
+        }
+        return base.with(role, cryptoService.signMessage(base.nextPartyMessage(role), PARTY_VALIDITY_MILLIS));
+    }
+
+    /**
+     * Verifikasi hash dan semua pihak. Tanda tangan para pihak diverifikasi paralel; dengan failFast,
+     * verifikasi berhenti di kegagalan pertama (hash tidak cocok atau satu pihak tidak valid) dan
+     * pihak yang belum selesai dibatalkan serta dilaporkan "checked": false.
+     */
+    public Map<String, Object> verify(byte[] digest, CollectiveSignature collective, boolean failFast)
+            throws InterruptedException {
+        List<CollectiveSignature.Party> parties = collective.getParties();
+        boolean hashValid = MessageDigest.isEqual(digest, collective.getDigest());
+        Boolean[] partyValid = new Boolean[parties.size()];
+
+        if (hashValid || !failFast) {
+            // Tanda tangan selalu diverifikasi terhadap digest yang ditandatangani; format legacy
+            // menandatangani digest itu langsung, format compact pesan per pihak
+            byte[] signedDigest = collective.getDigest();
+            List<byte[]> messages = collective.isLegacyFormat()
+                    ? Collections.nCopies(parties.size(), signedDigest)
+                    : collective.partyMessages();
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(cryptoExecutor);
+            List<Future<Integer>> futures = new ArrayList<>(parties.size());
+            for (int i = 0; i < parties.size(); i++) {
+                int index = i;
+                byte[] message = messages.get(i);
+                String signature = parties.get(i).getSignature();
+                // Hasil dikodekan sebagai index * 2 + valid, supaya array hasil hanya ditulis oleh thread pemanggil
+                futures.add(completion.submit(
+                        () -> index * 2 + (verifyParty(signedDigest, message, signature) ? 1 : 0)));
+            }
+
+            try {
+                for (int done = 0; done < futures.size(); done++) {
+                    int outcome;
+                    try {
+                        outcome = completion.take().get();
+                    } catch (ExecutionException e) {
+                        // verifyParty tidak melempar exception yang diharapkan; pihak ini tetap tidak valid
+                        continue;
+                    }
+                    boolean valid = (outcome & 1) != 0;
+                    partyValid[outcome >>> 1] = valid;
+                    if (failFast && !valid) {
+                        break;
+                    }
+                }
+            } finally {
+                for (Future<Integer> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(parties.size());
+        boolean allValid = hashValid;
+        for (int i = 0; i < parties.size(); i++) {
+            Map<String, Object> party = new LinkedHashMap<>();
+            party.put("role", parties.get(i).getRole());
+            Boolean valid = partyValid[i];
+            party.put("checked", valid != null);
+            party.put("valid", Boolean.TRUE.equals(valid));
+            allValid &= Boolean.TRUE.equals(valid);
+            results.add(party);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("valid", allValid && !parties.isEmpty());
+        result.put("hashValid", hashValid);
+        result.put("parties", results);
+        return result;
+    }
+
+    // Token yang formatnya rusak dihitung tidak valid, bukan error untuk seluruh request.
+    // Pencabutan digest dokumen tetap berlaku walaupun yang ditandatangani pesan per pihak.
+    private boolean verifyParty(byte[] digest, byte[] message, String signature) {
+        try {
+            return !cryptoService.isRevoked(digest, null) && cryptoService.verifyDigest(message, signature);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package com.example.digitalsignature.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.KeyFactory;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.Signature;
+import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -19,11 +34,54 @@ import io.github.rctcwyvrn.blake3.Blake3;
 @Service
 public class CryptoService {
 
-    private final KeyPair keyPair;
+    // Ukuran potongan data yang dibaca per iterasi saat hashing streaming
+    private static final int HASH_CHUNK_SIZE = 64 * 1024;
+
+    // Buffer potongan dipakai ulang per thread, jadi heap per request tetap konstan
+    private static final ThreadLocal<byte[]> HASH_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[HASH_CHUNK_SIZE]);
+
+    // Kunci yang dipakai menandatangani (CURRENT) dan memverifikasi, dipilih lewat key id di token
+    private final KeyRing keyRing;
+
+    // Key id dari SIGNATURE_PRIVATE_KEY/SIGNATURE_PUBLIC_KEY, null jika kunci dibuat di konstruktor
+    private final String envKeyId;
+
+    private final SignatureEngines signatureEngines = new SignatureEngines();
+
+    // Opsional: null jika CryptoService dibuat di luar Spring (misalnya di benchmark)
+    @Autowired(required = false)
+    private VerificationCache verificationCache;
+
+    // Opsional: setiap tanda tangan dari signDigest dicatat di ledger jika tersedia
+    @Autowired(required = false)
+    private SignatureLedger signatureLedger;
+
+    // Opsional: tanda tangan/digest yang dicabut selalu tidak valid, dicek sebelum cache verifikasi
+    @Autowired(required = false)
+    private RevocationList revocationList;
+
+    private final Blake3TreeHasher treeHasher = new Blake3TreeHasher(ForkJoinPool.commonPool());
+    
+    // File sebesar ini atau lebih di-hash paralel lewat memory-mapped file (default 8 MB)
+    @Value("${signature.hash.parallelThreshold:8388608}")
+    private long parallelHashThreshold = 8L * 1024 * 1024;
     
+    // Format token: "legacy" (Base64 DER + ":" + expiry + ":" + key id), "compact" (biner),
+    // atau "digest" (biner, digest BLAKE3 mentah ditandatangani langsung oleh signDigest)
+    @Value("${signature.token.format:legacy}")
+    private String tokenFormat = "legacy";
+    
+    // Algoritma untuk tanda tangan baru jika request tidak memilih sendiri (lihat setDefaultAlgorithm)
+    private SignatureAlgorithm defaultAlgorithm = SignatureAlgorithm.ES256;
+
     @Value("${signature.validityPeriod:604800000}") // Default 1 minggu dalam milidetik
     private long signatureValidityPeriod;
     
+    // Direktori key ring (kosong = hanya kunci dari environment / kunci sementara)
+    @Value("${signature.keys.dir:}")
+    private String keyDirectory = "";
+
     @Value("${SIGNATURE_PRIVATE_KEY:#{null}}")
     private String privateKeyEnv;
 
@@ -31,7 +89,143 @@ public class CryptoService {
     private String publicKeyEnv;
     
     public CryptoService() throws Exception {
-        this.keyPair = loadOrGenerateKeyPair();
+        boolean fromEnv = hasEnvKeyPair();
+        KeyPair keyPair = loadOrGenerateKeyPair();
+        this.keyRing = new KeyRing(keyPair);
+        this.envKeyId = fromEnv ? KeyRing.keyId(keyPair.getPublic()) : null;
+    }
+
+    /**
+     * Algoritma default dari signature.algorithm: "ES256" (ECDSA P-256) atau "Ed25519".
+     * Verifikasi tidak bergantung pada setting ini; algoritma dibaca dari token.
+     */
+    @Value("${signature.algorithm:ES256}")
+    public void setDefaultAlgorithm(String name) {
+        this.defaultAlgorithm = SignatureAlgorithm.parse(name);
+    }
+
+    public SignatureAlgorithm getDefaultAlgorithm() {
+        return defaultAlgorithm;
+    }
+
+    private static boolean hasEnvKeyPair() {
+        String privateKeyStr = System.getenv("SIGNATURE_PRIVATE_KEY");
+        String publicKeyStr = System.getenv("SIGNATURE_PUBLIC_KEY");
+        return privateKeyStr != null && publicKeyStr != null && !privateKeyStr.isEmpty() && !publicKeyStr.isEmpty();
+    }
+
+    /**
+     * Muat kunci dari direktori key ring (jika dikonfigurasi); status di direktori (CURRENT setelah
+     * rotasi, RETIRED) berlaku juga untuk kunci dari environment variable. Kunci yang dibuat di
+     * konstruktor hanya dipakai dan disimpan jika direktori belum punya kunci CURRENT untuk
+     * algoritmanya.
+     */
+    @PostConstruct
+    public void loadKeyDirectory() throws Exception {
+        if (keyDirectory == null || keyDirectory.isEmpty()) {
+            return;
+        }
+        KeyDirectory directory = new KeyDirectory(Paths.get(keyDirectory));
+        // Sebelum direktori dimuat, ring hanya berisi kunci dari konstruktor
+        KeyRing.KeyEntry initial = keyRing.keys().get(0);
+        boolean hasCurrent = false;
+
+        List<KeyRing.KeyEntry> entries = new ArrayList<>();
+        KeyRing.KeyEntry initialEntry = null;
+        for (KeyRing.KeyEntry entry : directory.load()) {
+            if (entry.getId().equals(initial.getId())) {
+                // Kunci dari environment disimpan tanpa private key; pasangkan lagi di sini
+                entry = new KeyRing.KeyEntry(initial.getPublicKey(), initial.getPrivateKey(),
+                        entry.getStatus(), entry.getCreatedAt());
+                initialEntry = entry;
+            } else if (entry.getStatus() == KeyRing.Status.CURRENT && entry.getPrivateKey() == null) {
+                // Kunci CURRENT dari environment yang tidak lagi dikonfigurasi: hanya untuk verifikasi
+                entry = entry.withStatus(KeyRing.Status.ACTIVE);
+            }
+            hasCurrent |= entry.getStatus() == KeyRing.Status.CURRENT && entry.getAlgorithm() == initial.getAlgorithm();
+            entries.add(entry);
+        }
+
+        if (initialEntry == null && (envKeyId != null || !hasCurrent)) {
+            initialEntry = initial.withStatus(hasCurrent ? KeyRing.Status.ACTIVE : KeyRing.Status.CURRENT);
+            entries.add(initialEntry);
+            persistKey(initialEntry);
+        } else if (initialEntry != null && !hasCurrent) {
+            entries.remove(initialEntry);
+            initialEntry = initialEntry.withStatus(KeyRing.Status.CURRENT);
+            entries.add(initialEntry);
+            persistKey(initialEntry);
+        }
+        keyRing.replace(entries);
+        System.out.println("Key ring: " + entries.size() + " key(s) from " + keyDirectory
+                + ", current key id " + getKeyId());
+    }
+
+    /**
+     * Buat kunci baru dan jadikan CURRENT tanpa restart; kunci sebelumnya tetap dipakai untuk
+     * verifikasi (ACTIVE). Disimpan ke direktori key ring jika dikonfigurasi.
+     */
+    public KeyRing.KeyEntry rotateKey() throws Exception {
+        return rotateKey(defaultAlgorithm);
+    }
+
+    public synchronized KeyRing.KeyEntry rotateKey(SignatureAlgorithm algorithm) throws Exception {
+        KeyRing.KeyEntry previous = keyRing.current(algorithm);
+        KeyRing.KeyEntry next = keyRing.rotate(algorithm.generateKeyPair());
+        if (previous != null) {
+            persistKey(keyRing.find(previous.getId()));
+        }
+        persistKey(next);
+        System.out.println("Signature key rotated (" + algorithm + "): "
+                + (previous != null ? previous.getId() : "-") + " -> " + next.getId());
+        return next;
+    }
+
+    /**
+     * Kunci CURRENT untuk algoritma ini; kunci dibuat (dan disimpan) saat pertama kali dipakai,
+     * misalnya saat request pertama yang memilih Ed25519
+     */
+    private KeyRing.KeyEntry signingKey(SignatureAlgorithm algorithm) {
+        KeyRing.KeyEntry signer = keyRing.current(algorithm);
+        if (signer != null) {
+            return signer;
+        }
+        synchronized (this) {
+            signer = keyRing.current(algorithm);
+            if (signer != null) {
+                return signer;
+            }
+            try {
+                return rotateKey(algorithm);
+            } catch (Exception e) {
+                throw new IllegalStateException("Gagal membuat kunci " + algorithm, e);
+            }
+        }
+    }
+
+    /**
+     * Nonaktifkan kunci lama: semua tanda tangan dengan key id ini tidak lagi valid
+     */
+    public synchronized KeyRing.KeyEntry retireKey(String keyId) throws Exception {
+        KeyRing.KeyEntry retired = keyRing.retire(keyId);
+        // Setelah snapshot key ring diganti: hasil "valid" yang tersimpan untuk kunci ini, termasuk
+        // dari verifikasi yang masih berjalan dengan snapshot lama, tidak boleh dipakai lagi
+        if (verificationCache != null) {
+            verificationCache.invalidate();
+        }
+        persistKey(retired);
+        return retired;
+    }
+
+    private void persistKey(KeyRing.KeyEntry entry) throws IOException {
+        if (keyDirectory != null && !keyDirectory.isEmpty()) {
+            // Private key dari environment tidak pernah ditulis ke disk, hanya kunci publik dan statusnya
+            new KeyDirectory(Paths.get(keyDirectory)).save(entry, !entry.getId().equals(envKeyId));
+        }
+    }
+
+    public KeyRing getKeyRing() {
+        return keyRing;
     }
     
     private KeyPair loadOrGenerateKeyPair() throws Exception {
@@ -48,9 +242,7 @@ public class CryptoService {
             return restoreKeyPairFromString(privateKeyStr, publicKeyStr);
         } else {
             // Generate key baru jika tidak ditemukan
-            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
-            keyGen.initialize(256);
-            KeyPair newKeyPair = keyGen.generateKeyPair();
+            KeyPair newKeyPair = SignatureAlgorithm.ES256.generateKeyPair();
             
             // Print ke console
             System.out.println("==== GENERATED NEW KEY PAIR ====");
@@ -69,16 +261,19 @@ public class CryptoService {
         byte[] privateKeyBytes = Base64.getDecoder().decode(privateKeyB64);
         byte[] publicKeyBytes = Base64.getDecoder().decode(publicKeyB64);
         
-        // Reconstruct private key
-        PKCS8EncodedKeySpec privateKeySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance("EC");
-        PrivateKey privateKey = keyFactory.generatePrivate(privateKeySpec);
-        
-        // Reconstruct public key
-        X509EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(publicKeyBytes);
-        PublicKey publicKey = keyFactory.generatePublic(publicKeySpec);
-        
-        return new KeyPair(publicKey, privateKey);
+        // Kunci di environment bisa EC maupun Ed25519; coba setiap jenis kunci yang didukung
+        InvalidKeySpecException failure = null;
+        for (SignatureAlgorithm algorithm : SignatureAlgorithm.values()) {
+            try {
+                KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getKeyAlgorithm());
+                PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKeyBytes));
+                PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+                return new KeyPair(publicKey, privateKey);
+            } catch (InvalidKeySpecException e) {
+                failure = e;
+            }
+        }
+        throw failure;
     }
     
     public String hashWithBlake3(byte[] data) {
@@ -88,26 +283,127 @@ public class CryptoService {
         return Base64.getEncoder().encodeToString(hash);
     }
 
+    /**
+     * Digest BLAKE3 mentah (32 byte) dari data di memori.
+     */
+    public byte[] digestBlake3(byte[] data) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(data);
+        return hasher.digest();
+    }
+
+    /**
+     * Hash BLAKE3 langsung dari stream (misalnya stream upload multipart)
+     * tanpa memuat seluruh file ke heap. Hasil sama dengan hashWithBlake3(byte[]).
+     */
+    public String hashWithBlake3(InputStream input) throws IOException {
+        return Base64.getEncoder().encodeToString(digestBlake3(input));
+    }
+
+    /**
+     * Hash BLAKE3 dari channel, dibaca per potongan dengan buffer yang dipakai ulang.
+     */
+    public String hashWithBlake3(ReadableByteChannel channel) throws IOException {
+        return Base64.getEncoder().encodeToString(digestBlake3(channel));
+    }
+
+    /**
+     * Hash BLAKE3 dari file di disk. File yang ukurannya mencapai parallelHashThreshold
+     * di-memory-map dan subtree chunk-nya di-hash paralel di ForkJoinPool;
+     * hasilnya tetap sama persis dengan hashing satu thread.
+     */
+    public String hashWithBlake3(Path file) throws IOException {
+        return Base64.getEncoder().encodeToString(digestBlake3(file));
+    }
+
+    /**
+     * Digest BLAKE3 mentah (32 byte) dari file di disk.
+     */
+    public byte[] digestBlake3(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // Satu mapping dibatasi 2 GB, file yang lebih besar tetap di-hash streaming
+            if (size < parallelHashThreshold || size > Integer.MAX_VALUE) {
+                return digestBlake3(channel);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return treeHasher.digest(mapped);
+        }
+    }
+
+    public long getParallelHashThreshold() {
+        return parallelHashThreshold;
+    }
+
+    /**
+     * Digest BLAKE3 mentah (32 byte) dari stream.
+     */
+    public byte[] digestBlake3(InputStream input) throws IOException {
+        Blake3 hasher = Blake3.newInstance();
+        byte[] buffer = HASH_BUFFER.get();
+        int read;
+        // readNBytes hanya mengembalikan kurang dari panjang buffer saat EOF
+        while ((read = input.readNBytes(buffer, 0, buffer.length)) == buffer.length) {
+            hasher.update(buffer);
+        }
+        if (read > 0) {
+            hasher.update(Arrays.copyOf(buffer, read));
+        }
+        return hasher.digest();
+    }
+
+    /**
+     * Digest BLAKE3 mentah (32 byte) dari channel.
+     */
+    public byte[] digestBlake3(ReadableByteChannel channel) throws IOException {
+        Blake3 hasher = Blake3.newInstance();
+        byte[] buffer = HASH_BUFFER.get();
+        ByteBuffer chunk = ByteBuffer.wrap(buffer);
+        boolean eof = false;
+        while (!eof) {
+            chunk.clear();
+            // Isi buffer sampai penuh atau sampai channel habis
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            if (chunk.position() == buffer.length) {
+                hasher.update(buffer);
+            } else if (chunk.position() > 0) {
+                hasher.update(Arrays.copyOf(buffer, chunk.position()));
+            }
+        }
+        return hasher.digest();
+    }
+
     public String signData(byte[] hash, long validityPeriodMillis) throws Exception {
         // Dapatkan waktu saat ini
         long currentTime = System.currentTimeMillis();
         // Hitung waktu kedaluwarsa
-        long expiryTime = currentTime + validityPeriodMillis;
-        
+        return signUntil(signingKey(defaultAlgorithm), hash, currentTime + validityPeriodMillis);
+    }
+
+    private String signUntil(KeyRing.KeyEntry signer, byte[] hash, long expiryTime) throws Exception {
         // Data yang akan ditandatangani: hash + waktu kedaluwarsa
         ByteBuffer buffer = ByteBuffer.allocate(hash.length + 8);
         buffer.put(hash);
         buffer.putLong(expiryTime);
         byte[] dataToSign = buffer.array();
         
-        // Proses tanda tangan
-        Signature signature = Signature.getInstance("SHA256withECDSA");
-        signature.initSign(keyPair.getPrivate());
-        signature.update(dataToSign);
-        byte[] signatureBytes = signature.sign();
+        // Proses tanda tangan dengan engine yang sudah diinisialisasi untuk thread ini.
+        // Format legacy hanya ada untuk ES256; algoritma lain selalu memakai token compact.
+        SignatureAlgorithm algorithm = signer.getAlgorithm();
+        if ("compact".equalsIgnoreCase(tokenFormat) || !algorithm.supportsLegacy()) {
+            byte[] rawSignature = signatureEngines.sign(algorithm.messageEngine(), signer.getPrivateKey(), dataToSign);
+            return SignatureToken.compact(algorithm.getTokenId(), expiryTime, signer.getId(), rawSignature)
+                    .encode();
+        }
+        byte[] signatureBytes = signatureEngines.sign(algorithm.legacyEngine(), signer.getPrivateKey(), dataToSign);
         
-        // Format hasil: Base64(signature) + ":" + expiryTime
-        return Base64.getEncoder().encodeToString(signatureBytes) + ":" + expiryTime;
+        // Format hasil: Base64(signature) + ":" + expiryTime + ":" + key id
+        return SignatureToken.legacy(expiryTime, signer.getId(), signatureBytes).encode();
     }
 
     // Overload method untuk backward compatibility
@@ -116,38 +412,199 @@ public class CryptoService {
         return signData(hash, 7 * 24 * 60 * 60 * 1000L);
     }
 
+    /**
+     * Tanda tangan digest BLAKE3 mentah (32 byte). Dengan format "digest", digest ditandatangani
+     * langsung (ECDSA pre-hashed atau Ed25519) tanpa Base64, String dan SHA-256 di tengahnya;
+     * format lain tetap menandatangani teks Base64 digest seperti signData.
+     */
+    public String signDigest(byte[] digest, long validityPeriodMillis) throws Exception {
+        return signDigest(digest, validityPeriodMillis, null);
+    }
+
+    /**
+     * Seperti signDigest(digest, validity), dengan nama desainer yang ikut dicatat di ledger
+     */
+    public String signDigest(byte[] digest, long validityPeriodMillis, String designerName) throws Exception {
+        return signDigest(digest, validityPeriodMillis, designerName, null);
+    }
+
+    /**
+     * Tanda tangan dengan algoritma pilihan request (null = signature.algorithm)
+     */
+    public String signDigest(byte[] digest, long validityPeriodMillis, String designerName,
+                             SignatureAlgorithm algorithm) throws Exception {
+        long expiryTime = System.currentTimeMillis() + validityPeriodMillis;
+        // Satu snapshot kunci untuk tanda tangan dan catatan ledger, walau rotasi terjadi bersamaan
+        KeyRing.KeyEntry signer = signingKey(algorithm != null ? algorithm : defaultAlgorithm);
+        String signature = signDigestUntil(signer, digest, expiryTime);
+        if (signatureLedger != null) {
+            signatureLedger.record(digest, signature, expiryTime, signer.getId(), designerName);
+        }
+        return signature;
+    }
+
+    /**
+     * Tanda tangan atas pesan turunan 32 byte (mis. pesan pihak tanda tangan kolektif) dengan format
+     * yang sama seperti signDigest, tetapi tanpa catatan ledger: pesan itu bukan digest dokumen,
+     * sehingga lookup ledger tidak boleh menemukannya.
+     */
+    public String signMessage(byte[] message, long validityPeriodMillis) throws Exception {
+        long expiryTime = System.currentTimeMillis() + validityPeriodMillis;
+        return signDigestUntil(signingKey(defaultAlgorithm), message, expiryTime);
+    }
+
+    private String signDigestUntil(KeyRing.KeyEntry signer, byte[] digest, long expiryTime) throws Exception {
+        if (!"digest".equalsIgnoreCase(tokenFormat)) {
+            return signUntil(signer, Base64.getEncoder().encode(digest), expiryTime);
+        }
+        byte[] rawSignature = signatureEngines.sign(signer.getAlgorithm().digestEngine(), signer.getPrivateKey(),
+                digestMessage(digest, expiryTime));
+        return SignatureToken.digest(signer.getAlgorithm().getTokenId(), expiryTime, signer.getId(), rawSignature)
+                .encode();
+    }
+
+    public String signDigest(byte[] digest) throws Exception {
+        return signDigest(digest, 7 * 24 * 60 * 60 * 1000L);
+    }
+
+    /**
+     * Verifikasi tanda tangan terhadap digest BLAKE3 mentah. Menerima semua versi token:
+     * token versi 2 diverifikasi langsung atas digest, token lama atas teks Base64 digest.
+     */
+    public boolean verifyDigest(byte[] digest, String signatureToken) throws Exception {
+        if (isRevoked(digest, signatureToken)) {
+            return false;
+        }
+        // Generasi cache diambil sebelum key ring dibaca (lihat VerificationCache.invalidate)
+        long generation = cacheGeneration();
+        Boolean cached = cachedResult(digest, signatureToken);
+        if (cached != null) {
+            return cached;
+        }
+        SignatureToken token = SignatureToken.parse(signatureToken);
+        byte[] signedHash = token.isDigest() ? digest : Base64.getEncoder().encode(digest);
+        boolean valid = verifyToken(signedHash, token);
+        cacheResult(digest, signatureToken, token, valid, generation);
+        return valid;
+    }
+
+    /**
+     * Verifikasi tanda tangan terhadap teks Base64 digest (API lama, hash.getBytes()).
+     */
     public boolean verifySignature(byte[] hash, String signatureWithExpiry) throws Exception {
-        // Parse signature dan waktu kedaluwarsa
-        String[] parts = signatureWithExpiry.split(":");
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Format tanda tangan tidak valid");
+        if (isRevoked(decodeDigest(hash), signatureWithExpiry)) {
+            return false;
         }
-        
-        String base64Signature = parts[0];
-        long expiryTime = Long.parseLong(parts[1]);
+
+        // Cek cache dulu; entry cache sudah kedaluwarsa bersamaan dengan tanda tangannya
+        long generation = cacheGeneration();
+        Boolean cached = cachedResult(hash, signatureWithExpiry);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Parse token (legacy atau compact) dalam satu lintasan
+        SignatureToken token = SignatureToken.parse(signatureWithExpiry);
+        byte[] signedHash = token.isDigest() ? Base64.getDecoder().decode(hash) : hash;
+        boolean valid = verifyToken(signedHash, token);
+        cacheResult(hash, signatureWithExpiry, token, valid, generation);
+        return valid;
+    }
+
+    private boolean verifyToken(byte[] signedHash, SignatureToken token) throws Exception {
+        long expiryTime = token.getExpiry();
         
         // Periksa apakah signature sudah kedaluwarsa
         long currentTime = System.currentTimeMillis();
         if (currentTime > expiryTime) {
             return false; // Tanda tangan sudah kedaluwarsa
         }
+
+        // Backend verifikasi dipilih dari id algoritma di token (token legacy selalu ES256)
+        SignatureAlgorithm algorithm = SignatureAlgorithm.fromTokenId(token.getAlgorithm());
+
+        // Kunci dipilih lewat key id di token; key id yang tidak dikenal, sudah di-retire,
+        // atau milik algoritma lain tidak valid
+        if (token.getKeyId() != null) {
+            KeyRing.KeyEntry key = keyRing.find(token.getKeyId());
+            return key != null && key.canVerify() && key.getAlgorithm() == algorithm
+                    && verifyWithKey(algorithm, key.getPublicKey(), signedHash, token);
+        }
+
+        // Token lama tanpa key id: coba kunci CURRENT, lalu kunci ACTIVE lainnya
+        for (KeyRing.KeyEntry key : keyRing.verificationKeys(algorithm)) {
+            if (verifyWithKey(algorithm, key.getPublicKey(), signedHash, token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean verifyWithKey(SignatureAlgorithm algorithm, PublicKey publicKey, byte[] signedHash,
+                                  SignatureToken token) throws Exception {
+        long expiryTime = token.getExpiry();
+        if (token.isDigest()) {
+            return signatureEngines.verify(algorithm.digestEngine(), publicKey,
+                    digestMessage(signedHash, expiryTime), token.getSignature());
+        }
         
         // Rekonstruksi data yang ditandatangani
-        ByteBuffer buffer = ByteBuffer.allocate(hash.length + 8);
-        buffer.put(hash);
+        ByteBuffer buffer = ByteBuffer.allocate(signedHash.length + 8);
+        buffer.put(signedHash);
         buffer.putLong(expiryTime);
         byte[] dataToVerify = buffer.array();
         
-        // Verifikasi tanda tangan
-        byte[] signatureBytes = Base64.getDecoder().decode(base64Signature);
-        Signature signature = Signature.getInstance("SHA256withECDSA");
-        signature.initVerify(keyPair.getPublic());
-        signature.update(dataToVerify);
-        
-        return signature.verify(signatureBytes);
+        // Verifikasi tanda tangan (DER untuk legacy, tanda tangan mentah untuk compact)
+        String engine = token.isLegacy() ? algorithm.legacyEngine() : algorithm.messageEngine();
+        return signatureEngines.verify(engine, publicKey, dataToVerify, token.getSignature());
+    }
+
+    /**
+     * Pesan 32 byte untuk token versi 2: BLAKE3(digest || expiry), supaya waktu kedaluwarsa
+     * ikut terikat pada tanda tangan tanpa melewati SHA-256 lagi
+     */
+    private static byte[] digestMessage(byte[] digest, long expiryTime) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(ByteBuffer.allocate(digest.length + 8).put(digest).putLong(expiryTime).array());
+        return hasher.digest();
+    }
+
+    /**
+     * true jika digest atau token ini ada di daftar pencabutan
+     */
+    public boolean isRevoked(byte[] digest, String signatureToken) {
+        return revocationList != null && revocationList.isRevoked(digest, signatureToken);
+    }
+
+    // Teks Base64 digest (API lama) ke digest mentah; null jika bukan Base64 yang valid
+    private static byte[] decodeDigest(byte[] hash) {
+        try {
+            return Base64.getDecoder().decode(hash);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Boolean cachedResult(byte[] hash, String signatureToken) {
+        return verificationCache != null ? verificationCache.get(hash, signatureToken) : null;
+    }
+
+    private long cacheGeneration() {
+        return verificationCache != null ? verificationCache.generation() : 0;
+    }
+
+    private void cacheResult(byte[] hash, String signatureToken, SignatureToken token, boolean valid,
+                             long generation) {
+        if (verificationCache != null) {
+            verificationCache.put(hash, signatureToken, token.getExpiry(), valid, generation);
+        }
+    }
+
+    public String getKeyId() {
+        return signingKey(defaultAlgorithm).getId();
     }
 
     public PublicKey getPublicKey() {   
-        return keyPair.getPublic();
+        return signingKey(defaultAlgorithm).getPublicKey();
     }
 }
@@ -0,0 +1,19 @@
+package com.example.digitalsignature.service;
+
+/**
+ * Anggaran memori decode gambar tidak tersedia dalam batas waktu tunggu.
+ * Dijawab dengan 503 dan header Retry-After.
+ */
+public class ImageAdmissionException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ImageAdmissionException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.digitalsignature.service;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.SampleModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Kontrol penerimaan berbasis memori sebelum gambar di-decode.
+ * Ukuran hasil decode diperkirakan dari header saja (lebar, tinggi, band), lalu izin
+ * sebesar perkiraan itu (dalam KiB) diambil dari semaphore anggaran global.
+ * Jika anggaran tidak tersedia dalam batas waktu, request ditolak dengan ImageAdmissionException.
+ */
+@Service
+public class ImageAdmissionService {
+
+    // Salinan kerja INT_ARGB yang dibuat oleh service watermark di samping gambar hasil decode
+    private static final int WORKING_BYTES_PER_PIXEL = 4;
+
+    // 0 = setengah dari heap maksimum JVM
+    @Value("${signature.admission.maxDecodedBytes:0}")
+    private long maxDecodedBytes = 0;
+
+    @Value("${signature.admission.timeoutMillis:5000}")
+    private long timeoutMillis = 5000;
+
+    @Value("${signature.admission.retryAfterSeconds:2}")
+    private int retryAfterSeconds = 2;
+
+    private Semaphore budget;
+    private int budgetKiB;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        long bytes = maxDecodedBytes > 0 ? maxDecodedBytes : Runtime.getRuntime().maxMemory() / 2;
+        budgetKiB = (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes / 1024));
+        // Fair: request besar tidak terus-menerus didahului request kecil
+        budget = new Semaphore(budgetKiB, true);
+        System.out.println("Image admission budget: " + budgetKiB + " KiB");
+    }
+
+    /**
+     * Izin decode untuk gambar ini; harus ditutup setelah pemrosesan selesai.
+     * File yang bukan gambar (tidak ada ImageReader) diterima tanpa mengambil anggaran.
+     */
+    public Permit admit(MultipartFile file) throws IOException {
+        long estimate;
+        try (InputStream in = file.getInputStream()) {
+            estimate = estimateDecodedBytes(in);
+        }
+        if (estimate <= 0) {
+            return new Permit(0);
+        }
+
+        // Gambar yang lebih besar dari seluruh anggaran tetap boleh jalan, tapi sendirian
+        int permits = (int) Math.min(budgetKiB, (estimate + 1023) / 1024);
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            // tryAcquire(permits) tanpa timeout menyerobot antrean meski semaphore fair;
+            // versi dengan timeout 0 gagal jika sudah ada thread yang menunggu
+            acquired = budget.tryAcquire(permits, 0, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                waited.increment();
+                try {
+                    acquired = budget.tryAcquire(permits, timeoutMillis, TimeUnit.MILLISECONDS);
+                } finally {
+                    long waitNanos = System.nanoTime() - start;
+                    totalWaitNanos.add(waitNanos);
+                    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new ImageAdmissionException(
+                    "Server sedang memproses terlalu banyak gambar besar, coba lagi nanti", retryAfterSeconds);
+        }
+        admitted.increment();
+        return new Permit(permits);
+    }
+
+    /**
+     * Perkiraan byte untuk gambar hasil decode + salinan kerja ARGB, hanya dari header.
+     * 0 jika format tidak dikenali.
+     */
+    long estimateDecodedBytes(InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) {
+                return 0;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                return pixels * (decodedBytesPerPixel(reader) + WORKING_BYTES_PER_PIXEL);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private int decodedBytesPerPixel(ImageReader reader) throws IOException {
+        ImageTypeSpecifier type = reader.getRawImageType(0);
+        if (type == null) {
+            Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+            type = types.hasNext() ? types.next() : null;
+        }
+        if (type == null) {
+            return WORKING_BYTES_PER_PIXEL;
+        }
+        SampleModel sampleModel = type.getSampleModel();
+        int bits = sampleModel.getNumBands() * DataBuffer.getDataTypeSize(sampleModel.getDataType());
+        return Math.max(1, (bits + 7) / 8);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("budgetKiB", budgetKiB);
+        stats.put("availableKiB", budget.availablePermits());
+        stats.put("queueLength", budget.getQueueLength());
+        stats.put("admitted", admitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("waited", waited.sum());
+        long waits = waited.sum();
+        stats.put("avgWaitMs", waits > 0 ? totalWaitNanos.sum() / waits / 1_000_000.0 : 0.0);
+        stats.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    public int getQueueLength() {
+        return budget.getQueueLength();
+    }
+
+    public int getAvailableKiB() {
+        return budget.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Izin anggaran decode yang sedang dipegang; close() mengembalikannya (idempotent)
+     */
+    public final class Permit implements AutoCloseable {
+
+        private int permits;
+
+        private Permit(int permits) {
+            this.permits = permits;
+        }
+
+        public int getKiB() {
+            return permits;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (permits > 0) {
+                budget.release(permits);
+                permits = 0;
+            }
+        }
+    }
+}
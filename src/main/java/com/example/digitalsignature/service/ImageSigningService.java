@@ -0,0 +1,214 @@
+package com.example.digitalsignature.service;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Pipeline watermark + hash + tanda tangan + QR untuk endpoint sign*Watermark.
+ * Hasilnya SignedImage, sehingga controller bisa mengirim gambar sebagai JSON (data URI)
+ * maupun langsung sebagai byte mentah.
+ */
+@Service
+public class ImageSigningService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageSigningService.class);
+
+    // Masa berlaku default tanda tangan (7 hari), sama seperti CryptoService.signDigest(digest)
+    private static final long DEFAULT_VALIDITY_MILLIS = 7 * 24L * 60 * 60 * 1000;
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Autowired
+    private QRCodeService qrCodeService;
+
+    @Autowired
+    private SteganographyService steganographyService;
+
+    @Autowired
+    private VisibleWatermarkService visibleWatermarkService;
+
+    // Setiap pipeline memegang izin anggaran decode selama gambar diproses
+    @Autowired
+    private ImageAdmissionService imageAdmissionService;
+
+    @Autowired(required = false)
+    private SigningMetrics signingMetrics;
+
+    /**
+     * Watermark tak terlihat (LSB), kompresi jika lebih dari 500KB, lalu tanda tangan
+     */
+    @SuppressWarnings("try") // scope dan permit hanya dipakai untuk close() otomatis
+    public SignedImage signWithWatermark(MultipartFile file, String ownerInfo, String designerName) throws Exception {
+        String format = SigningMetrics.formatOf(file.getOriginalFilename());
+        try (SigningMetrics.EndpointScope scope = SigningMetrics.endpoint("signWithWatermark");
+             ImageAdmissionService.Permit permit = admit(file, format)) {
+            SigningMetrics.recordBytes(signingMetrics, "in", format, file.getSize());
+
+            // Apply watermark if it's an image
+            byte[] processedData = compressIfLarge(steganographyService.embedWatermark(file, ownerInfo), format);
+
+            // Hash the watermarked data with BLAKE3
+            byte[] digest = SigningMetrics.timed(signingMetrics, "hash", format,
+                    () -> cryptoService.digestBlake3(processedData));
+            String hash = Base64.getEncoder().encodeToString(digest);
+
+            // Sign hash with ECDSA
+            String signature = SigningMetrics.timed(signingMetrics, "sign", format,
+                    () -> cryptoService.signDigest(digest, DEFAULT_VALIDITY_MILLIS, designerName));
+
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("hash", hash);
+            metadata.put("signature", signature);
+            metadata.put("watermarked", "true");
+            putQRCode(metadata, hash, signature, designerName, format);
+
+            SigningMetrics.recordBytes(signingMetrics, "out", format, processedData.length);
+            return new SignedImage(processedData, detectMimeType(processedData), file.getOriginalFilename(), metadata);
+        }
+    }
+
+    /**
+     * Watermark teks terlihat, lalu tanda tangan dengan masa berlaku yang diberikan
+     */
+    @SuppressWarnings("try")
+    public SignedImage signWithVisibleWatermark(MultipartFile file, String watermarkText, float opacity, int fontSize,
+                                                String designerName, long validityMillis) throws Exception {
+        String format = SigningMetrics.formatOf(file.getOriginalFilename());
+        try (SigningMetrics.EndpointScope scope = SigningMetrics.endpoint("signWithVisibleWatermark");
+             ImageAdmissionService.Permit permit = admit(file, format)) {
+            SigningMetrics.recordBytes(signingMetrics, "in", format, file.getSize());
+
+            byte[] processedData = visibleWatermarkService.addVisibleWatermark(file, watermarkText, opacity, fontSize);
+
+            // Check if processedData is valid
+            if (processedData == null || processedData.length == 0) {
+                throw new RuntimeException("Failed to create watermarked image - no data returned");
+            }
+
+            // Hash the watermarked data with BLAKE3
+            byte[] digest = SigningMetrics.timed(signingMetrics, "hash", format,
+                    () -> cryptoService.digestBlake3(processedData));
+            String hash = Base64.getEncoder().encodeToString(digest);
+
+            // Sign hash with ECDSA, passing validity period
+            String signature = SigningMetrics.timed(signingMetrics, "sign", format,
+                    () -> cryptoService.signDigest(digest, validityMillis, designerName));
+
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("hash", hash);
+            metadata.put("signature", signature);
+            metadata.put("validUntil", new Date(System.currentTimeMillis() + validityMillis).toString());
+            metadata.put("visibleWatermark", "true");
+            putQRCode(metadata, hash, signature, designerName, format);
+
+            SigningMetrics.recordBytes(signingMetrics, "out", format, processedData.length);
+            return new SignedImage(processedData, detectMimeType(processedData), file.getOriginalFilename(), metadata);
+        }
+    }
+
+    /**
+     * Watermark tak terlihat lalu tanda tangan sebagai desainer, atau sebagai brand
+     * yang digabung dengan tanda tangan desainer (HASH || Signature_Designer || Signature_Brand)
+     */
+    @SuppressWarnings("try")
+    public SignedImage signCollectiveWithWatermark(MultipartFile file, String role, String ownerInfo,
+                                                   String designerSignature) throws Exception {
+        String format = SigningMetrics.formatOf(file.getOriginalFilename());
+        try (SigningMetrics.EndpointScope scope = SigningMetrics.endpoint("signCollectiveWithWatermark");
+             ImageAdmissionService.Permit permit = admit(file, format)) {
+            SigningMetrics.recordBytes(signingMetrics, "in", format, file.getSize());
+
+            // Apply watermark if it's an image
+            byte[] watermarked = steganographyService.embedWatermark(file, ownerInfo);
+
+            // Jika hasil kosong, gunakan image original sebagai fallback
+            if (watermarked == null || watermarked.length == 0) {
+                log.warn("Watermarking {} menghasilkan data kosong, memakai gambar asli", file.getOriginalFilename());
+                watermarked = file.getBytes();
+            }
+            byte[] processedData = watermarked;
+
+            byte[] digest = SigningMetrics.timed(signingMetrics, "hash", format,
+                    () -> cryptoService.digestBlake3(processedData));
+            String hash = Base64.getEncoder().encodeToString(digest);
+
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("hash", hash);
+            metadata.put("watermarked", "true");
+
+            if ("designer".equals(role)) {
+                // Sign as designer
+                String signature = SigningMetrics.timed(signingMetrics, "sign", format,
+                        () -> cryptoService.signDigest(digest));
+                metadata.put("signature", signature);
+            } else if ("brand".equals(role) && designerSignature != null) {
+                // Sign as brand and combine with designer signature
+                String brandSignature = SigningMetrics.timed(signingMetrics, "sign", format,
+                        () -> cryptoService.signDigest(digest));
+                // Format: HASH || Signature_Designer || Signature_Brand
+                String collectiveSignature = hash + "||" + designerSignature + "||" + brandSignature;
+                metadata.put("signature", brandSignature);
+                metadata.put("collectiveSignature", collectiveSignature);
+            }
+
+            SigningMetrics.recordBytes(signingMetrics, "out", format, processedData.length);
+            return new SignedImage(processedData, detectMimeType(processedData), file.getOriginalFilename(), metadata);
+        }
+    }
+
+    // Waktu tunggu anggaran decode dicatat sebagai tahap "admission"
+    private ImageAdmissionService.Permit admit(MultipartFile file, String format) throws Exception {
+        return SigningMetrics.timed(signingMetrics, "admission", format, () -> imageAdmissionService.admit(file));
+    }
+
+    // Terapkan kompresi jika ukuran lebih dari 500KB
+    private byte[] compressIfLarge(byte[] processedData, String format) throws Exception {
+        if (processedData.length <= 500_000) {
+            return processedData;
+        }
+        byte[] compressed = SigningMetrics.timed(signingMetrics, "compress", format,
+                () -> steganographyService.compressBeforeBase64(processedData, 0.7f));
+        log.debug("Image compressed: {} -> {} bytes", processedData.length, compressed.length);
+        return compressed;
+    }
+
+    // Generate QR Code if designerName is provided
+    private void putQRCode(Map<String, String> metadata, String hash, String signature,
+                           String designerName, String format) throws Exception {
+        if (designerName != null && !designerName.isEmpty()) {
+            String qrCode = SigningMetrics.timed(signingMetrics, "qr", format, () -> {
+                String qrContent = qrCodeService.createSignatureQRContent(hash, signature, designerName);
+                return qrCodeService.generateQRCodeBase64(qrContent, 250, 250);
+            });
+            metadata.put("qrCode", qrCode);
+        }
+    }
+
+    /**
+     * Tipe MIME dari magic bytes; hasil watermark bisa PNG, JPEG (setelah kompresi) atau file asli
+     */
+    private String detectMimeType(byte[] data) {
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (data.length >= 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F' && data[3] == '8') {
+            return "image/gif";
+        }
+        if (data.length >= 2 && data[0] == 'B' && data[1] == 'M') {
+            return "image/bmp";
+        }
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.digitalsignature.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Penyimpanan key ring di direktori: satu file {@code <key id>.key} (format properties) per kunci,
+ * berisi algorithm, status, createdAt, publicKey (X.509, Base64) dan privateKey (PKCS#8, Base64,
+ * tidak ada untuk kunci dari environment variable). File ditulis dengan izin baca pemilik saja.
+ */
+final class KeyDirectory {
+
+    private static final String SUFFIX = ".key";
+
+    private final Path dir;
+
+    KeyDirectory(Path dir) {
+        this.dir = dir;
+    }
+
+    List<KeyRing.KeyEntry> load() throws IOException, GeneralSecurityException {
+        List<KeyRing.KeyEntry> entries = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return entries;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                KeyFactory keyFactory = KeyFactory.getInstance(properties.getProperty("algorithm", "EC"));
+                PublicKey publicKey = keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(properties.getProperty("publicKey"))));
+                String privateKeyB64 = properties.getProperty("privateKey");
+                PrivateKey privateKey = privateKeyB64 != null
+                        ? keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyB64)))
+                        : null;
+                KeyRing.Status status = KeyRing.Status.valueOf(properties.getProperty("status", "ACTIVE"));
+                long createdAt = Long.parseLong(properties.getProperty("createdAt", "0"));
+                entries.add(new KeyRing.KeyEntry(publicKey, privateKey, status, createdAt));
+            }
+        }
+        return entries;
+    }
+
+    void save(KeyRing.KeyEntry entry, boolean includePrivateKey) throws IOException {
+        Files.createDirectories(dir);
+        Properties properties = new Properties();
+        properties.setProperty("algorithm", entry.getPublicKey().getAlgorithm());
+        properties.setProperty("status", entry.getStatus().name());
+        properties.setProperty("createdAt", Long.toString(entry.getCreatedAt()));
+        properties.setProperty("publicKey", Base64.getEncoder().encodeToString(entry.getPublicKey().getEncoded()));
+        if (includePrivateKey && entry.getPrivateKey() != null) {
+            properties.setProperty("privateKey", Base64.getEncoder().encodeToString(entry.getPrivateKey().getEncoded()));
+        }
+
+        // Tulis ke file sementara lalu rename, supaya file kunci tidak pernah setengah jadi
+        Path tmp = dir.resolve(entry.getId() + SUFFIX + ".tmp");
+        Files.deleteIfExists(tmp);
+        Files.createFile(tmp);
+        try {
+            Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Sistem file non-POSIX (Windows)
+        }
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Signature key " + entry.getId());
+        }
+        Files.move(tmp, dir.resolve(entry.getId() + SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
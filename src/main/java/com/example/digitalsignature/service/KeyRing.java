@@ -0,0 +1,230 @@
+package com.example.digitalsignature.service;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * Kumpulan kunci tanda tangan berdasarkan key id. Per algoritma (ES256, Ed25519) paling banyak satu
+ * kunci berstatus CURRENT yang dipakai untuk menandatangani; kunci ACTIVE (misalnya kunci sebelum
+ * rotasi) tetap dipakai untuk verifikasi, kunci RETIRED tidak lagi diterima sama sekali.
+ * <p>
+ * Isi ring adalah snapshot immutable di AtomicReference: verifikasi hanya membaca snapshot
+ * (tanpa lock), sedangkan rotasi/retire membuat snapshot baru (copy-on-write). Objek PublicKey
+ * yang sama dipakai terus per key id, sehingga engine verifikasi yang sudah diinisialisasi di
+ * SignatureEngines tetap terpakai untuk kunci lama maupun baru.
+ */
+public final class KeyRing {
+
+    public enum Status {
+        CURRENT, ACTIVE, RETIRED
+    }
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public KeyRing(KeyPair current) {
+        KeyEntry entry = new KeyEntry(current.getPublic(), current.getPrivate(), Status.CURRENT,
+                System.currentTimeMillis());
+        snapshot.set(new Snapshot(List.of(entry)));
+    }
+
+    /**
+     * Key id pendek (8 hex) dari encoding kunci publik
+     */
+    public static String keyId(PublicKey publicKey) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(publicKey.getEncoded());
+        return hasher.hexdigest(4);
+    }
+
+    /**
+     * Kunci CURRENT untuk algoritma ini, atau null jika belum ada
+     */
+    public KeyEntry current(SignatureAlgorithm algorithm) {
+        return snapshot.get().current.get(algorithm);
+    }
+
+    /**
+     * Kunci dengan id ini, atau null jika tidak ada di ring
+     */
+    public KeyEntry find(String id) {
+        return snapshot.get().byId.get(id);
+    }
+
+    /**
+     * Kunci algoritma ini yang boleh dipakai verifikasi: CURRENT lebih dulu, lalu ACTIVE dari yang terbaru
+     */
+    public List<KeyEntry> verificationKeys(SignatureAlgorithm algorithm) {
+        return snapshot.get().verifiers.getOrDefault(algorithm, List.of());
+    }
+
+    public List<KeyEntry> keys() {
+        return snapshot.get().entries;
+    }
+
+    /**
+     * Ganti seluruh isi ring (misalnya setelah membaca direktori kunci); harus ada minimal satu
+     * CURRENT dan paling banyak satu per algoritma
+     */
+    public void replace(Collection<KeyEntry> entries) {
+        snapshot.set(new Snapshot(entries));
+    }
+
+    /**
+     * Jadikan kunci baru sebagai CURRENT untuk algoritmanya; CURRENT sebelumnya (algoritma yang sama)
+     * menjadi ACTIVE
+     */
+    public KeyEntry rotate(KeyPair next) {
+        KeyEntry entry = new KeyEntry(next.getPublic(), next.getPrivate(), Status.CURRENT, System.currentTimeMillis());
+        snapshot.updateAndGet(old -> {
+            List<KeyEntry> entries = new ArrayList<>();
+            for (KeyEntry existing : old.entries) {
+                if (!existing.getId().equals(entry.getId())) {
+                    boolean replaced = existing.status == Status.CURRENT && existing.algorithm == entry.algorithm;
+                    entries.add(replaced ? existing.withStatus(Status.ACTIVE) : existing);
+                }
+            }
+            entries.add(entry);
+            return new Snapshot(entries);
+        });
+        return entry;
+    }
+
+    /**
+     * Tandai kunci sebagai RETIRED; tanda tangan dengan kunci ini tidak lagi valid.
+     * Kunci CURRENT harus dirotasi dulu sebelum bisa di-retire.
+     */
+    public KeyEntry retire(String id) {
+        Snapshot updated = snapshot.updateAndGet(old -> {
+            KeyEntry existing = old.byId.get(id);
+            if (existing == null) {
+                throw new IllegalArgumentException("Key id tidak dikenal: " + id);
+            }
+            if (existing.status == Status.CURRENT) {
+                throw new IllegalStateException("Kunci yang sedang dipakai tidak bisa di-retire, rotasi dulu");
+            }
+            List<KeyEntry> entries = new ArrayList<>();
+            for (KeyEntry entry : old.entries) {
+                entries.add(entry.getId().equals(id) ? entry.withStatus(Status.RETIRED) : entry);
+            }
+            return new Snapshot(entries);
+        });
+        return updated.byId.get(id);
+    }
+
+    private static final class Snapshot {
+
+        final Map<SignatureAlgorithm, KeyEntry> current;
+        final Map<String, KeyEntry> byId;
+        final List<KeyEntry> entries;
+        final Map<SignatureAlgorithm, List<KeyEntry>> verifiers;
+
+        Snapshot(Collection<KeyEntry> keys) {
+            Map<String, KeyEntry> map = new HashMap<>();
+            Map<SignatureAlgorithm, KeyEntry> currentEntries = new EnumMap<>(SignatureAlgorithm.class);
+            for (KeyEntry entry : keys) {
+                if (entry.status == Status.CURRENT) {
+                    if (currentEntries.containsKey(entry.algorithm) || entry.privateKey == null) {
+                        throw new IllegalArgumentException(
+                                "Key ring harus punya tepat satu kunci CURRENT dengan private key per algoritma");
+                    }
+                    currentEntries.put(entry.algorithm, entry);
+                }
+                map.put(entry.getId(), entry);
+            }
+            if (currentEntries.isEmpty()) {
+                throw new IllegalArgumentException("Key ring tidak punya kunci CURRENT");
+            }
+            List<KeyEntry> sorted = new ArrayList<>(map.values());
+            sorted.sort(Comparator.comparingLong(KeyEntry::getCreatedAt).reversed());
+            Map<SignatureAlgorithm, List<KeyEntry>> verifying = new EnumMap<>(SignatureAlgorithm.class);
+            for (KeyEntry entry : currentEntries.values()) {
+                verifying.computeIfAbsent(entry.algorithm, a -> new ArrayList<>()).add(entry);
+            }
+            for (KeyEntry entry : sorted) {
+                if (entry.status == Status.ACTIVE) {
+                    verifying.computeIfAbsent(entry.algorithm, a -> new ArrayList<>()).add(entry);
+                }
+            }
+            verifying.replaceAll((algorithm, list) -> Collections.unmodifiableList(list));
+            this.current = currentEntries;
+            this.byId = Collections.unmodifiableMap(map);
+            this.entries = Collections.unmodifiableList(sorted);
+            this.verifiers = verifying;
+        }
+    }
+
+    /**
+     * Satu kunci di ring. Private key null untuk kunci yang hanya dipakai verifikasi.
+     */
+    public static final class KeyEntry {
+
+        private final String id;
+        private final SignatureAlgorithm algorithm;
+        private final PublicKey publicKey;
+        private final PrivateKey privateKey;
+        private final Status status;
+        private final long createdAt;
+
+        public KeyEntry(PublicKey publicKey, PrivateKey privateKey, Status status, long createdAt) {
+            this.id = keyId(publicKey);
+            this.algorithm = SignatureAlgorithm.of(publicKey);
+            this.publicKey = publicKey;
+            this.privateKey = privateKey;
+            this.status = status;
+            this.createdAt = createdAt;
+        }
+
+        private KeyEntry(KeyEntry source, Status status) {
+            this.id = source.id;
+            this.algorithm = source.algorithm;
+            this.publicKey = source.publicKey;
+            this.privateKey = source.privateKey;
+            this.status = status;
+            this.createdAt = source.createdAt;
+        }
+
+        public KeyEntry withStatus(Status newStatus) {
+            return newStatus == status ? this : new KeyEntry(this, newStatus);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public SignatureAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public boolean canVerify() {
+            return status != Status.RETIRED;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.digitalsignature.service;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Satu record ledger: tanda tangan yang pernah dibuat untuk sebuah digest BLAKE3
+ */
+public class LedgerEntry {
+
+    private final byte[] digest;
+    private final String signature;
+    private final long expiry;
+    private final long signedAt;
+    private final String keyId;
+    private final String designerName;
+
+    public LedgerEntry(byte[] digest, String signature, long expiry, long signedAt, String keyId,
+                       String designerName) {
+        this.digest = digest;
+        this.signature = signature;
+        this.expiry = expiry;
+        this.signedAt = signedAt;
+        this.keyId = keyId;
+        this.designerName = designerName;
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public long getExpiry() {
+        return expiry;
+    }
+
+    public long getSignedAt() {
+        return signedAt;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public String getDesignerName() {
+        return designerName;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() > expiry;
+    }
+
+    /**
+     * Bentuk respons JSON untuk /lookup dan verifikasi lewat ledger
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("hash", Base64.getEncoder().encodeToString(digest));
+        map.put("signature", signature);
+        map.put("signedAt", new Date(signedAt).toString());
+        map.put("validUntil", new Date(expiry).toString());
+        map.put("expired", isExpired());
+        if (keyId != null) {
+            map.put("keyId", keyId);
+        }
+        if (designerName != null) {
+            map.put("designerName", designerName);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.digitalsignature.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Hash index open addressing (linear probing) di file memory-mapped, dari digest ke lokasi
+ * record di log ledger. Setiap slot 16 byte: 8 byte pertama digest sebagai fingerprint dan
+ * lokasi record (0 = slot kosong). Digest lengkap tidak disimpan di index; kecocokan
+ * fingerprint dipastikan oleh pemanggil dengan membaca record di log.
+ * Tidak thread-safe, penguncian dilakukan oleh SignatureLedger.
+ */
+final class LedgerIndex implements Closeable {
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+
+    // magic | version | capacity | size | clean | (padding) | watermark
+    private static final int HEADER_BYTES = 64;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_SIZE = 12;
+    private static final int OFFSET_CLEAN = 16;
+    private static final int OFFSET_WATERMARK = 24;
+
+    private static final int SLOT_BYTES = 16;
+
+    // Satu mapping dibatasi 2 GB
+    static final int MAX_CAPACITY = 1 << 26;
+
+    // Index diperbesar dua kali lipat jika terisi lebih dari 70%
+    private static final double MAX_LOAD = 0.7;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int size;
+
+    private LedgerIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Buka index yang sudah ada; jika file tidak ada atau rusak, index kosong dibuat ulang
+     * (isClean() = false, sehingga pemanggil tahu harus membangun ulang dari log)
+     */
+    static LedgerIndex open(Path file, int initialCapacity) throws IOException {
+        LedgerIndex index = new LedgerIndex(file);
+        if (Files.exists(file) && index.mapExisting()) {
+            return index;
+        }
+        index.reset(initialCapacity);
+        return index;
+    }
+
+    private boolean mapExisting() throws IOException {
+        FileChannel existing = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = existing.size();
+        if (fileSize < HEADER_BYTES) {
+            existing.close();
+            return false;
+        }
+        MappedByteBuffer header = existing.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        int storedCapacity = header.getInt(OFFSET_CAPACITY);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                || Integer.bitCount(storedCapacity) != 1 || storedCapacity > MAX_CAPACITY
+                || fileSize != HEADER_BYTES + (long) storedCapacity * SLOT_BYTES) {
+            existing.close();
+            return false;
+        }
+        channel = existing;
+        capacity = storedCapacity;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        size = map.getInt(OFFSET_SIZE);
+        return true;
+    }
+
+    /**
+     * Kosongkan index dengan kapasitas (dibulatkan ke pangkat dua) tertentu
+     */
+    void reset(int requestedCapacity) throws IOException {
+        close();
+        Files.deleteIfExists(file);
+        int newCapacity = capacityFor(requestedCapacity);
+        channel = createMapped(file, newCapacity);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        size = 0;
+        writeHeader(map, capacity, 0);
+    }
+
+    private static FileChannel createMapped(Path path, int slots) throws IOException {
+        FileChannel created = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // File sparse: slot kosong bernilai nol tanpa perlu ditulis
+        created.write(ByteBuffer.allocate(1), HEADER_BYTES + (long) slots * SLOT_BYTES - 1);
+        return created;
+    }
+
+    private static void writeHeader(MappedByteBuffer target, int slots, int entries) {
+        target.putInt(0, MAGIC);
+        target.putInt(4, VERSION);
+        target.putInt(OFFSET_CAPACITY, slots);
+        target.putInt(OFFSET_SIZE, entries);
+        target.putInt(OFFSET_CLEAN, 0);
+        target.putLong(OFFSET_WATERMARK, 0);
+    }
+
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.min(MAX_CAPACITY, Math.max(1024, (long) Math.ceil(entries / MAX_LOAD)));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Lokasi record untuk fingerprint ini yang lolos {@code matches}, atau 0 jika tidak ada
+     */
+    long get(long fingerprint, LongPredicate matches) {
+        int mask = capacity - 1;
+        for (int slot = spread(fingerprint) & mask; ; slot = (slot + 1) & mask) {
+            int position = HEADER_BYTES + slot * SLOT_BYTES;
+            long location = map.getLong(position + 8);
+            if (location == 0) {
+                return 0;
+            }
+            if (map.getLong(position) == fingerprint && matches.test(location)) {
+                return location;
+            }
+        }
+    }
+
+    /**
+     * Simpan lokasi record; slot dengan digest yang sama ({@code sameDigest}) ditimpa,
+     * sehingga index selalu menunjuk ke record terbaru untuk digest itu
+     */
+    void put(long fingerprint, long location, LongPredicate sameDigest) throws IOException {
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        int mask = capacity - 1;
+        for (int slot = spread(fingerprint) & mask; ; slot = (slot + 1) & mask) {
+            int position = HEADER_BYTES + slot * SLOT_BYTES;
+            long existing = map.getLong(position + 8);
+            if (existing == 0) {
+                map.putLong(position, fingerprint);
+                map.putLong(position + 8, location);
+                size++;
+                map.putInt(OFFSET_SIZE, size);
+                return;
+            }
+            if (map.getLong(position) == fingerprint && sameDigest.test(existing)) {
+                map.putLong(position + 8, location);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pindahkan semua slot ke file baru dengan kapasitas dua kali lipat, lalu ganti file lama
+     */
+    private void grow() throws IOException {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IOException("Index ledger penuh (" + size + " entry)");
+        }
+        int newCapacity = capacity << 1;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        FileChannel newChannel = createMapped(tmp, newCapacity);
+        MappedByteBuffer newMap = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+        writeHeader(newMap, newCapacity, size);
+
+        int mask = newCapacity - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = HEADER_BYTES + slot * SLOT_BYTES;
+            long location = map.getLong(position + 8);
+            if (location == 0) {
+                continue;
+            }
+            long fingerprint = map.getLong(position);
+            int target = spread(fingerprint) & mask;
+            while (newMap.getLong(HEADER_BYTES + target * SLOT_BYTES + 8) != 0) {
+                target = (target + 1) & mask;
+            }
+            newMap.putLong(HEADER_BYTES + target * SLOT_BYTES, fingerprint);
+            newMap.putLong(HEADER_BYTES + target * SLOT_BYTES + 8, location);
+        }
+
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = newChannel;
+        map = newMap;
+        capacity = newCapacity;
+    }
+
+    // Digest BLAKE3 sudah terdistribusi merata, cukup lipat 64 bit ke 32 bit
+    private static int spread(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /**
+     * Index akan diubah; jika proses berhenti tanpa markClean, index dibangun ulang saat start
+     */
+    void markDirty() {
+        map.putInt(OFFSET_CLEAN, 0);
+        map.force();
+    }
+
+    /**
+     * Index lengkap sampai lokasi log {@code watermark}
+     */
+    void markClean(long watermark) {
+        map.putLong(OFFSET_WATERMARK, watermark);
+        map.putInt(OFFSET_CLEAN, 1);
+        map.force();
+    }
+
+    boolean isClean() {
+        return map.getInt(OFFSET_CLEAN) == 1;
+    }
+
+    long getWatermark() {
+        return map.getLong(OFFSET_WATERMARK);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long mappedBytes() {
+        return HEADER_BYTES + (long) capacity * SLOT_BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            map = null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.digitalsignature.service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * Merkle tree BLAKE3 di atas digest file.
+ * Leaf = BLAKE3(0x00 || digest), node = BLAKE3(0x01 || kiri || kanan); prefix berbeda
+ * mencegah leaf dipalsukan sebagai node. Node tanpa pasangan naik ke level berikutnya apa adanya.
+ */
+final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    // Prefix langkah proof: saudara ada di kiri (L) atau kanan (R)
+    static final String LEFT = "L:";
+    static final String RIGHT = "R:";
+
+    private final List<List<byte[]>> levels = new ArrayList<>();
+
+    MerkleTree(List<byte[]> digests) {
+        if (digests.isEmpty()) {
+            throw new IllegalArgumentException("Merkle tree membutuhkan minimal satu file");
+        }
+        List<byte[]> level = new ArrayList<>(digests.size());
+        for (byte[] digest : digests) {
+            level.add(leafHash(digest));
+        }
+        levels.add(level);
+
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 < level.size()) {
+                    next.add(nodeHash(level.get(i), level.get(i + 1)));
+                } else {
+                    next.add(level.get(i));
+                }
+            }
+            levels.add(next);
+            level = next;
+        }
+    }
+
+    byte[] root() {
+        return levels.get(levels.size() - 1).get(0);
+    }
+
+    /**
+     * Inclusion proof untuk leaf ke-index, dari bawah ke atas, dalam format "L:base64" / "R:base64"
+     */
+    List<String> proof(int index) {
+        List<String> proof = new ArrayList<>();
+        int position = index;
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            List<byte[]> level = levels.get(depth);
+            int sibling = position ^ 1;
+            if (sibling < level.size()) {
+                String prefix = sibling < position ? LEFT : RIGHT;
+                proof.add(prefix + Base64.getEncoder().encodeToString(level.get(sibling)));
+            }
+            position /= 2;
+        }
+        return proof;
+    }
+
+    /**
+     * Hitung ulang root dari digest satu file dan inclusion proof-nya
+     */
+    static byte[] computeRoot(byte[] digest, List<String> proof) {
+        byte[] current = leafHash(digest);
+        for (String step : proof) {
+            if (step.startsWith(LEFT)) {
+                current = nodeHash(Base64.getDecoder().decode(step.substring(LEFT.length())), current);
+            } else if (step.startsWith(RIGHT)) {
+                current = nodeHash(current, Base64.getDecoder().decode(step.substring(RIGHT.length())));
+            } else {
+                throw new IllegalArgumentException("Langkah proof tidak valid: " + step);
+            }
+        }
+        return current;
+    }
+
+    private static byte[] leafHash(byte[] digest) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(new byte[] {LEAF_PREFIX});
+        hasher.update(digest);
+        return hasher.digest();
+    }
+
+    private static byte[] nodeHash(byte[] left, byte[] right) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(new byte[] {NODE_PREFIX});
+        hasher.update(left);
+        hasher.update(right);
+        return hasher.digest();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.digitalsignature.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache LRU untuk QR code yang sudah dirender (data URL PNG Base64),
+ * dengan key isi QR dan ukuran gambar.
+ */
+@Component
+public class QRCodeCache {
+
+    @Value("${signature.qr.cache.maxEntries:1024}")
+    private int maxEntries = 1024;
+
+    private final LinkedHashMap<Key, String> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * QR code yang tersimpan, atau null jika belum ada
+     */
+    public String get(String content, int width, int height) {
+        String image;
+        synchronized (this) {
+            image = images.get(new Key(content, width, height));
+        }
+        if (image == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return image;
+    }
+
+    public void put(String content, int width, int height, String image) {
+        synchronized (this) {
+            images.put(new Key(content, width, height), image);
+            while (images.size() > maxEntries) {
+                images.remove(images.keySet().iterator().next());
+                evictions.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (this) {
+            stats.put("size", images.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    private record Key(String content, int width, int height) {
+    }
+}
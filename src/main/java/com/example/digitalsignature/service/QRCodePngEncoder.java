@@ -0,0 +1,98 @@
+package com.example.digitalsignature.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Encoder PNG grayscale 1-bit langsung dari BitMatrix, tanpa BufferedImage dan ImageIO.
+ * Modul "on" menjadi hitam dan "off" putih, sama seperti MatrixToImageWriter dengan konfigurasi default.
+ */
+final class QRCodePngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final int FILTER_NONE = 0;
+
+    private QRCodePngEncoder() {
+    }
+
+    static byte[] encode(BitMatrix matrix) throws IOException {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(width * height / 64 + 128);
+        png.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.writeByte(BIT_DEPTH);
+        ihdr.writeByte(COLOR_TYPE_GRAYSCALE);
+        ihdr.writeByte(0); // kompresi deflate
+        ihdr.writeByte(0); // filter adaptif standar
+        ihdr.writeByte(0); // tanpa interlace
+        writeChunk(png, "IHDR", header.toByteArray());
+
+        writeChunk(png, "IDAT", compressRows(matrix));
+        writeChunk(png, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    /**
+     * Setiap baris: byte filter (0) diikuti 8 piksel per byte, MSB lebih dulu; bit 1 = putih
+     */
+    private static byte[] compressRows(BitMatrix matrix) throws IOException {
+        int width = matrix.getWidth();
+        int rowBytes = (width + 7) / 8;
+        byte[] line = new byte[1 + rowBytes];
+        BitArray row = new BitArray(width);
+
+        ByteArrayOutputStream idat = new ByteArrayOutputStream(rowBytes * matrix.getHeight() / 8 + 64);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(idat, deflater, 4096)) {
+            for (int y = 0; y < matrix.getHeight(); y++) {
+                row = matrix.getRow(y, row);
+                line[0] = FILTER_NONE;
+                for (int i = 0; i < rowBytes; i++) {
+                    int bits = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        int x = i * 8 + bit;
+                        // Modul gelap -> 0 (hitam); sisa bit di akhir baris dibiarkan 0
+                        if (x < width && !row.get(x)) {
+                            bits |= 0x80 >>> bit;
+                        }
+                    }
+                    line[1 + i] = (byte) bits;
+                }
+                out.write(line);
+            }
+        } finally {
+            deflater.end();
+        }
+        return idat.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream png, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        DataOutputStream out = new DataOutputStream(png);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -1,51 +1,114 @@
 package com.example.digitalsignature.service;
 
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.EncodeHintType;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
 
 @Service
 public class QRCodeService {
     
+    // QRCodeWriter tidak menyimpan state, jadi satu instance dipakai bersama
+    private static final QRCodeWriter QR_CODE_WRITER = new QRCodeWriter();
+    
+    private static final Map<EncodeHintType, Object> QR_HINTS;
+    
+    static {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
+        hints.put(EncodeHintType.MARGIN, 1);
+        QR_HINTS = Collections.unmodifiableMap(hints);
+    }
+    
+    private static final Map<DecodeHintType, Object> QR_DECODE_HINTS =
+            Collections.unmodifiableMap(new EnumMap<>(Map.of(DecodeHintType.TRY_HARDER, Boolean.TRUE)));
+    
+    private static final String PAYLOAD_TEXT = "text";
+    private static final String PAYLOAD_BINARY = "binary";
+    
+    @Autowired(required = false)
+    private QRCodeCache qrCodeCache;
+    
+    // Format payload QR: "text" (baris key:value) atau "binary" (lihat SignatureQRPayload)
+    @Value("${signature.qr.payload:text}")
+    private String payloadFormat = PAYLOAD_TEXT;
+    
     /**
-     * Generate QR code sebagai string Base64
+     * Generate QR code sebagai string Base64. Hasil disimpan di cache berdasarkan isi dan ukuran,
+     * dan PNG ditulis langsung dari BitMatrix tanpa BufferedImage.
      */
     public String generateQRCodeBase64(String content, int width, int height) throws WriterException, IOException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.MARGIN, 1);
-        
-        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height, hints);
+        if (qrCodeCache != null) {
+            String cached = qrCodeCache.get(content, width, height);
+            if (cached != null) {
+                return cached;
+            }
+        }
         
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+        BitMatrix bitMatrix = QR_CODE_WRITER.encode(content, BarcodeFormat.QR_CODE, width, height, QR_HINTS);
+        byte[] png = QRCodePngEncoder.encode(bitMatrix);
+        String image = "data:image/png;base64," + Base64.getEncoder().encodeToString(png);
         
-        return "data:image/png;base64," + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        if (qrCodeCache != null) {
+            qrCodeCache.put(content, width, height, image);
+        }
+        return image;
     }
     
     /**
-     * Membuat konten QR Code yang berisi informasi tanda tangan
+     * Membuat konten QR Code yang berisi informasi tanda tangan, sesuai signature.qr.payload.
+     * Mode binary jatuh kembali ke teks jika hash bukan digest 32 byte atau tanda tangan tidak bisa di-parse.
      */
     public String createSignatureQRContent(String hash, String signature, String designerName) {
+        if (PAYLOAD_BINARY.equals(payloadFormat)) {
+            try {
+                return createBinaryQRContent(hash, signature, designerName);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Payload QR biner tidak bisa dibuat, memakai teks: " + e.getMessage());
+            }
+        }
+        return createTextQRContent(hash, signature, designerName);
+    }
+    
+    /**
+     * Payload teks lama: baris "key:value" untuk hash, signature, designer dan date
+     */
+    public String createTextQRContent(String hash, String signature, String designerName) {
         Map<String, String> qrData = new HashMap<>();
         qrData.put("hash", hash);
         qrData.put("signature", signature);
         qrData.put("designer", designerName);
-        qrData.put("date", java.time.LocalDate.now().toString());
+        qrData.put("date", LocalDate.now().toString());
         
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, String> entry : qrData.entrySet()) {
@@ -54,4 +117,78 @@ public class QRCodeService {
         
         return sb.toString();
     }
+    
+    /**
+     * Payload biner (lihat SignatureQRPayload) sebagai string ISO-8859-1, satu karakter per byte.
+     * ZXing mengodekan string ini dalam byte mode dengan charset default ISO-8859-1, tanpa ECI.
+     */
+    public String createBinaryQRContent(String hash, String signature, String designerName) {
+        SignatureQRPayload payload = new SignatureQRPayload(Base64.getDecoder().decode(hash),
+                SignatureToken.parse(signature), designerName, LocalDate.now());
+        return new String(payload.encode(), StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * Versi QR (1-40) yang dibutuhkan konten ini pada error correction level H
+     */
+    public int getQRVersion(String content) throws WriterException {
+        return Encoder.encode(content, ErrorCorrectionLevel.H, QR_HINTS).getVersion().getVersionNumber();
+    }
+    
+    /**
+     * Membaca QR code tanda tangan dari gambar, baik payload biner maupun teks
+     */
+    public Map<String, Object> decodeSignatureQR(InputStream imageStream) throws IOException {
+        BufferedImage image = ImageIO.read(imageStream);
+        if (image == null) {
+            throw new IOException("Could not read image data");
+        }
+        
+        Result qr;
+        try {
+            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+            // QRCodeReader menyimpan decoder internal, jadi dibuat per pemanggilan
+            qr = new QRCodeReader().decode(bitmap, QR_DECODE_HINTS);
+        } catch (ReaderException e) {
+            throw new IOException("QR code tidak ditemukan", e);
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        byte[] bytes = byteSegments(qr);
+        if (SignatureQRPayload.isBinary(bytes)) {
+            SignatureQRPayload payload = SignatureQRPayload.decode(bytes);
+            result.put("format", PAYLOAD_BINARY);
+            result.put("hash", Base64.getEncoder().encodeToString(payload.getDigest()));
+            result.put("signature", payload.getToken().encode());
+            result.put("designer", payload.getDesigner());
+            result.put("date", payload.getDate().toString());
+        } else {
+            result.put("format", PAYLOAD_TEXT);
+            // Nilai dipisah pada ':' pertama, karena tanda tangan legacy juga mengandung ':'
+            for (String line : qr.getText().split("\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    result.put(line.substring(0, colon), line.substring(colon + 1));
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Byte mentah semua segmen byte mode; teks hasil decode tidak dipakai karena ZXing
+     * menebak charset-nya
+     */
+    private byte[] byteSegments(Result qr) {
+        Map<ResultMetadataType, Object> metadata = qr.getResultMetadata();
+        Object segments = metadata != null ? metadata.get(ResultMetadataType.BYTE_SEGMENTS) : null;
+        if (!(segments instanceof List<?>)) {
+            return qr.getText().getBytes(StandardCharsets.ISO_8859_1);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Object segment : (List<?>) segments) {
+            out.writeBytes((byte[]) segment);
+        }
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,484 @@
+package com.example.digitalsignature.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * Daftar pencabutan tanda tangan: digest yang dicabut (semua tanda tangan untuk file itu)
+ * dan token yang dicabut (satu tanda tangan saja, disimpan sebagai BLAKE3 dari bentuk kanonik
+ * SignatureToken, sehingga token yang sama dengan key id dihapus, expiry ditulis ulang, format lain
+ * atau s ECDSA yang dibalik tetap dianggap dicabut).
+ * <p>
+ * Semua key 32 byte disimpan sebagai long[] terurut (4 long per key) dan dilapisi Bloom filter,
+ * sehingga verifikasi untuk tanda tangan yang tidak dicabut hanya memeriksa beberapa bit,
+ * berapa pun jumlah pencabutan. Pencabutan baru langsung masuk ke Bloom filter dan set delta
+ * kecil, lalu digabung ke array terurut setiap {@code signature.revocation.mergeThreshold} entry.
+ * File persisten berisi record tetap {@code tipe (1) | key (32) | waktu (int64)}.
+ */
+@Service
+public class RevocationList {
+
+    private static final byte TYPE_DIGEST = 1;
+    // Format lama: BLAKE3 dari teks token apa adanya; masih dibaca dari file yang sudah ada
+    private static final byte TYPE_TOKEN_TEXT = 2;
+    private static final byte TYPE_TOKEN = 3;
+
+    private static final int KEY_BYTES = 32;
+    private static final int KEY_LONGS = KEY_BYTES / 8;
+    private static final int RECORD_BYTES = 1 + KEY_BYTES + 8;
+
+    // ~10 bit per key dan 7 fungsi hash: false positive sekitar 1%
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final int MIN_BLOOM_CAPACITY = 1 << 12;
+
+    @Value("${signature.revocation.file:data/revocations.log}")
+    private String file = "data/revocations.log";
+
+    @Value("${signature.revocation.mergeThreshold:4096}")
+    private int mergeThreshold = 4096;
+
+    // Diganti utuh saat delta digabung; dibaca tanpa lock oleh verifikasi
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new Bloom(MIN_BLOOM_CAPACITY));
+
+    private FileChannel channel;
+    private long revokedDigests;
+    // volatile: dibaca isRevoked untuk melewati hashing token jika belum ada token yang dicabut
+    private volatile long revokedTokens;
+    // Record TYPE_TOKEN_TEXT di file: selama ada, token juga dicek dengan key teks lamanya
+    private volatile long textTokenRecords;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder revokedHits = new LongAdder();
+    private long loadMillis;
+
+    @PostConstruct
+    public void load() throws IOException {
+        long start = System.nanoTime();
+        Path path = Paths.get(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Record terakhir yang terpotong (tulisan terputus) dibuang
+        long size = channel.size();
+        long complete = size - size % RECORD_BYTES;
+        if (complete < size) {
+            System.out.println("WARNING: revocation file truncated from " + size + " to " + complete + " bytes");
+            channel.truncate(complete);
+        }
+
+        int count = (int) (complete / RECORD_BYTES);
+        long[] keys = new long[count * KEY_LONGS];
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 4096);
+        long position = 0;
+        int loaded = 0;
+        while (position < complete) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+            while (buffer.hasRemaining()) {
+                channel.read(buffer, position + buffer.position());
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_BYTES) {
+                byte type = buffer.get();
+                for (int i = 0; i < KEY_LONGS; i++) {
+                    keys[loaded * KEY_LONGS + i] = buffer.getLong();
+                }
+                buffer.getLong(); // waktu pencabutan, hanya untuk audit
+                if (type == TYPE_TOKEN || type == TYPE_TOKEN_TEXT) {
+                    revokedTokens++;
+                    if (type == TYPE_TOKEN_TEXT) {
+                        textTokenRecords++;
+                    }
+                } else {
+                    revokedDigests++;
+                }
+                loaded++;
+            }
+            position += buffer.limit();
+        }
+        channel.position(complete);
+
+        sortKeys(keys, 0, loaded);
+        long[] sorted = unique(keys, loaded);
+        snapshot = new Snapshot(sorted, bloomFor(sorted, sorted.length / KEY_LONGS));
+        loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Revocation list: " + (sorted.length / KEY_LONGS) + " keys loaded in " + loadMillis + " ms");
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * true jika digest atau token ini sudah dicabut. Jalur cepat: Bloom filter; pencarian
+     * biner di array terurut hanya untuk kemungkinan hit.
+     */
+    public boolean isRevoked(byte[] digest, String signatureToken) {
+        checks.increment();
+        Snapshot current = snapshot;
+        if (digest != null && digest.length == KEY_BYTES && current.contains(toKey(digest), bloomPositives)) {
+            revokedHits.increment();
+            return true;
+        }
+        if (signatureToken != null && revokedTokens > 0) {
+            byte[] tokenKey = tokenKeyOrNull(signatureToken);
+            if ((tokenKey != null && current.contains(toKey(tokenKey), bloomPositives))
+                    || (textTokenRecords > 0 && current.contains(toKey(textTokenKey(signatureToken)), bloomPositives))) {
+                revokedHits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cabut sekumpulan digest dan/atau token sekaligus; record ditulis dan di-fsync
+     * sebelum pencabutan berlaku. Mengembalikan jumlah key yang baru dicabut.
+     * IllegalArgumentException jika digest bukan 32 byte atau token tidak bisa dibaca.
+     */
+    public synchronized int revoke(List<byte[]> digests, List<String> signatureTokens) throws IOException {
+        Set<Key> keys = new LinkedHashSet<>();
+        ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * (digests.size() + signatureTokens.size()));
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+        int newDigests = 0;
+        for (byte[] digest : digests) {
+            if (digest.length != KEY_BYTES) {
+                throw new IllegalArgumentException("Digest harus " + KEY_BYTES + " byte");
+            }
+            long[] key = toKey(digest);
+            if (!current.contains(key, null) && keys.add(new Key(key))) {
+                records.put(TYPE_DIGEST).put(digest).putLong(now);
+                newDigests++;
+            }
+        }
+        for (String token : signatureTokens) {
+            byte[] tokenKey = tokenKey(token);
+            long[] key = toKey(tokenKey);
+            if (!current.contains(key, null) && keys.add(new Key(key))) {
+                records.put(TYPE_TOKEN).put(tokenKey).putLong(now);
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        records.flip();
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+        channel.force(false);
+        revokedDigests += newDigests;
+        revokedTokens += keys.size() - newDigests;
+
+        // Bloom filter lebih dulu, supaya pembaca tidak pernah melewatkan key yang ada di delta
+        for (Key key : keys) {
+            current.bloom.add(key.longs);
+            current.delta.add(key);
+        }
+        if (current.delta.size() >= mergeThreshold) {
+            snapshot = merge(current);
+        }
+        return keys.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("revokedDigests", revokedDigests);
+        stats.put("revokedTokens", revokedTokens);
+        stats.put("sortedKeys", current.sorted.length / KEY_LONGS);
+        stats.put("deltaKeys", current.delta.size());
+        stats.put("bloomBits", current.bloom.bitCount());
+        stats.put("checks", checks.sum());
+        stats.put("bloomPositives", bloomPositives.sum());
+        stats.put("revokedHits", revokedHits.sum());
+        stats.put("loadMillis", loadMillis);
+        return stats;
+    }
+
+    // Token disimpan sebagai BLAKE3 dari bentuk kanoniknya, dengan awalan agar tidak bertabrakan dengan digest file
+    private static byte[] tokenKey(String signatureToken) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update("revoked-signature:v1:".getBytes(StandardCharsets.US_ASCII));
+        hasher.update(SignatureToken.parse(signatureToken).canonicalForm());
+        return hasher.digest();
+    }
+
+    // Token yang tidak bisa dibaca juga tidak akan lolos verifikasi, jadi cukup dianggap tidak dicabut
+    private static byte[] tokenKeyOrNull(String signatureToken) {
+        try {
+            return tokenKey(signatureToken);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Key record TYPE_TOKEN_TEXT lama: BLAKE3 dari teks token
+    private static byte[] textTokenKey(String signatureToken) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update("revoked-token:".getBytes(StandardCharsets.US_ASCII));
+        hasher.update(signatureToken.getBytes(StandardCharsets.UTF_8));
+        return hasher.digest();
+    }
+
+    private static long[] toKey(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] key = new long[KEY_LONGS];
+        for (int i = 0; i < KEY_LONGS; i++) {
+            key[i] = buffer.getLong();
+        }
+        return key;
+    }
+
+    /**
+     * Gabungkan delta (diurutkan sendiri) ke array terurut dalam satu lintasan linear.
+     * Bloom filter lama dipakai terus (key delta sudah ada di dalamnya) selama kapasitasnya
+     * cukup; jika tidak, dibangun ulang dua kali lebih besar.
+     */
+    private static Snapshot merge(Snapshot current) {
+        int deltaCount = current.delta.size();
+        long[] delta = new long[deltaCount * KEY_LONGS];
+        int d = 0;
+        for (Key key : current.delta) {
+            System.arraycopy(key.longs, 0, delta, d++ * KEY_LONGS, KEY_LONGS);
+        }
+        sortKeys(delta, 0, deltaCount);
+
+        long[] sorted = current.sorted;
+        long[] merged = new long[sorted.length + delta.length];
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < sorted.length || j < delta.length) {
+            boolean takeSorted = j >= delta.length
+                    || (i < sorted.length && compare(sorted, i, delta, j) <= 0);
+            if (takeSorted) {
+                System.arraycopy(sorted, i, merged, out, KEY_LONGS);
+                i += KEY_LONGS;
+            } else {
+                System.arraycopy(delta, j, merged, out, KEY_LONGS);
+                j += KEY_LONGS;
+            }
+            // Key yang sama dengan sebelumnya tidak ikut disimpan
+            if (out == 0 || compare(merged, out - KEY_LONGS, merged, out) != 0) {
+                out += KEY_LONGS;
+            }
+        }
+        long[] result = out == merged.length ? merged : Arrays.copyOf(merged, out);
+        int count = result.length / KEY_LONGS;
+        Bloom bloom = count <= current.bloom.capacity ? current.bloom : bloomFor(result, count);
+        return new Snapshot(result, bloom);
+    }
+
+    // Kapasitas dua kali jumlah key saat ini, supaya tidak perlu dibangun ulang pada setiap merge
+    private static Bloom bloomFor(long[] sorted, int count) {
+        Bloom bloom = new Bloom(Math.max(MIN_BLOOM_CAPACITY, count * 2));
+        long[] key = new long[KEY_LONGS];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(sorted, i * KEY_LONGS, key, 0, KEY_LONGS);
+            bloom.add(key);
+        }
+        return bloom;
+    }
+
+    /**
+     * Quicksort in-place atas key ke-{@code from} sampai sebelum {@code to} (masing-masing 4 long),
+     * tanpa boxing agar jutaan key tetap cepat diurutkan saat start
+     */
+    private static void sortKeys(long[] keys, int from, int to) {
+        long[] pivot = new long[KEY_LONGS];
+        while (to - from > 16) {
+            System.arraycopy(keys, ((from + to) >>> 1) * KEY_LONGS, pivot, 0, KEY_LONGS);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(keys, i * KEY_LONGS, pivot, 0) < 0) {
+                    i++;
+                }
+                while (compare(keys, j * KEY_LONGS, pivot, 0) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, i++, j--);
+                }
+            }
+            // Rekursi ke bagian yang lebih kecil, bagian yang lebih besar lewat loop
+            if (j - from < to - i) {
+                sortKeys(keys, from, j + 1);
+                from = i;
+            } else {
+                sortKeys(keys, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(keys, (j - 1) * KEY_LONGS, keys, j * KEY_LONGS) > 0; j--) {
+                swap(keys, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(long[] keys, int a, int b) {
+        for (int i = 0; i < KEY_LONGS; i++) {
+            long tmp = keys[a * KEY_LONGS + i];
+            keys[a * KEY_LONGS + i] = keys[b * KEY_LONGS + i];
+            keys[b * KEY_LONGS + i] = tmp;
+        }
+    }
+
+    // Buang duplikat dari {@code count} key yang sudah terurut
+    private static long[] unique(long[] keys, int count) {
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            if (out == 0 || compare(keys, (out - 1) * KEY_LONGS, keys, i * KEY_LONGS) != 0) {
+                System.arraycopy(keys, i * KEY_LONGS, keys, out * KEY_LONGS, KEY_LONGS);
+                out++;
+            }
+        }
+        return out * KEY_LONGS == keys.length ? keys : Arrays.copyOf(keys, out * KEY_LONGS);
+    }
+
+    private static int compare(long[] a, int aOffset, long[] b, int bOffset) {
+        for (int i = 0; i < KEY_LONGS; i++) {
+            int c = Long.compareUnsigned(a[aOffset + i], b[bOffset + i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static final class Snapshot {
+
+        final long[] sorted;
+        final Bloom bloom;
+        final Set<Key> delta = ConcurrentHashMap.newKeySet();
+
+        Snapshot(long[] sorted, Bloom bloom) {
+            this.sorted = sorted;
+            this.bloom = bloom;
+        }
+
+        boolean contains(long[] key, LongAdder positives) {
+            if (!bloom.mightContain(key)) {
+                return false;
+            }
+            if (positives != null) {
+                positives.increment();
+            }
+            return binarySearch(key) || (!delta.isEmpty() && delta.contains(new Key(key)));
+        }
+
+        private boolean binarySearch(long[] key) {
+            int low = 0;
+            int high = sorted.length / KEY_LONGS - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = compare(sorted, mid * KEY_LONGS, key, 0);
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Bloom filter dengan bit di AtomicLongArray, sehingga bit baru bisa ditambahkan
+     * saat pembaca lain sedang memeriksa. Key sudah berupa hash, jadi posisi bit diambil
+     * langsung dari dua long pertamanya (double hashing).
+     */
+    private static final class Bloom {
+
+        private final AtomicLongArray bits;
+        private final long mask;
+        final int capacity;
+
+        Bloom(int capacity) {
+            this.capacity = capacity;
+            long size = Long.highestOneBit((long) capacity * BLOOM_BITS_PER_KEY - 1) << 1;
+            bits = new AtomicLongArray((int) (size >>> 6));
+            mask = size - 1;
+        }
+
+        void add(long[] key) {
+            long h2 = key[1] | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = (key[0] + i * h2) & mask;
+                int word = (int) (bit >>> 6);
+                long flag = 1L << bit;
+                bits.getAndUpdate(word, value -> value | flag);
+            }
+        }
+
+        boolean mightContain(long[] key) {
+            long h2 = key[1] | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = (key[0] + i * h2) & mask;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long bitCount() {
+            return mask + 1;
+        }
+    }
+
+    private static final class Key {
+
+        final long[] longs;
+
+        Key(long[] longs) {
+            this.longs = longs;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(longs, ((Key) other).longs);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) longs[0];
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.digitalsignature.service;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+/**
+ * Backend tanda tangan yang didukung. Setiap algoritma punya id sendiri di token
+ * (SignatureToken.getAlgorithm), sehingga verifikasi memilih backend dari token,
+ * bukan dari konfigurasi server.
+ * <ul>
+ *   <li>ES256: ECDSA P-256, default dan satu-satunya algoritma untuk token legacy (DER)</li>
+ *   <li>ED25519: EdDSA bawaan JDK 17, deterministik, tanda tangan selalu 64 byte</li>
+ * </ul>
+ */
+public enum SignatureAlgorithm {
+
+    ES256(SignatureToken.ALGORITHM_ES256, "EC", "SHA256withECDSA",
+            "SHA256withECDSAinP1363Format", "NONEwithECDSAinP1363Format"),
+
+    // Ed25519 sudah meng-hash pesan sendiri (SHA-512), jadi pesan dan digest memakai engine yang sama
+    ED25519(SignatureToken.ALGORITHM_ED25519, "Ed25519", null, "Ed25519", "Ed25519");
+
+    private final int tokenId;
+    private final String keyAlgorithm;
+    private final String legacyEngine;
+    private final String messageEngine;
+    private final String digestEngine;
+
+    SignatureAlgorithm(int tokenId, String keyAlgorithm, String legacyEngine, String messageEngine,
+                       String digestEngine) {
+        this.tokenId = tokenId;
+        this.keyAlgorithm = keyAlgorithm;
+        this.legacyEngine = legacyEngine;
+        this.messageEngine = messageEngine;
+        this.digestEngine = digestEngine;
+    }
+
+    /**
+     * Nama dari konfigurasi atau parameter request: "ES256"/"ECDSA" atau "Ed25519"/"EdDSA"
+     */
+    public static SignatureAlgorithm parse(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "ES256":
+            case "ECDSA":
+            case "EC":
+                return ES256;
+            case "ED25519":
+            case "EDDSA":
+                return ED25519;
+            default:
+                throw new IllegalArgumentException("Algoritma tanda tangan tidak dikenal: " + name);
+        }
+    }
+
+    public static SignatureAlgorithm fromTokenId(int tokenId) {
+        for (SignatureAlgorithm algorithm : values()) {
+            if (algorithm.tokenId == tokenId) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Algoritma tanda tangan tidak dikenal: " + tokenId);
+    }
+
+    /**
+     * Algoritma untuk sebuah kunci; kunci Ed25519 dari JDK melaporkan getAlgorithm() "EdDSA"
+     */
+    public static SignatureAlgorithm of(Key key) {
+        switch (key.getAlgorithm()) {
+            case "EC":
+                return ES256;
+            case "EdDSA":
+            case "Ed25519":
+                return ED25519;
+            default:
+                throw new IllegalArgumentException("Jenis kunci tidak didukung: " + key.getAlgorithm());
+        }
+    }
+
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(keyAlgorithm);
+        if (this == ES256) {
+            keyGen.initialize(256);
+        }
+        return keyGen.generateKeyPair();
+    }
+
+    public int getTokenId() {
+        return tokenId;
+    }
+
+    // Nama untuk KeyFactory/KeyPairGenerator
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Hanya ES256 yang punya format legacy (tanda tangan DER)
+     */
+    public boolean supportsLegacy() {
+        return legacyEngine != null;
+    }
+
+    // Engine untuk token legacy: DER atas hash + expiry
+    String legacyEngine() {
+        return legacyEngine;
+    }
+
+    // Engine untuk token compact: tanda tangan mentah 64 byte atas hash + expiry
+    String messageEngine() {
+        return messageEngine;
+    }
+
+    // Engine untuk token digest (versi 2): pesan sudah berupa digest 32 byte
+    String digestEngine() {
+        return digestEngine;
+    }
+}
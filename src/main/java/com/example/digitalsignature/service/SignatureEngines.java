@@ -0,0 +1,108 @@
+package com.example.digitalsignature.service;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Menyimpan objek Signature yang sudah di-initSign/initVerify per thread, per (algoritma, kunci).
+ * Signature.sign() dan verify() mengembalikan engine ke keadaan setelah init, jadi engine
+ * bisa dipakai ulang antar request tanpa provider lookup dan setup kunci lagi.
+ */
+final class SignatureEngines {
+
+    // Batas engine per thread agar kunci lama (misalnya setelah rotasi) tidak menumpuk;
+    // cukup untuk beberapa kunci di key ring x algoritma x sign/verify
+    private static final int MAX_ENGINES_PER_THREAD = 64;
+
+    // Urutan akses: engine yang paling lama tidak dipakai dibuang lebih dulu, sehingga engine
+    // kunci yang sering dipakai (lama maupun baru) tetap terinisialisasi
+    private final ThreadLocal<Map<EngineKey, Signature>> engines = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<EngineKey, Signature>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<EngineKey, Signature> eldest) {
+                    return size() > MAX_ENGINES_PER_THREAD;
+                }
+            });
+
+    byte[] sign(String algorithm, PrivateKey key, byte[] data) throws GeneralSecurityException {
+        EngineKey engineKey = new EngineKey(algorithm, key, true);
+        Signature signer = engine(engineKey);
+        try {
+            signer.update(data);
+            return signer.sign();
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // Keadaan engine tidak pasti setelah gagal, buang saja
+            engines.get().remove(engineKey);
+            throw e;
+        }
+    }
+
+    boolean verify(String algorithm, PublicKey key, byte[] data, byte[] signatureBytes)
+            throws GeneralSecurityException {
+        EngineKey engineKey = new EngineKey(algorithm, key, false);
+        Signature verifier = engine(engineKey);
+        try {
+            verifier.update(data);
+            return verifier.verify(signatureBytes);
+        } catch (SignatureException e) {
+            // Tanda tangan yang tidak bisa diproses (misalnya s >= n untuk ECDSA) sekadar tidak valid
+            engines.get().remove(engineKey);
+            return false;
+        } catch (RuntimeException e) {
+            engines.get().remove(engineKey);
+            throw e;
+        }
+    }
+
+    private Signature engine(EngineKey engineKey) throws GeneralSecurityException {
+        Map<EngineKey, Signature> threadEngines = engines.get();
+        Signature engine = threadEngines.get(engineKey);
+        if (engine == null) {
+            engine = Signature.getInstance(engineKey.algorithm);
+            if (engineKey.signing) {
+                engine.initSign((PrivateKey) engineKey.key);
+            } else {
+                engine.initVerify((PublicKey) engineKey.key);
+            }
+            threadEngines.put(engineKey, engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Kunci dibandingkan berdasarkan identitas objek; objek kunci disimpan sekali
+     * dan dipakai ulang, jadi tidak perlu membandingkan encoding kunci di setiap panggilan.
+     */
+    private static final class EngineKey {
+
+        private final String algorithm;
+        private final Key key;
+        private final boolean signing;
+
+        EngineKey(String algorithm, Key key, boolean signing) {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.signing = signing;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EngineKey)) {
+                return false;
+            }
+            EngineKey other = (EngineKey) o;
+            return key == other.key && signing == other.signing && algorithm.equals(other.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(key) * 31 + algorithm.hashCode()) * 2 + (signing ? 1 : 0);
+        }
+    }
+}
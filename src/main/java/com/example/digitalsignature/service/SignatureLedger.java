@@ -0,0 +1,429 @@
+package com.example.digitalsignature.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Ledger tanda tangan: setiap tanda tangan yang dibuat CryptoService ditambahkan ke log
+ * append-only yang dipecah per segmen (ledger-00000001.log, ...). Format record:
+ * {@code panjang (int32) | CRC32 (int32) | digest (32) | expiry (int64) | signedAt (int64) |
+ * key id (uint8 + ASCII) | designer (uint16 + UTF-8) | token (uint16 + ASCII)}.
+ * <p>
+ * Di atas log ada LedgerIndex (memory-mapped, di luar heap) dari digest ke lokasi record,
+ * sehingga lookup O(1) berapa pun jumlah entry. Saat shutdown normal index ditandai bersih
+ * beserta posisi log terakhir; saat start hanya record setelah posisi itu yang dibaca ulang.
+ * Tanpa shutdown normal index dibangun ulang dari seluruh log, dan ekor record yang terpotong
+ * di segmen terakhir dibuang.
+ */
+@Service
+public class SignatureLedger {
+
+    private static final int DIGEST_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = 8;
+    // digest + expiry + signedAt + tiga prefix panjang
+    private static final int MIN_PAYLOAD_BYTES = DIGEST_BYTES + 8 + 8 + 1 + 2 + 2;
+    private static final int MAX_PAYLOAD_BYTES = 128 * 1024;
+    private static final int MAX_DESIGNER_CHARS = 1024;
+
+    // Lokasi record = nomor segmen (bit 40 ke atas) | offset di dalam segmen
+    private static final int SEGMENT_SHIFT = 40;
+    private static final long OFFSET_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_FILE = "ledger.idx";
+
+    @Value("${signature.ledger.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${signature.ledger.dir:data/ledger}")
+    private String directory = "data/ledger";
+
+    @Value("${signature.ledger.segmentBytes:67108864}")
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    // true = setiap record di-fsync sebelum tanda tangan dikembalikan
+    @Value("${signature.ledger.fsync:false}")
+    private boolean fsync = false;
+
+    @Value("${signature.ledger.initialCapacity:1048576}")
+    private int initialCapacity = 1 << 20;
+
+    // Append dan pertumbuhan index memegang write lock; lookup hanya read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private Path dir;
+    private LedgerIndex index;
+    private int activeSegment;
+    private long activeSize;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private long openMillis;
+    private long replayedRecords;
+    private boolean rebuilt;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            System.out.println("Signature ledger disabled");
+            return;
+        }
+        long start = System.nanoTime();
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(1, createSegment(1));
+        }
+        activeSegment = segments.lastKey();
+        activeSize = segments.get(activeSegment).size();
+
+        index = LedgerIndex.open(dir.resolve(INDEX_FILE), initialCapacity);
+        long watermark = index.getWatermark();
+        if (index.isClean() && isValidLocation(watermark)) {
+            replayFrom(segmentOf(watermark), offsetOf(watermark));
+        } else {
+            index.reset(initialCapacity);
+            rebuilt = true;
+            replayFrom(segments.firstKey(), 0);
+        }
+        index.markDirty();
+
+        openMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Signature ledger: " + index.size() + " entries, " + segments.size() + " segment(s), "
+                + (rebuilt ? "index rebuilt" : "index reused") + " (" + replayedRecords + " records replayed) in "
+                + openMillis + " ms");
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (index == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (FileChannel channel : segments.values()) {
+                channel.force(false);
+            }
+            index.markClean(location(activeSegment, activeSize));
+            index.close();
+            index = null;
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tambahkan tanda tangan ke ledger; digest yang sama boleh ditandatangani berkali-kali,
+     * lookup selalu mengembalikan record terbaru
+     */
+    public void record(byte[] digest, String signature, long expiry, String keyId, String designerName)
+            throws IOException {
+        if (index == null) {
+            return;
+        }
+        if (digest.length != DIGEST_BYTES) {
+            throw new IllegalArgumentException("Digest ledger harus " + DIGEST_BYTES + " byte");
+        }
+        byte[] payload = encode(digest, signature, expiry, System.currentTimeMillis(), keyId, designerName);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .put(payload);
+        record.flip();
+
+        lock.writeLock().lock();
+        try {
+            if (activeSize > 0 && activeSize + record.remaining() > segmentBytes) {
+                activeSegment++;
+                segments.put(activeSegment, createSegment(activeSegment));
+                activeSize = 0;
+            }
+            FileChannel channel = segments.get(activeSegment);
+            long location = location(activeSegment, activeSize);
+            long position = activeSize;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            activeSize = position;
+            index.put(fingerprint(digest), location, existing -> Arrays.equals(digestAt(existing), digest));
+            appended.increment();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record terbaru untuk digest ini, atau null jika digest belum pernah ditandatangani
+     */
+    public LedgerEntry lookup(byte[] digest) throws IOException {
+        if (index == null || digest.length != DIGEST_BYTES) {
+            return null;
+        }
+        lookups.increment();
+        byte[][] found = new byte[1][];
+        lock.readLock().lock();
+        try {
+            index.get(fingerprint(digest), location -> {
+                byte[] payload = readPayload(location);
+                if (payload != null && Arrays.equals(payload, 0, DIGEST_BYTES, digest, 0, DIGEST_BYTES)) {
+                    found[0] = payload;
+                    return true;
+                }
+                return false;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (found[0] == null) {
+            return null;
+        }
+        hits.increment();
+        return decode(found[0]);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return stats;
+            }
+            long logBytes = 0;
+            for (FileChannel channel : segments.values()) {
+                logBytes += channel.size();
+            }
+            stats.put("entries", index.size());
+            stats.put("indexCapacity", index.capacity());
+            stats.put("indexBytes", index.mappedBytes());
+            stats.put("segments", segments.size());
+            stats.put("logBytes", logBytes);
+        } catch (IOException e) {
+            stats.put("error", e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("appended", appended.sum());
+        stats.put("lookups", lookups.sum());
+        stats.put("hits", hits.sum());
+        stats.put("openMillis", openMillis);
+        stats.put("replayedRecords", replayedRecords);
+        stats.put("indexRebuilt", rebuilt);
+        return stats;
+    }
+
+    /**
+     * Baca ulang record mulai dari lokasi ini ke index. Record rusak di segmen terakhir
+     * (tulisan yang terputus) dipotong; di segmen lama sisa segmen itu dilewati.
+     */
+    private void replayFrom(int fromSegment, long fromOffset) throws IOException {
+        for (Map.Entry<Integer, FileChannel> segment : segments.tailMap(fromSegment, true).entrySet()) {
+            int id = segment.getKey();
+            FileChannel channel = segment.getValue();
+            long size = channel.size();
+            long position = id == fromSegment ? fromOffset : 0;
+
+            try (InputStream file = Files.newInputStream(segmentPath(id));
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+                in.skipNBytes(position);
+                while (position + RECORD_HEADER_BYTES <= size) {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < MIN_PAYLOAD_BYTES || length > MAX_PAYLOAD_BYTES
+                            || position + RECORD_HEADER_BYTES + length > size) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (crc(payload) != checksum) {
+                        break;
+                    }
+                    byte[] digest = Arrays.copyOf(payload, DIGEST_BYTES);
+                    index.put(fingerprint(digest), location(id, position),
+                            existing -> Arrays.equals(digestAt(existing), digest));
+                    replayedRecords++;
+                    position += RECORD_HEADER_BYTES + length;
+                }
+            } catch (EOFException e) {
+                // Diperlakukan sama seperti record terpotong
+            }
+
+            if (position < size) {
+                if (id == activeSegment) {
+                    System.out.println("WARNING: ledger segment " + id + " truncated from " + size + " to "
+                            + position + " bytes (incomplete record)");
+                    channel.truncate(position);
+                    activeSize = position;
+                } else {
+                    System.out.println("WARNING: ledger segment " + id + " has a corrupt record at offset "
+                            + position + ", remaining " + (size - position) + " bytes skipped");
+                }
+            }
+        }
+    }
+
+    private byte[] digestAt(long location) {
+        byte[] payload = readPayload(location);
+        return payload != null ? Arrays.copyOf(payload, DIGEST_BYTES) : null;
+    }
+
+    // Payload record di lokasi ini, atau null jika record rusak
+    private byte[] readPayload(long location) {
+        FileChannel channel = segments.get(segmentOf(location));
+        if (channel == null) {
+            return null;
+        }
+        try {
+            long position = offsetOf(location);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (length < MIN_PAYLOAD_BYTES || length > MAX_PAYLOAD_BYTES) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_BYTES);
+            return crc(payload.array()) == header.getInt(4) ? payload.array() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Record ledger terpotong");
+            }
+        }
+    }
+
+    private static byte[] encode(byte[] digest, String signature, long expiry, long signedAt, String keyId,
+                                 String designerName) {
+        byte[] keyIdBytes = keyId != null ? keyId.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        if (designerName != null && designerName.length() > MAX_DESIGNER_CHARS) {
+            designerName = designerName.substring(0, MAX_DESIGNER_CHARS);
+        }
+        byte[] designerBytes = designerName != null ? designerName.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] tokenBytes = signature.getBytes(StandardCharsets.US_ASCII);
+        if (keyIdBytes.length > 0xFF || tokenBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key id atau token terlalu panjang untuk ledger");
+        }
+        return ByteBuffer.allocate(MIN_PAYLOAD_BYTES + keyIdBytes.length + designerBytes.length + tokenBytes.length)
+                .put(digest)
+                .putLong(expiry)
+                .putLong(signedAt)
+                .put((byte) keyIdBytes.length).put(keyIdBytes)
+                .putShort((short) designerBytes.length).put(designerBytes)
+                .putShort((short) tokenBytes.length).put(tokenBytes)
+                .array();
+    }
+
+    private static LedgerEntry decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte[] digest = new byte[DIGEST_BYTES];
+        buffer.get(digest);
+        long expiry = buffer.getLong();
+        long signedAt = buffer.getLong();
+        String keyId = readString(buffer, buffer.get() & 0xFF, StandardCharsets.US_ASCII);
+        String designerName = readString(buffer, buffer.getShort() & 0xFFFF, StandardCharsets.UTF_8);
+        String signature = readString(buffer, buffer.getShort() & 0xFFFF, StandardCharsets.US_ASCII);
+        return new LedgerEntry(digest, signature, expiry, signedAt, keyId, designerName);
+    }
+
+    private static String readString(ByteBuffer buffer, int length, Charset charset) {
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, charset);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static long fingerprint(byte[] digest) {
+        return ByteBuffer.wrap(digest).getLong(0);
+    }
+
+    private FileChannel createSegment(int id) throws IOException {
+        return FileChannel.open(segmentPath(id), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private boolean isValidLocation(long location) throws IOException {
+        FileChannel channel = segments.get(segmentOf(location));
+        return channel != null && offsetOf(location) <= channel.size();
+    }
+
+    private static long location(int segment, long offset) {
+        return ((long) segment << SEGMENT_SHIFT) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> SEGMENT_SHIFT);
+    }
+
+    private static long offsetOf(long location) {
+        return location & OFFSET_MASK;
+    }
+}
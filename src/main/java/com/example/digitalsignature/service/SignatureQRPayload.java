@@ -0,0 +1,144 @@
+package com.example.digitalsignature.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Payload QR biner untuk data tanda tangan, pengganti teks "hash:/signature:/designer:/date:".
+ * Layout (dikodekan sebagai byte mode ISO-8859-1 di QR):
+ * {@code versi payload | versi token | algoritma | flags | digest (32) | r||s | varint expiry |
+ * varint tanggal (epoch day) | [panjang key id | key id] | designer (UTF-8, sisa byte)}.
+ * Tanda tangan legacy (DER) disimpan sebagai r||s dan dikembalikan ke DER saat decode.
+ */
+public final class SignatureQRPayload {
+
+    public static final int VERSION_BINARY = 1;
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final int FLAG_KEY_ID = 1;
+    private static final int HEADER_LENGTH = 4;
+
+    private final byte[] digest;
+    private final SignatureToken token;
+    private final String designer;
+    private final LocalDate date;
+
+    public SignatureQRPayload(byte[] digest, SignatureToken token, String designer, LocalDate date) {
+        if (digest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Digest harus " + DIGEST_LENGTH + " byte");
+        }
+        this.digest = digest;
+        this.token = token;
+        this.designer = designer != null ? designer : "";
+        this.date = date;
+    }
+
+    /**
+     * Byte pertama payload biner selalu VERSION_BINARY, sedangkan payload teks diawali huruf
+     */
+    public static boolean isBinary(byte[] payload) {
+        return payload != null && payload.length > 0 && payload[0] == VERSION_BINARY;
+    }
+
+    public byte[] encode() {
+        if (token.getExpiry() < 0 || date.toEpochDay() < 0) {
+            throw new IllegalArgumentException("Expiry dan tanggal harus setelah epoch");
+        }
+        byte[] rawSignature = token.getRawSignature();
+        byte[] keyIdBytes = token.getKeyId() != null ? token.getKeyId().getBytes(StandardCharsets.US_ASCII) : null;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(VERSION_BINARY);
+        out.write(token.getVersion());
+        out.write(token.getAlgorithm());
+        out.write(keyIdBytes != null ? FLAG_KEY_ID : 0);
+        out.writeBytes(digest);
+        out.writeBytes(rawSignature);
+        writeVarint(out, token.getExpiry());
+        writeVarint(out, date.toEpochDay());
+        if (keyIdBytes != null) {
+            out.write(keyIdBytes.length);
+            out.writeBytes(keyIdBytes);
+        }
+        out.writeBytes(designer.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    public static SignatureQRPayload decode(byte[] payload) {
+        if (!isBinary(payload) || payload.length < HEADER_LENGTH + DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Payload QR biner tidak valid");
+        }
+        int tokenVersion = payload[1] & 0xFF;
+        int algorithm = payload[2] & 0xFF;
+        int flags = payload[3] & 0xFF;
+
+        int[] offset = {HEADER_LENGTH};
+        byte[] digest = readBytes(payload, offset, DIGEST_LENGTH);
+        byte[] rawSignature = readBytes(payload, offset, SignatureToken.signatureLength(algorithm));
+        long expiry = readVarint(payload, offset);
+        LocalDate date = LocalDate.ofEpochDay(readVarint(payload, offset));
+
+        String keyId = null;
+        if ((flags & FLAG_KEY_ID) != 0) {
+            int keyIdLength = readBytes(payload, offset, 1)[0] & 0xFF;
+            keyId = new String(readBytes(payload, offset, keyIdLength), StandardCharsets.US_ASCII);
+        }
+        String designer = new String(payload, offset[0], payload.length - offset[0], StandardCharsets.UTF_8);
+
+        SignatureToken token = SignatureToken.fromRaw(tokenVersion, algorithm, expiry, keyId, rawSignature);
+        return new SignatureQRPayload(digest, token, designer, date);
+    }
+
+    private static byte[] readBytes(byte[] payload, int[] offset, int length) {
+        if (offset[0] + length > payload.length) {
+            throw new IllegalArgumentException("Payload QR biner terpotong");
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(payload, offset[0], bytes, 0, length);
+        offset[0] += length;
+        return bytes;
+    }
+
+    /**
+     * Varint tanpa tanda (LEB128): 7 bit per byte, bit tertinggi menandakan masih ada byte berikutnya
+     */
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] payload, int[] offset) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (offset[0] >= payload.length) {
+                throw new IllegalArgumentException("Payload QR biner terpotong");
+            }
+            int b = payload[offset[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint terlalu panjang");
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    public SignatureToken getToken() {
+        return token;
+    }
+
+    public String getDesigner() {
+        return designer;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.digitalsignature.service;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Token tanda tangan dalam dua bentuk:
+ * <ul>
+ *   <li>legacy: {@code Base64(DER signature) + ":" + expiry [+ ":" + key id]}</li>
+ *   <li>compact (biner, Base64 URL-safe tanpa padding):
+ *       {@code version | algoritma | flags | expiry (int64) | [panjang key id | key id] | r||s}</li>
+ * </ul>
+ * Versi 1 menandatangani teks Base64 digest + expiry (sama seperti legacy),
+ * versi 2 menandatangani digest BLAKE3 mentah (lihat CryptoService.signDigest).
+ * Token legacy selalu ES256; token compact mencatat algoritmanya (lihat SignatureAlgorithm).
+ * Parser membaca token dalam satu lintasan tanpa String.split.
+ */
+public final class SignatureToken {
+
+    public static final int VERSION_LEGACY = 0;
+    public static final int VERSION_COMPACT = 1;
+    public static final int VERSION_DIGEST = 2;
+
+    public static final int ALGORITHM_ES256 = 1;
+    public static final int ALGORITHM_ED25519 = 2;
+
+    private static final int FLAG_KEY_ID = 1;
+
+    // Orde kurva P-256 dan setengahnya, untuk normalisasi low-S
+    private static final BigInteger P256_ORDER =
+            new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+    private static final BigInteger P256_HALF_ORDER = P256_ORDER.shiftRight(1);
+    private static final int HEADER_LENGTH = 11;
+
+    private final int version;
+    private final int algorithm;
+    private final long expiry;
+    private final String keyId;
+    private final byte[] signature;
+
+    private SignatureToken(int version, int algorithm, long expiry, String keyId, byte[] signature) {
+        this.version = version;
+        this.algorithm = algorithm;
+        this.expiry = expiry;
+        this.keyId = keyId;
+        this.signature = signature;
+    }
+
+    public static SignatureToken compact(int algorithm, long expiry, String keyId, byte[] rawSignature) {
+        if (rawSignature.length != signatureLength(algorithm)) {
+            throw new IllegalArgumentException("Panjang tanda tangan tidak sesuai algoritma");
+        }
+        return new SignatureToken(VERSION_COMPACT, algorithm, expiry, keyId, rawSignature);
+    }
+
+    public static SignatureToken digest(int algorithm, long expiry, String keyId, byte[] rawSignature) {
+        if (rawSignature.length != signatureLength(algorithm)) {
+            throw new IllegalArgumentException("Panjang tanda tangan tidak sesuai algoritma");
+        }
+        return new SignatureToken(VERSION_DIGEST, algorithm, expiry, keyId, rawSignature);
+    }
+
+    public static SignatureToken legacy(long expiry, byte[] derSignature) {
+        return legacy(expiry, null, derSignature);
+    }
+
+    public static SignatureToken legacy(long expiry, String keyId, byte[] derSignature) {
+        return new SignatureToken(VERSION_LEGACY, ALGORITHM_ES256, expiry, keyId, derSignature);
+    }
+
+    /**
+     * Bangun ulang token dari tanda tangan mentah r||s; untuk token legacy r||s diubah kembali ke DER
+     */
+    public static SignatureToken fromRaw(int version, int algorithm, long expiry, String keyId, byte[] rawSignature) {
+        switch (version) {
+            case VERSION_LEGACY:
+                return legacy(expiry, keyId, rawToDer(rawSignature));
+            case VERSION_COMPACT:
+                return compact(algorithm, expiry, keyId, rawSignature);
+            case VERSION_DIGEST:
+                return digest(algorithm, expiry, keyId, rawSignature);
+            default:
+                throw new IllegalArgumentException("Versi token tidak dikenal: " + version);
+        }
+    }
+
+    /**
+     * Parse token legacy maupun compact. Token legacy selalu mengandung ':',
+     * sedangkan alfabet Base64 URL-safe tidak pernah mengandung ':'.
+     */
+    public static SignatureToken parse(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Format tanda tangan tidak valid");
+        }
+        int colon = token.indexOf(':');
+        return colon >= 0 ? parseLegacy(token, colon) : parseCompact(token);
+    }
+
+    private static SignatureToken parseLegacy(String token, int colon) {
+        if (colon == 0 || colon == token.length() - 1) {
+            throw new IllegalArgumentException("Format tanda tangan tidak valid");
+        }
+        // Expiry dibaca langsung dari karakter, tanpa substring + Long.parseLong,
+        // sampai akhir token atau ':' sebelum key id (token tanpa key id tetap diterima)
+        long expiry = 0;
+        int end = colon + 1;
+        for (; end < token.length() && token.charAt(end) != ':'; end++) {
+            char c = token.charAt(end);
+            if (c < '0' || c > '9' || expiry > (Long.MAX_VALUE - 9) / 10) {
+                throw new IllegalArgumentException("Waktu kedaluwarsa tidak valid");
+            }
+            expiry = expiry * 10 + (c - '0');
+        }
+        if (end == colon + 1) {
+            throw new IllegalArgumentException("Waktu kedaluwarsa tidak valid");
+        }
+        String keyId = null;
+        if (end < token.length()) {
+            keyId = token.substring(end + 1);
+            if (!isValidKeyId(keyId)) {
+                throw new IllegalArgumentException("Key id tidak valid");
+            }
+        }
+
+        // Decode bagian Base64 langsung dari rentang karakter, tanpa substring
+        ByteBuffer ascii = StandardCharsets.ISO_8859_1.encode(CharBuffer.wrap(token, 0, colon));
+        ByteBuffer der = Base64.getDecoder().decode(ascii);
+        byte[] signature = new byte[der.remaining()];
+        der.get(signature);
+        return new SignatureToken(VERSION_LEGACY, ALGORITHM_ES256, expiry, keyId, signature);
+    }
+
+    // Key id: 1-255 karakter [0-9A-Za-z_-], sehingga aman di token legacy maupun di QR
+    static boolean isValidKeyId(String keyId) {
+        if (keyId.isEmpty() || keyId.length() > 255) {
+            return false;
+        }
+        for (int i = 0; i < keyId.length(); i++) {
+            char c = keyId.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SignatureToken parseCompact(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.ISO_8859_1));
+        if (bytes.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Token tanda tangan terlalu pendek");
+        }
+
+        int version = bytes[0] & 0xFF;
+        if (version != VERSION_COMPACT && version != VERSION_DIGEST) {
+            throw new IllegalArgumentException("Versi token tidak dikenal: " + version);
+        }
+        int algorithm = bytes[1] & 0xFF;
+        int flags = bytes[2] & 0xFF;
+        long expiry = ByteBuffer.wrap(bytes, 3, 8).getLong();
+
+        int offset = HEADER_LENGTH;
+        String keyId = null;
+        if ((flags & FLAG_KEY_ID) != 0) {
+            if (offset >= bytes.length) {
+                throw new IllegalArgumentException("Token tanda tangan terpotong");
+            }
+            int keyIdLength = bytes[offset++] & 0xFF;
+            if (offset + keyIdLength > bytes.length) {
+                throw new IllegalArgumentException("Token tanda tangan terpotong");
+            }
+            keyId = new String(bytes, offset, keyIdLength, StandardCharsets.US_ASCII);
+            offset += keyIdLength;
+        }
+
+        int signatureLength = signatureLength(algorithm);
+        if (bytes.length - offset != signatureLength) {
+            throw new IllegalArgumentException("Panjang tanda tangan tidak sesuai algoritma");
+        }
+        byte[] signature = new byte[signatureLength];
+        System.arraycopy(bytes, offset, signature, 0, signatureLength);
+        return new SignatureToken(version, algorithm, expiry, keyId, signature);
+    }
+
+    public String encode() {
+        if (version == VERSION_LEGACY) {
+            String legacy = Base64.getEncoder().encodeToString(signature) + ":" + expiry;
+            return keyId != null ? legacy + ":" + keyId : legacy;
+        }
+        byte[] keyIdBytes = keyId != null ? keyId.getBytes(StandardCharsets.US_ASCII) : null;
+        int length = HEADER_LENGTH + (keyIdBytes != null ? 1 + keyIdBytes.length : 0) + signature.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put((byte) version);
+        buffer.put((byte) algorithm);
+        buffer.put((byte) (keyIdBytes != null ? FLAG_KEY_ID : 0));
+        buffer.putLong(expiry);
+        if (keyIdBytes != null) {
+            buffer.put((byte) keyIdBytes.length);
+            buffer.put(keyIdBytes);
+        }
+        buffer.put(signature);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Tanda tangan mentah dengan panjang tetap (r||s untuk ES256, 64 byte untuk Ed25519);
+     * tanda tangan DER (legacy) dikonversi
+     */
+    public byte[] getRawSignature() {
+        if (version != VERSION_LEGACY) {
+            return signature;
+        }
+        return derToRaw(signature, signatureLength(algorithm));
+    }
+
+    /**
+     * Bentuk kanonik tanda tangan ini: {@code algoritma | expiry (int64) | r||s}, dengan s ECDSA
+     * dinormalisasi ke low-S karena (r, s) dan (r, n - s) sama-sama valid. Key id, versi dan encoding
+     * teks tidak ikut, sehingga setiap encoding ulang dari tanda tangan yang sama menghasilkan byte
+     * yang sama (dipakai sebagai key pencabutan).
+     */
+    public byte[] canonicalForm() {
+        byte[] raw = getRawSignature().clone();
+        if (algorithm == ALGORITHM_ES256) {
+            int half = raw.length / 2;
+            BigInteger s = new BigInteger(1, Arrays.copyOfRange(raw, half, raw.length));
+            if (s.compareTo(P256_HALF_ORDER) > 0 && s.compareTo(P256_ORDER) < 0) {
+                byte[] low = P256_ORDER.subtract(s).toByteArray();
+                int length = Math.min(low.length, half);
+                Arrays.fill(raw, half, raw.length, (byte) 0);
+                System.arraycopy(low, low.length - length, raw, raw.length - length, length);
+            }
+        }
+        return ByteBuffer.allocate(1 + 8 + raw.length)
+                .put((byte) algorithm)
+                .putLong(expiry)
+                .put(raw)
+                .array();
+    }
+
+    /**
+     * DER SEQUENCE { INTEGER r, INTEGER s } menjadi r||s, masing-masing rawLength / 2 byte
+     */
+    static byte[] derToRaw(byte[] der, int rawLength) {
+        int half = rawLength / 2;
+        if (der.length < 8 || der[0] != 0x30) {
+            throw new IllegalArgumentException("Tanda tangan DER tidak valid");
+        }
+        int offset = 2;
+        if ((der[1] & 0xFF) == 0x81) {
+            offset = 3; // panjang sequence dalam bentuk panjang (>= 128 byte)
+        }
+        byte[] raw = new byte[rawLength];
+        for (int part = 0; part < 2; part++) {
+            if (offset + 2 > der.length || der[offset] != 0x02) {
+                throw new IllegalArgumentException("Tanda tangan DER tidak valid");
+            }
+            int length = der[offset + 1] & 0xFF;
+            int start = offset + 2;
+            if (start + length > der.length) {
+                throw new IllegalArgumentException("Tanda tangan DER tidak valid");
+            }
+            // Buang byte 0x00 di depan (penanda bilangan positif)
+            int valueStart = start;
+            int valueLength = length;
+            while (valueLength > half && der[valueStart] == 0) {
+                valueStart++;
+                valueLength--;
+            }
+            if (valueLength > half) {
+                throw new IllegalArgumentException("Tanda tangan DER tidak valid");
+            }
+            System.arraycopy(der, valueStart, raw, part * half + half - valueLength, valueLength);
+            offset = start + length;
+        }
+        return raw;
+    }
+
+    /**
+     * r||s menjadi DER SEQUENCE { INTEGER r, INTEGER s } dalam bentuk minimal
+     */
+    static byte[] rawToDer(byte[] raw) {
+        int half = raw.length / 2;
+        byte[] r = derInteger(raw, 0, half);
+        byte[] s = derInteger(raw, half, half);
+        int contentLength = r.length + s.length;
+
+        ByteBuffer der = ByteBuffer.allocate(contentLength + (contentLength >= 128 ? 3 : 2));
+        der.put((byte) 0x30);
+        if (contentLength >= 128) {
+            der.put((byte) 0x81);
+        }
+        der.put((byte) contentLength);
+        der.put(r);
+        der.put(s);
+        return der.array();
+    }
+
+    private static byte[] derInteger(byte[] raw, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end - 1 && raw[start] == 0) {
+            start++;
+        }
+        boolean pad = (raw[start] & 0x80) != 0;
+        int valueLength = end - start + (pad ? 1 : 0);
+        byte[] integer = new byte[2 + valueLength];
+        integer[0] = 0x02;
+        integer[1] = (byte) valueLength;
+        System.arraycopy(raw, start, integer, 2 + (pad ? 1 : 0), end - start);
+        return integer;
+    }
+
+    /**
+     * Panjang tanda tangan mentah untuk setiap algoritma
+     */
+    static int signatureLength(int algorithm) {
+        switch (algorithm) {
+            case ALGORITHM_ES256:   // r||s, masing-masing 32 byte
+            case ALGORITHM_ED25519: // R||S sesuai RFC 8032
+                return 64;
+            default:
+                throw new IllegalArgumentException("Algoritma tanda tangan tidak dikenal: " + algorithm);
+        }
+    }
+
+    public boolean isLegacy() {
+        return version == VERSION_LEGACY;
+    }
+
+    public boolean isDigest() {
+        return version == VERSION_DIGEST;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getExpiry() {
+        return expiry;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Tanda tangan dalam DER (legacy) atau r||s mentah (compact)
+     */
+    public byte[] getSignature() {
+        return signature;
+    }
+}
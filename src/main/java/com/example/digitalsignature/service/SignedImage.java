@@ -0,0 +1,49 @@
+package com.example.digitalsignature.service;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hasil pipeline tanda tangan gambar: byte gambar yang sudah diproses (tanpa Base64)
+ * dan metadata kecil seperti hash, signature dan QR code.
+ */
+public final class SignedImage {
+
+    private final byte[] image;
+    private final String mimeType;
+    private final String fileName;
+    private final Map<String, String> metadata;
+
+    public SignedImage(byte[] image, String mimeType, String fileName, Map<String, String> metadata) {
+        this.image = image;
+        this.mimeType = mimeType;
+        this.fileName = fileName;
+        this.metadata = metadata;
+    }
+
+    public byte[] getImage() {
+        return image;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Format JSON lama: metadata + gambar sebagai data URI Base64 di "watermarkedImage"
+     */
+    public Map<String, String> toDataUriMap() {
+        Map<String, String> result = new HashMap<>(metadata);
+        result.put("watermarkedImage", "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(image));
+        return result;
+    }
+}
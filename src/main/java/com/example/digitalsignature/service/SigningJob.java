@@ -0,0 +1,101 @@
+package com.example.digitalsignature.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Satu job tanda tangan gambar asinkron: status, waktu tiap tahap, dan hasil atau pesan error.
+ */
+public class SigningJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final String type;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile SignedImage result;
+    private volatile String error;
+
+    // Diselesaikan saat job DONE atau FAILED, dipakai untuk long-poll
+    private final CompletableFuture<SigningJob> completion = new CompletableFuture<>();
+
+    SigningJob(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void complete(SignedImage signed) {
+        result = signed;
+        finish(Status.DONE);
+    }
+
+    void fail(String message) {
+        error = message;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status finalStatus) {
+        finishedAt = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    void notifyWaiters() {
+        completion.complete(this);
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    // Ukuran hasil yang ditahan di memori, untuk batas byte penyimpanan hasil
+    long retainedBytes() {
+        SignedImage signed = result;
+        return signed != null ? signed.getImage().length : 0;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public SignedImage getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public CompletableFuture<SigningJob> getCompletion() {
+        return completion;
+    }
+}
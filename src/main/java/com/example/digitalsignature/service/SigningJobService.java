@@ -0,0 +1,148 @@
+package com.example.digitalsignature.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Menjalankan pipeline tanda tangan gambar di luar thread request.
+ * Upload disalin ke file sementara, job diproses di signingJobExecutor, dan hasilnya
+ * disimpan sampai batas jumlah job / total byte tercapai (job selesai tertua dibuang lebih dulu).
+ */
+@Service
+public class SigningJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningJobService.class);
+
+    @FunctionalInterface
+    public interface SigningTask {
+        SignedImage run(MultipartFile upload) throws Exception;
+    }
+
+    @Autowired
+    @Qualifier("signingJobExecutor")
+    private ExecutorService signingJobExecutor;
+
+    @Value("${signature.jobs.maxResults:256}")
+    private int maxResults = 256;
+
+    @Value("${signature.jobs.maxResultBytes:268435456}")
+    private long maxResultBytes = 256L * 1024 * 1024;
+
+    // Urutan penyisipan = urutan job dibuat
+    private final LinkedHashMap<String, SigningJob> jobs = new LinkedHashMap<>();
+    private long retainedBytes;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Daftarkan job baru dan kembalikan segera; RejectedExecutionException jika antrean penuh
+     */
+    public SigningJob submit(String type, MultipartFile file, SigningTask task) throws IOException {
+        SpooledUpload upload = SpooledUpload.spool(file);
+        SigningJob job = new SigningJob(UUID.randomUUID().toString(), type);
+
+        synchronized (this) {
+            jobs.put(job.getId(), job);
+        }
+        try {
+            signingJobExecutor.execute(() -> run(job, upload, task));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                jobs.remove(job.getId());
+            }
+            upload.delete();
+            rejected.increment();
+            throw e;
+        }
+        submitted.increment();
+        return job;
+    }
+
+    public SigningJob getJob(String id) {
+        synchronized (this) {
+            return jobs.get(id);
+        }
+    }
+
+    private void run(SigningJob job, SpooledUpload upload, SigningTask task) {
+        job.start();
+        SignedImage signed = null;
+        String error = null;
+        try {
+            signed = task.run(upload);
+        } catch (Exception e) {
+            log.warn("Signing job {} ({}) gagal", job.getId(), job.getType(), e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            upload.delete();
+        }
+
+        // Status akhir dan hitungan byte diperbarui bersamaan, supaya eviction tidak melihat job
+        // yang sudah selesai tapi byte-nya belum tercatat
+        synchronized (this) {
+            if (signed != null) {
+                job.complete(signed);
+                completed.increment();
+            } else {
+                job.fail(error);
+                failed.increment();
+            }
+            retainedBytes += job.retainedBytes();
+            evictFinished();
+        }
+        job.notifyWaiters();
+    }
+
+    // Dipanggil dengan lock; job yang masih antre/berjalan tidak pernah dibuang
+    private void evictFinished() {
+        Iterator<SigningJob> it = jobs.values().iterator();
+        while ((jobs.size() > maxResults || retainedBytes > maxResultBytes) && it.hasNext()) {
+            SigningJob job = it.next();
+            if (job.isFinished()) {
+                it.remove();
+                retainedBytes -= job.retainedBytes();
+                evictions.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (this) {
+            stats.put("stored", jobs.size());
+            stats.put("retainedBytes", retainedBytes);
+        }
+        stats.put("maxResults", maxResults);
+        stats.put("maxResultBytes", maxResultBytes);
+        if (signingJobExecutor instanceof ThreadPoolExecutor pool) {
+            stats.put("active", pool.getActiveCount());
+            stats.put("queued", pool.getQueue().size());
+        }
+        return stats;
+    }
+}
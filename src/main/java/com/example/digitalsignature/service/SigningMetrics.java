@@ -0,0 +1,180 @@
+package com.example.digitalsignature.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Metrik Micrometer untuk pipeline tanda tangan gambar, diekspor lewat /actuator/prometheus:
+ * <ul>
+ * <li>{@code signature.stage} - latensi per tahap (read, decode, embed, render, encode, compress,
+ * hash, sign, qr, base64), tag endpoint / stage / format</li>
+ * <li>{@code signature.image.bytes} - ukuran gambar masuk dan keluar, tag endpoint / direction / format</li>
+ * <li>{@code signature.image.pixels} - jumlah piksel gambar hasil decode, tag endpoint / format</li>
+ * </ul>
+ * Tag endpoint diambil dari scope thread yang dibuka pipeline ({@link #endpoint(String)}), sehingga
+ * service di bawahnya tidak perlu tahu endpoint mana yang memanggil.
+ */
+@Component
+public class SigningMetrics {
+
+    public static final String STAGE_TIMER = "signature.stage";
+    public static final String IMAGE_BYTES = "signature.image.bytes";
+    public static final String IMAGE_PIXELS = "signature.image.pixels";
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<String> CURRENT_ENDPOINT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ImageAdmissionService imageAdmissionService;
+
+    @PostConstruct
+    public void registerGauges() {
+        if (imageAdmissionService == null) {
+            return;
+        }
+        Gauge.builder("signature.admission.queue", imageAdmissionService, ImageAdmissionService::getQueueLength)
+                .description("Request yang menunggu anggaran memori decode")
+                .register(meterRegistry);
+        Gauge.builder("signature.admission.available", imageAdmissionService,
+                        service -> service.getAvailableKiB() * 1024.0)
+                .baseUnit("bytes")
+                .description("Sisa anggaran memori decode")
+                .register(meterRegistry);
+        FunctionCounter.builder("signature.admission.rejected", imageAdmissionService,
+                        ImageAdmissionService::getRejectedCount)
+                .description("Request yang ditolak karena anggaran memori decode penuh")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tandai endpoint untuk semua metrik yang dicatat di thread ini sampai scope ditutup
+     */
+    public static EndpointScope endpoint(String endpoint) {
+        String previous = CURRENT_ENDPOINT.get();
+        CURRENT_ENDPOINT.set(endpoint);
+        return new EndpointScope(previous);
+    }
+
+    /**
+     * Jalankan satu tahap dan catat latensinya; metrics boleh null (service dibuat tanpa Spring)
+     */
+    public static <T, E extends Exception> T timed(SigningMetrics metrics, String stage, String format,
+                                                  StageCall<T, E> call) throws E {
+        if (metrics == null) {
+            return call.call();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            metrics.recordStage(stage, format, System.nanoTime() - start);
+        }
+    }
+
+    public static void recordBytes(SigningMetrics metrics, String direction, String format, long bytes) {
+        if (metrics != null) {
+            DistributionSummary.builder(IMAGE_BYTES)
+                    .baseUnit("bytes")
+                    .tag("endpoint", currentEndpoint())
+                    .tag("direction", direction)
+                    .tag("format", format)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1024.0)
+                    .maximumExpectedValue(64.0 * 1024 * 1024)
+                    .register(metrics.meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    public static void recordPixels(SigningMetrics metrics, String format, long pixels) {
+        if (metrics != null) {
+            DistributionSummary.builder(IMAGE_PIXELS)
+                    .baseUnit("pixels")
+                    .tag("endpoint", currentEndpoint())
+                    .tag("format", format)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1024.0)
+                    .maximumExpectedValue(256.0 * 1024 * 1024)
+                    .register(metrics.meterRegistry)
+                    .record(pixels);
+        }
+    }
+
+    private void recordStage(String stage, String format, long nanos) {
+        Timer.builder(STAGE_TIMER)
+                .tag("endpoint", currentEndpoint())
+                .tag("stage", stage)
+                .tag("format", format)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tag format dari ekstensi file, dibatasi ke himpunan tetap supaya kardinalitas metrik tidak
+     * bisa dibengkakkan oleh nama file dari klien
+     */
+    public static String formatOf(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return UNKNOWN;
+        }
+        String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "jpg":
+            case "jpeg":
+                return "jpeg";
+            case "png":
+            case "gif":
+            case "bmp":
+                return extension;
+            default:
+                return "other";
+        }
+    }
+
+    private static String currentEndpoint() {
+        String endpoint = CURRENT_ENDPOINT.get();
+        return endpoint != null ? endpoint : UNKNOWN;
+    }
+
+    public static final class EndpointScope implements AutoCloseable {
+
+        private final String previous;
+
+        private EndpointScope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT_ENDPOINT.remove();
+            } else {
+                CURRENT_ENDPOINT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.digitalsignature.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Salinan upload multipart di file sementara. File multipart asli dihapus container
+ * begitu request selesai, sedangkan job asinkron baru memprosesnya belakangan.
+ */
+final class SpooledUpload implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final Path path;
+    private final long size;
+
+    private SpooledUpload(String name, String originalFilename, String contentType, Path path, long size) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.path = path;
+        this.size = size;
+    }
+
+    static SpooledUpload spool(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile("signing-job-", ".upload");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new SpooledUpload(file.getName(), file.getOriginalFilename(), file.getContentType(),
+                path, Files.size(path));
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Gagal menghapus file sementara " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.digitalsignature.service;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Iterator;
@@ -11,16 +19,32 @@ import java.util.UUID;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.w3c.dom.Node;
 
 @Service
 public class SteganographyService {
 
+    // Panjang header (bit) dan batas payload LSB
+    private static final int LENGTH_BITS = 32;
+    private static final int MAX_PAYLOAD_BITS = 10000;
+    private static final String PNG_METADATA_FORMAT = "javax_imageio_png_1.0";
+
+    @Autowired(required = false)
+    private SigningMetrics signingMetrics;
+
     /**
  * Menerapkan kompresi sebelum konversi ke base64
  * @param imageData Data gambar yang akan dikompresi
@@ -70,22 +94,29 @@ public byte[] compressBeforeBase64(byte[] imageData, float quality) throws IOExc
             return file.getBytes();
         }
         
-        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(file.getBytes()));
+        String metricFormat = SigningMetrics.formatOf(file.getOriginalFilename());
+        byte[] uploadBytes = SigningMetrics.timed(signingMetrics, "read", metricFormat, file::getBytes);
+        BufferedImage originalImage = SigningMetrics.timed(signingMetrics, "decode", metricFormat,
+                () -> ImageIO.read(new ByteArrayInputStream(uploadBytes)));
         if (originalImage == null) {
             throw new IOException("Could not read image file");
         }
+        SigningMetrics.recordPixels(signingMetrics, metricFormat,
+                (long) originalImage.getWidth() * originalImage.getHeight());
         
         // Generate watermark data
         String watermarkData = createWatermarkData(ownerInfo);
         
         // Embed watermark into image using LSB steganography
-        BufferedImage watermarkedImage = embedLSBWatermark(originalImage, watermarkData);
+        BufferedImage watermarkedImage = SigningMetrics.timed(signingMetrics, "embed", metricFormat,
+                () -> embedLSBWatermark(originalImage, watermarkData));
         
         // Convert back to byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(watermarkedImage, getImageFormat(file.getOriginalFilename()), outputStream);
-        
-        byte[] resultBytes = outputStream.toByteArray();
+        byte[] resultBytes = SigningMetrics.timed(signingMetrics, "encode", metricFormat, () -> {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ImageIO.write(watermarkedImage, getImageFormat(file.getOriginalFilename()), outputStream);
+            return outputStream.toByteArray();
+        });
         
         // Validasi hasil sebelum return
         if (resultBytes == null || resultBytes.length == 0) {
@@ -103,12 +134,30 @@ public byte[] compressBeforeBase64(byte[] imageData, float quality) throws IOExc
      * @return The extracted watermark data or null if no watermark found
      */
     public String extractWatermark(byte[] imageData) throws IOException {
-        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageData));
-        if (image == null) {
-            throw new IOException("Could not read image data");
+        return extractWatermark(new ByteArrayInputStream(imageData));
+    }
+    
+    /**
+     * Extracts the watermark while decoding only the rows that hold it.
+     * The LSB payload occupies the first 32 + dataLength pixels, so the header rows are decoded
+     * first, then the payload rows; the rest of the image (and of the stream) is never read.
+     * @param input The image data stream
+     * @return The extracted watermark data or null if no watermark found
+     */
+    public String extractWatermark(InputStream input) throws IOException {
+        try (ImageInputStream imageInput = new MemoryCacheImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                throw new IOException("Could not read image data");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, false, true);
+                return extractLSBWatermark(reader);
+            } finally {
+                reader.dispose();
+            }
         }
-        
-        return extractLSBWatermark(image);
     }
     
     /**
@@ -123,136 +172,267 @@ public byte[] compressBeforeBase64(byte[] imageData, float quality) throws IOExc
     }
     
     /**
-     * Embeds watermark using LSB (Least Significant Bit) steganography
+     * Embeds watermark using LSB (Least Significant Bit) steganography.
+     * Works directly on the DataBufferInt of a TYPE_INT_ARGB copy: the source pixels are copied
+     * in one bulk operation, then only the first 32 + payload bits pixels get their LSB rewritten.
+     * The payload is written as ISO-8859-1 bytes, 8 bits per character, MSB first.
      */
     private BufferedImage embedLSBWatermark(BufferedImage image, String watermarkData) {
         int width = image.getWidth();
         int height = image.getHeight();
+        int totalPixels = width * height;
         
-        // Convert watermark to binary string
-        String binaryWatermark = convertToBinary(watermarkData);
-        int dataLength = binaryWatermark.length();
-        
-        // First, embed the length of data as a 32-bit integer
-        String binaryLength = String.format("%32s", Integer.toBinaryString(dataLength)).replace(' ', '0');
+        byte[] payload = watermarkData.getBytes(StandardCharsets.ISO_8859_1);
+        int dataLength = payload.length * 8;
         
-        // Create a copy of the image
+        // Create a copy of the image and get its backing pixel array
         BufferedImage watermarkedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) watermarkedImage.getRaster().getDataBuffer()).getData();
         
-        // Embed length first (32 pixels)
-        int pixelIndex = 0;
-        for (int i = 0; i < binaryLength.length(); i++) {
-            int x = pixelIndex % width;
-            int y = pixelIndex / width;
-            
-            if (y >= height) break; // Safety check
-            
-            int rgb = image.getRGB(x, y);
-            int newRgb = (rgb & 0xFFFFFFFE) | (binaryLength.charAt(i) == '1' ? 1 : 0);
-            watermarkedImage.setRGB(x, y, newRgb);
-            pixelIndex++;
-        }
-        
-        // Embed actual data
-        for (int i = 0; i < binaryWatermark.length(); i++) {
-            int x = pixelIndex % width;
-            int y = pixelIndex / width;
-            
-            if (y >= height) break; // Safety check
-            
-            int rgb = image.getRGB(x, y);
-            int newRgb = (rgb & 0xFFFFFFFE) | (binaryWatermark.charAt(i) == '1' ? 1 : 0);
-            watermarkedImage.setRGB(x, y, newRgb);
-            pixelIndex++;
-        }
-        
-        // Copy remaining pixels unchanged
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (y * width + x >= pixelIndex) {
-                    watermarkedImage.setRGB(x, y, image.getRGB(x, y));
-                }
-            }
+        copyToArgb(image, pixels);
+        
+        // Embed length first (32 pixels), then the actual data; stop if the image is too small
+        int headerPixels = Math.min(32, totalPixels);
+        for (int i = 0; i < headerPixels; i++) {
+            int bit = (dataLength >>> (31 - i)) & 1;
+            pixels[i] = (pixels[i] & 0xFFFFFFFE) | bit;
+        }
+        
+        int dataPixels = Math.min(dataLength, totalPixels - headerPixels);
+        for (int i = 0; i < dataPixels; i++) {
+            int bit = (payload[i >> 3] >>> (7 - (i & 7))) & 1;
+            int index = headerPixels + i;
+            pixels[index] = (pixels[index] & 0xFFFFFFFE) | bit;
         }
         
         return watermarkedImage;
     }
     
     /**
-     * Extracts LSB watermark from image
+     * Extracts LSB watermark using region-limited decodes of the first image in the reader
      */
-    private String extractLSBWatermark(BufferedImage image) {
-        int width = image.getWidth();
-        int height = image.getHeight();
+    private String extractLSBWatermark(ImageReader reader) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        long totalPixels = (long) width * height;
         
-        // Extract length first (32 bits)
-        StringBuilder lengthBinary = new StringBuilder();
-        int pixelIndex = 0;
+        if (totalPixels < LENGTH_BITS) return null; // Safety check
         
-        for (int i = 0; i < 32; i++) {
-            int x = pixelIndex % width;
-            int y = pixelIndex / width;
-            
-            if (y >= height) return null; // Safety check
-            
-            int rgb = image.getRGB(x, y);
-            lengthBinary.append((rgb & 1) == 1 ? '1' : '0');
-            pixelIndex++;
+        // Decode only the rows holding the 32 bit length header
+        int headerRows = rowsFor(LENGTH_BITS, width);
+        int[] header = readPixels(readRows(reader, 0, headerRows), LENGTH_BITS);
+        int dataLength = readLength(header);
+        if (dataLength <= 0 || dataLength > MAX_PAYLOAD_BITS) {
+            return null; // Invalid length, probably not a watermarked image
         }
         
-        // Convert binary length to integer
-        int dataLength;
+        // Then the remaining payload rows, if the payload runs past the header rows
+        int byteCount = (int) Math.min(dataLength, totalPixels - LENGTH_BITS) / 8;
+        int payloadRows = rowsFor(LENGTH_BITS + byteCount * 8, width);
+        int[] pixels = header;
+        if (payloadRows > headerRows) {
+            int headerPixels = headerRows * width;
+            int[] rest = readPixels(readRows(reader, headerRows, payloadRows - headerRows),
+                    (payloadRows - headerRows) * width);
+            pixels = new int[payloadRows * width];
+            System.arraycopy(header, 0, pixels, 0, headerPixels);
+            System.arraycopy(rest, 0, pixels, headerPixels, pixels.length - headerPixels);
+        }
+        return readPayload(pixels, byteCount);
+    }
+    
+    private int readLength(int[] pixels) {
+        int dataLength = 0;
+        for (int i = 0; i < LENGTH_BITS; i++) {
+            dataLength = (dataLength << 1) | (pixels[i] & 1);
+        }
+        return dataLength;
+    }
+    
+    private String readPayload(int[] pixels, int byteCount) {
+        byte[] data = new byte[byteCount];
+        for (int i = 0; i < byteCount * 8; i++) {
+            data[i >> 3] |= (pixels[LENGTH_BITS + i] & 1) << (7 - (i & 7));
+        }
+        return new String(data, StandardCharsets.ISO_8859_1);
+    }
+    
+    private int rowsFor(int pixelCount, int width) {
+        return (pixelCount + width - 1) / width;
+    }
+    
+    /**
+     * Decodes only rows [firstRow, firstRow + rowCount) of the first image.
+     * The PNG reader keeps inflating the rows after the region, so for non-interlaced PNG
+     * the read is aborted as soon as the last row of the region has been delivered.
+     */
+    private BufferedImage readRows(ImageReader reader, int firstRow, int rowCount) throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(0, firstRow, reader.getWidth(0), rowCount));
+        if (!isSequentialPng(reader)) {
+            return reader.read(0, param);
+        }
+        
+        RegionCompleteListener listener = new RegionCompleteListener(rowCount);
+        reader.addIIOReadUpdateListener(listener);
         try {
-            dataLength = Integer.parseInt(lengthBinary.toString(), 2);
-            if (dataLength <= 0 || dataLength > 10000) {
-                return null; // Invalid length, probably not a watermarked image
+            return reader.read(0, param);
+        } finally {
+            reader.removeIIOReadUpdateListener(listener);
+        }
+    }
+    
+    /**
+     * Non-interlaced PNG delivers every row exactly once, top to bottom
+     */
+    private boolean isSequentialPng(ImageReader reader) throws IOException {
+        if (!"png".equalsIgnoreCase(reader.getFormatName())) {
+            return false;
+        }
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        Node root = metadata.getAsTree(PNG_METADATA_FORMAT);
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if ("IHDR".equals(node.getNodeName())) {
+                Node interlace = node.getAttributes().getNamedItem("interlaceMethod");
+                return interlace != null && "none".equals(interlace.getNodeValue());
             }
-        } catch (NumberFormatException e) {
-            return null; // Not a valid binary number
+        }
+        return false;
+    }
+    
+    /**
+     * Aborts a region read once the last destination row has been written
+     */
+    private static final class RegionCompleteListener implements IIOReadUpdateListener {
+        
+        private final int rowCount;
+        
+        RegionCompleteListener(int rowCount) {
+            this.rowCount = rowCount;
+        }
+        
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                                int minX, int minY, int periodX, int periodY, int[] bands) {
         }
         
-        // Extract the actual data
-        StringBuilder dataBinary = new StringBuilder();
-        for (int i = 0; i < dataLength; i++) {
-            int x = pixelIndex % width;
-            int y = pixelIndex / width;
-            
-            if (y >= height) break; // Safety check
-            
-            int rgb = image.getRGB(x, y);
-            dataBinary.append((rgb & 1) == 1 ? '1' : '0');
-            pixelIndex++;
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY,
+                                int width, int height, int periodX, int periodY, int[] bands) {
+            if (minY + height >= rowCount) {
+                source.abort();
+            }
+        }
+        
+        @Override
+        public void passComplete(ImageReader source, BufferedImage theImage) {
+        }
+        
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass,
+                                         int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
         }
         
-        // Convert binary data back to string
-        return convertFromBinary(dataBinary.toString());
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY,
+                                    int width, int height, int periodX, int periodY, int[] bands) {
+        }
+        
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+        }
+    }
+    
+    /**
+     * Copies all pixels as non-premultiplied ARGB (same values as getRGB) into dst,
+     * with direct loops over the backing arrays of the common decoded image types
+     */
+    private void copyToArgb(BufferedImage image, int[] dst) {
+        int totalPixels = image.getWidth() * image.getHeight();
+        
+        int[] argb = packedPixels(image, BufferedImage.TYPE_INT_ARGB);
+        if (argb != null) {
+            System.arraycopy(argb, 0, dst, 0, totalPixels);
+            return;
+        }
+        int[] rgb = packedPixels(image, BufferedImage.TYPE_INT_RGB);
+        if (rgb != null) {
+            for (int i = 0; i < totalPixels; i++) {
+                dst[i] = 0xFF000000 | rgb[i];
+            }
+            return;
+        }
+        byte[] bgr = interleavedBytes(image, BufferedImage.TYPE_3BYTE_BGR);
+        if (bgr != null) {
+            for (int i = 0, j = 0; i < totalPixels; i++, j += 3) {
+                dst[i] = 0xFF000000 | (bgr[j + 2] & 0xFF) << 16 | (bgr[j + 1] & 0xFF) << 8 | (bgr[j] & 0xFF);
+            }
+            return;
+        }
+        byte[] abgr = interleavedBytes(image, BufferedImage.TYPE_4BYTE_ABGR);
+        if (abgr != null) {
+            for (int i = 0, j = 0; i < totalPixels; i++, j += 4) {
+                dst[i] = (abgr[j] & 0xFF) << 24 | (abgr[j + 3] & 0xFF) << 16
+                        | (abgr[j + 2] & 0xFF) << 8 | (abgr[j + 1] & 0xFF);
+            }
+            return;
+        }
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(), dst, 0, image.getWidth());
     }
     
     /**
-     * Converts a string to binary representation
+     * Returns at least the first pixelCount pixels in row order. The LSB of each value matches
+     * the blue LSB of getRGB; for packed int images the backing array is returned as is.
      */
-    private String convertToBinary(String input) {
-        StringBuilder result = new StringBuilder();
-        for (char c : input.toCharArray()) {
-            String binary = String.format("%8s", Integer.toBinaryString(c)).replace(' ', '0');
-            result.append(binary);
+    private int[] readPixels(BufferedImage image, int pixelCount) {
+        int[] packed = packedPixels(image, BufferedImage.TYPE_INT_ARGB);
+        if (packed == null) {
+            packed = packedPixels(image, BufferedImage.TYPE_INT_RGB);
         }
-        return result.toString();
+        if (packed != null) {
+            return packed;
+        }
+        int width = image.getWidth();
+        int rows = Math.min(image.getHeight(), (pixelCount + width - 1) / width);
+        return image.getRGB(0, 0, width, rows, null, 0, width);
     }
     
     /**
-     * Converts binary back to a string
+     * Backing pixel array of an image of the given packed int type, or null if the image
+     * has another type or a non-trivial layout (e.g. a sub-image)
      */
-    private String convertFromBinary(String binary) {
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < binary.length(); i += 8) {
-            if (i + 8 <= binary.length()) {
-                String byteStr = binary.substring(i, i + 8);
-                int charCode = Integer.parseInt(byteStr, 2);
-                result.append((char) charCode);
-            }
+    private int[] packedPixels(BufferedImage image, int type) {
+        if (image.getType() != type) {
+            return null;
+        }
+        WritableRaster raster = image.getRaster();
+        if (raster.getParent() != null
+                || !(raster.getDataBuffer() instanceof DataBufferInt)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+                || ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth()
+                || raster.getDataBuffer().getOffset() != 0) {
+            return null;
+        }
+        return ((DataBufferInt) raster.getDataBuffer()).getData();
+    }
+    
+    /**
+     * Backing byte array of a 3BYTE_BGR / 4BYTE_ABGR image without padding or offsets, or null
+     */
+    private byte[] interleavedBytes(BufferedImage image, int type) {
+        if (image.getType() != type) {
+            return null;
+        }
+        WritableRaster raster = image.getRaster();
+        int bands = type == BufferedImage.TYPE_3BYTE_BGR ? 3 : 4;
+        if (raster.getParent() != null
+                || !(raster.getDataBuffer() instanceof DataBufferByte)
+                || !(raster.getSampleModel() instanceof PixelInterleavedSampleModel)
+                || ((PixelInterleavedSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth() * bands
+                || raster.getDataBuffer().getOffset() != 0) {
+            return null;
         }
-        return result.toString();
+        return ((DataBufferByte) raster.getDataBuffer()).getData();
     }
     
     /**
@@ -0,0 +1,160 @@
+package com.example.digitalsignature.service;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache hasil verifikasi tanda tangan, dengan key (digest, tanda tangan).
+ * Setiap entry kedaluwarsa tepat pada waktu expiry yang tertanam di tanda tangan,
+ * jadi hasil "valid" dari cache tidak pernah lebih lama dari tanda tangannya sendiri.
+ * Jika cache penuh, entry yang paling cepat kedaluwarsa dikeluarkan lebih dulu.
+ * <p>
+ * Setiap entry membawa generasi cache saat verifikasinya dimulai. invalidate() menaikkan generasi,
+ * sehingga hasil dari verifikasi yang masih berjalan dengan key ring lama tidak pernah terbaca lagi,
+ * walaupun put() baru terjadi setelah cache dikosongkan.
+ */
+@Component
+public class VerificationCache {
+
+    @Value("${signature.verifyCache.maxEntries:100000}")
+    private int maxEntries = 100_000;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // Urutan entry berdasarkan waktu kedaluwarsa, untuk eviction otomatis dan saat cache penuh
+    private final PriorityBlockingQueue<Entry> expiryQueue =
+            new PriorityBlockingQueue<>(64, Comparator.comparingLong((Entry e) -> e.expiresAt));
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Hasil verifikasi yang tersimpan, atau null jika tidak ada / sudah kedaluwarsa
+     */
+    public Boolean get(byte[] hash, String signature) {
+        Entry entry = entries.get(new Key(hash, signature));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt || entry.generation != generation.get()) {
+            if (entries.remove(entry.key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.valid;
+    }
+
+    /**
+     * Generasi saat ini; ambil sebelum key ring dibaca dan teruskan ke put()
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Simpan hasil verifikasi yang dimulai pada {@code startGeneration}; diabaikan jika cache
+     * sudah di-invalidate sejak itu
+     */
+    public void put(byte[] hash, String signature, long expiresAt, boolean valid, long startGeneration) {
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now || startGeneration != generation.get()) {
+            return;
+        }
+        purgeExpired(now);
+
+        Key key = new Key(hash.clone(), signature);
+        Entry entry = new Entry(key, expiresAt, valid, startGeneration);
+        entries.put(key, entry);
+        expiryQueue.add(entry);
+
+        while (entries.size() > maxEntries) {
+            Entry oldest = expiryQueue.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private void purgeExpired(long now) {
+        Entry head;
+        while ((head = expiryQueue.peek()) != null && head.expiresAt <= now) {
+            Entry expired = expiryQueue.poll();
+            if (expired == null) {
+                break;
+            }
+            if (expired.expiresAt > now) {
+                // Thread lain sudah mengambil head lebih dulu; kembalikan entry yang belum kedaluwarsa
+                expiryQueue.add(expired);
+                break;
+            }
+            if (entries.remove(expired.key, expired)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Buang semua hasil, misalnya setelah kunci di-retire sehingga hasil "valid" lama tidak berlaku lagi.
+     * Dipanggil setelah key ring diganti: verifikasi yang generasinya diambil sebelum titik ini
+     * (dan mungkin masih melihat key ring lama) tidak bisa lagi menyimpan atau membaca hasilnya.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+        expiryQueue.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    /**
+     * ByteBuffer dipakai agar equals/hashCode membandingkan isi digest, bukan identitas array
+     */
+    private record Key(ByteBuffer hash, String signature) {
+
+        Key(byte[] hash, String signature) {
+            this(ByteBuffer.wrap(hash), signature);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final long expiresAt;
+        private final boolean valid;
+        private final long generation;
+
+        Entry(Key key, long expiresAt, boolean valid, long generation) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+            this.valid = valid;
+            this.generation = generation;
+        }
+    }
+}
@@ -3,20 +3,46 @@ package com.example.digitalsignature.service;
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.imageio.ImageIO;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
 public class VisibleWatermarkService {
 
+    // Transparent border around the glyph bounds of a sprite
+    private static final int SPRITE_MARGIN = 1;
+
+    // Images with at least this many pixels are rendered in parallel bands (default 4 MP)
+    @Value("${signature.watermark.tiledThreshold:4000000}")
+    private long tiledPixelThreshold = 4_000_000L;
+
+    // Height of one band in rows
+    @Value("${signature.watermark.bandHeight:256}")
+    private int bandHeight = 256;
+
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    @Autowired(required = false)
+    private WatermarkSpriteCache spriteCache;
+
+    @Autowired(required = false)
+    private SigningMetrics signingMetrics;
+
     public byte[] addVisibleWatermark(MultipartFile imageFile, String watermarkText, 
                                      float opacity, int fontSize) throws IOException {
         System.out.println("Processing image: " + imageFile.getOriginalFilename());
@@ -24,7 +50,9 @@ public class VisibleWatermarkService {
         
         try {
             // Convert MultipartFile to BufferedImage
-            BufferedImage originalImage = ImageIO.read(imageFile.getInputStream());
+            String metricFormat = SigningMetrics.formatOf(imageFile.getOriginalFilename());
+            BufferedImage originalImage = SigningMetrics.timed(signingMetrics, "decode", metricFormat,
+                    () -> ImageIO.read(imageFile.getInputStream()));
             
             if (originalImage == null) {
                 System.out.println("Failed to read image - ImageIO returned null");
@@ -32,41 +60,11 @@ public class VisibleWatermarkService {
             }
             
             System.out.println("Original image dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+            SigningMetrics.recordPixels(signingMetrics, metricFormat,
+                    (long) originalImage.getWidth() * originalImage.getHeight());
             
-            // Create a compatible BufferedImage with RGB color model
-            BufferedImage watermarkedImage = new BufferedImage(
-                originalImage.getWidth(), 
-                originalImage.getHeight(), 
-                BufferedImage.TYPE_INT_RGB
-            );
-            
-            // Get graphics context and draw original image
-            Graphics2D g2d = watermarkedImage.createGraphics();
-            g2d.drawImage(originalImage, 0, 0, null);
-            
-            // Set font properties for watermark
-            g2d.setFont(new Font("Arial", Font.BOLD, fontSize));
-            g2d.setColor(Color.WHITE);
-            
-            // Apply transparency
-            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
-            
-            // Calculate position (diagonal)
-            int textWidth = g2d.getFontMetrics().stringWidth(watermarkText);
-            int x = (originalImage.getWidth() - textWidth) / 2;
-            int y = originalImage.getHeight() / 2;
-            
-            // Draw the watermark text
-            g2d.drawString(watermarkText, x, y);
-            
-            // Add drop shadow for visibility on all backgrounds
-            g2d.setColor(Color.BLACK);
-            g2d.drawString(watermarkText, x+2, y+2);
-            g2d.setColor(Color.WHITE);
-            g2d.drawString(watermarkText, x, y);
-            
-            // Clean up
-            g2d.dispose();
+            BufferedImage watermarkedImage = SigningMetrics.timed(signingMetrics, "render", metricFormat,
+                    () -> renderWatermark(originalImage, watermarkText, opacity, fontSize));
             
             // Convert back to byte array
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -74,7 +72,8 @@ public class VisibleWatermarkService {
             
             System.out.println("Using image format for output: " + formatName);
             
-            boolean success = ImageIO.write(watermarkedImage, formatName, outputStream);
+            boolean success = SigningMetrics.timed(signingMetrics, "encode", metricFormat,
+                    () -> ImageIO.write(watermarkedImage, formatName, outputStream));
             
             if (!success) {
                 System.out.println("Failed to write image - no appropriate writer found for format: " + formatName);
@@ -92,6 +91,194 @@ public class VisibleWatermarkService {
         }
     }
     
+    /**
+     * Copies the image into a TYPE_INT_RGB buffer and blits the cached watermark sprite on it.
+     * Images of at least tiledPixelThreshold pixels are rendered in horizontal bands on the
+     * ForkJoin pool; the result is identical to the single-threaded rendering.
+     */
+    BufferedImage renderWatermark(BufferedImage originalImage, String watermarkText,
+                                  float opacity, int fontSize) {
+        WatermarkSpriteCache.Sprite sprite = getSprite(watermarkText, fontSize, opacity);
+        long pixels = (long) originalImage.getWidth() * originalImage.getHeight();
+        if (pixels < tiledPixelThreshold || originalImage.getHeight() <= bandHeight) {
+            return renderSingle(originalImage, sprite);
+        }
+        return renderTiled(originalImage, sprite);
+    }
+    
+    private BufferedImage renderSingle(BufferedImage originalImage, WatermarkSpriteCache.Sprite sprite) {
+        // Create a compatible BufferedImage with RGB color model
+        BufferedImage watermarkedImage = new BufferedImage(
+            originalImage.getWidth(), 
+            originalImage.getHeight(), 
+            BufferedImage.TYPE_INT_RGB
+        );
+        
+        // Get graphics context and draw original image
+        Graphics2D g2d = watermarkedImage.createGraphics();
+        g2d.drawImage(originalImage, 0, 0, null);
+        
+        // Watermark is a single alpha blit of the pre-rendered sprite
+        SpritePlacement placement = new SpritePlacement(originalImage, sprite);
+        placement.draw(g2d);
+        
+        // Clean up
+        g2d.dispose();
+        return watermarkedImage;
+    }
+    
+    private BufferedImage renderTiled(BufferedImage originalImage, WatermarkSpriteCache.Sprite sprite) {
+        BufferedImage watermarkedImage = new BufferedImage(
+            originalImage.getWidth(), 
+            originalImage.getHeight(), 
+            BufferedImage.TYPE_INT_RGB
+        );
+        
+        SpritePlacement placement = new SpritePlacement(originalImage, sprite);
+        pool.invoke(new BandTask(originalImage, watermarkedImage, 0, originalImage.getHeight(), placement));
+        return watermarkedImage;
+    }
+    
+    /**
+     * Sprite for (text, fontSize, opacity) from the cache, rendered on a miss
+     */
+    private WatermarkSpriteCache.Sprite getSprite(String watermarkText, int fontSize, float opacity) {
+        if (spriteCache == null) {
+            return createSprite(watermarkText, fontSize, opacity);
+        }
+        WatermarkSpriteCache.Sprite sprite = spriteCache.get(watermarkText, fontSize, opacity);
+        if (sprite == null) {
+            sprite = createSprite(watermarkText, fontSize, opacity);
+            spriteCache.put(watermarkText, fontSize, opacity, sprite);
+        }
+        return sprite;
+    }
+    
+    /**
+     * Renders the text and its 2px drop shadow, with the opacity already applied, into a
+     * transparent ARGB image just large enough to hold the glyphs
+     */
+    private WatermarkSpriteCache.Sprite createSprite(String watermarkText, int fontSize, float opacity) {
+        // Set font properties for watermark
+        Font font = new Font("Arial", Font.BOLD, fontSize);
+        
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D measure = scratch.createGraphics();
+        measure.setFont(font);
+        FontMetrics metrics = measure.getFontMetrics();
+        FontRenderContext frc = measure.getFontRenderContext();
+        measure.dispose();
+        
+        int textWidth = metrics.stringWidth(watermarkText);
+        
+        // Glyph pixel bounds relative to the text origin, plus the shifted shadow
+        Rectangle bounds = font.createGlyphVector(frc, watermarkText).getPixelBounds(frc, 0, 0);
+        if (bounds.isEmpty()) {
+            return new WatermarkSpriteCache.Sprite(null, 0, 0, textWidth);
+        }
+        Rectangle shadow = new Rectangle(bounds);
+        shadow.translate(2, 2);
+        bounds = bounds.union(shadow);
+        bounds.grow(SPRITE_MARGIN, SPRITE_MARGIN);
+        
+        BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setFont(font);
+        g2d.setColor(Color.WHITE);
+        
+        // Apply transparency
+        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+        
+        // Draw the watermark text
+        int x = -bounds.x;
+        int y = -bounds.y;
+        g2d.drawString(watermarkText, x, y);
+        
+        // Add drop shadow for visibility on all backgrounds
+        g2d.setColor(Color.BLACK);
+        g2d.drawString(watermarkText, x + 2, y + 2);
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(watermarkText, x, y);
+        
+        g2d.dispose();
+        return new WatermarkSpriteCache.Sprite(image, bounds.x, bounds.y, textWidth);
+    }
+    
+    /**
+     * Position of the sprite in the target: text centered horizontally, baseline at half height
+     */
+    private static final class SpritePlacement {
+        
+        private final BufferedImage image;
+        private final int left;
+        private final int top;
+        
+        SpritePlacement(BufferedImage originalImage, WatermarkSpriteCache.Sprite sprite) {
+            // Calculate position (diagonal)
+            int x = (originalImage.getWidth() - sprite.getTextWidth()) / 2;
+            int y = originalImage.getHeight() / 2;
+            this.image = sprite.getImage();
+            this.left = x + sprite.getOffsetX();
+            this.top = y + sprite.getOffsetY();
+        }
+        
+        boolean intersectsRows(int startRow, int endRow) {
+            return image != null && top < endRow && top + image.getHeight() > startRow;
+        }
+        
+        void draw(Graphics2D g2d) {
+            if (image != null) {
+                g2d.drawImage(image, left, top, null);
+            }
+        }
+    }
+    
+    /**
+     * Converts rows [startRow, endRow) into the target and blits the sprite on the bands
+     * it intersects; ranges larger than bandHeight are split and forked
+     */
+    private final class BandTask extends RecursiveAction {
+        
+        private final BufferedImage source;
+        private final BufferedImage target;
+        private final int startRow;
+        private final int endRow;
+        private final SpritePlacement placement;
+        
+        BandTask(BufferedImage source, BufferedImage target, int startRow, int endRow,
+                 SpritePlacement placement) {
+            this.source = source;
+            this.target = target;
+            this.startRow = startRow;
+            this.endRow = endRow;
+            this.placement = placement;
+        }
+        
+        @Override
+        protected void compute() {
+            if (endRow - startRow > bandHeight) {
+                int middle = startRow + (endRow - startRow) / 2;
+                invokeAll(new BandTask(source, target, startRow, middle, placement),
+                          new BandTask(source, target, middle, endRow, placement));
+                return;
+            }
+            
+            int width = target.getWidth();
+            Graphics2D g2d = target.createGraphics();
+            try {
+                g2d.setClip(0, startRow, width, endRow - startRow);
+                g2d.drawImage(source, 0, 0, null);
+                
+                // Only bands that intersect the sprite are composited
+                if (placement.intersectsRows(startRow, endRow)) {
+                    placement.draw(g2d);
+                }
+            } finally {
+                g2d.dispose();
+            }
+        }
+    }
+    
     private String getImageFormat(String filename) {
         if (filename == null || !filename.contains(".")) {
             return "jpg"; // default
@@ -0,0 +1,143 @@
+package com.example.digitalsignature.service;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache LRU untuk sprite watermark visible (teks + bayangan, alpha sudah diterapkan),
+ * dengan key (teks, ukuran font, opacity). Ukuran cache dibatasi dalam byte (piksel sprite, teks key
+ * dan overhead tetap per entri) dan dalam jumlah entri; jika penuh, sprite yang paling lama tidak
+ * dipakai dikeluarkan lebih dulu.
+ */
+@Component
+public class WatermarkSpriteCache {
+
+    @Value("${signature.watermark.spriteCache.maxBytes:67108864}")
+    private long maxBytes = 64L * 1024 * 1024;
+
+    // Sprite untuk teks kosong/spasi tidak punya piksel; batas ini tetap membatasi jumlah key-nya
+    @Value("${signature.watermark.spriteCache.maxEntries:4096}")
+    private int maxEntries = 4096;
+
+    // Perkiraan objek Key, Sprite, String dan entri LinkedHashMap di luar piksel dan karakter teks
+    static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final LinkedHashMap<Key, Sprite> sprites = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Sprite yang tersimpan, atau null jika belum ada
+     */
+    public Sprite get(String text, int fontSize, float opacity) {
+        Sprite sprite;
+        synchronized (this) {
+            sprite = sprites.get(new Key(text, fontSize, opacity));
+        }
+        if (sprite == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return sprite;
+    }
+
+    public void put(String text, int fontSize, float opacity, Sprite sprite) {
+        long size = entryBytes(text, sprite);
+        if (size > maxBytes) {
+            return; // Sprite lebih besar dari seluruh cache, tidak disimpan
+        }
+        synchronized (this) {
+            Sprite previous = sprites.put(new Key(text, fontSize, opacity), sprite);
+            if (previous != null) {
+                currentBytes -= entryBytes(text, previous);
+            }
+            currentBytes += size;
+
+            Iterator<Map.Entry<Key, Sprite>> eldest = sprites.entrySet().iterator();
+            while ((currentBytes > maxBytes || sprites.size() > maxEntries) && eldest.hasNext()) {
+                Map.Entry<Key, Sprite> entry = eldest.next();
+                currentBytes -= entryBytes(entry.getKey().text(), entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long entryBytes(String text, Sprite sprite) {
+        return sprite.byteSize() + 2L * text.length() + ENTRY_OVERHEAD_BYTES;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (this) {
+            stats.put("size", sprites.size());
+            stats.put("bytes", currentBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    /**
+     * Opacity disimpan sebagai bit float agar equals/hashCode tepat sama dengan nilai request
+     */
+    private record Key(String text, int fontSize, int opacityBits) {
+
+        Key(String text, int fontSize, float opacity) {
+            this(text, fontSize, Float.floatToIntBits(opacity));
+        }
+    }
+
+    /**
+     * Overlay ARGB siap di-blit. offsetX/offsetY adalah posisi pojok kiri atas sprite relatif
+     * terhadap titik awal teks (baseline), textWidth dipakai untuk menengahkan teks.
+     */
+    public static final class Sprite {
+
+        private final BufferedImage image;
+        private final int offsetX;
+        private final int offsetY;
+        private final int textWidth;
+
+        Sprite(BufferedImage image, int offsetX, int offsetY, int textWidth) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.textWidth = textWidth;
+        }
+
+        long byteSize() {
+            return image != null ? 4L * image.getWidth() * image.getHeight() : 0;
+        }
+
+        BufferedImage getImage() {
+            return image;
+        }
+
+        int getOffsetX() {
+            return offsetX;
+        }
+
+        int getOffsetY() {
+            return offsetY;
+        }
+
+        int getTextWidth() {
+            return textWidth;
+        }
+    }
+}
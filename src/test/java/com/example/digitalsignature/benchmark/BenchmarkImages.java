@@ -0,0 +1,53 @@
+package com.example.digitalsignature.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Gambar sintetis untuk benchmark: gradien + noise RGB, supaya ukuran PNG/JPEG mendekati foto asli
+ * (gambar polos terkompresi terlalu kecil dan membuat encode tampak lebih cepat dari kenyataan).
+ */
+final class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * Resolusi dalam format "LEBARxTINGGI", misalnya "1920x1080"
+     */
+    static BufferedImage create(String resolution) {
+        String[] parts = resolution.toLowerCase().split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                int b = ((x + y) & 0xFF) ^ random.nextInt(16);
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    static MockMultipartFile upload(byte[] data, String format) {
+        return new MockMultipartFile("file", "benchmark." + format, "image/" + format, data);
+    }
+}
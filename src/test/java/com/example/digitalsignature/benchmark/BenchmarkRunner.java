@@ -0,0 +1,48 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Menjalankan benchmark JMH sekali untuk setiap jumlah thread dan menulis hasilnya sebagai JSON
+ * ({@code jmh-threads-N.json}), supaya bisa dibandingkan antar rilis.
+ * System property:
+ * <ul>
+ * <li>{@code benchmark.include} - regex nama benchmark (default semua benchmark di package ini)</li>
+ * <li>{@code benchmark.threads} - daftar jumlah thread dipisah koma (default "1,4")</li>
+ * <li>{@code benchmark.output} - direktori hasil JSON (default target/jmh)</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String include = System.getProperty("benchmark.include", BenchmarkRunner.class.getPackageName() + "\\..*Benchmark");
+        String threadList = System.getProperty("benchmark.threads", "1,4");
+        Path outputDir = Paths.get(System.getProperty("benchmark.output", "target/jmh"));
+        Files.createDirectories(outputDir);
+
+        for (String value : threadList.split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Path result = outputDir.resolve("jmh-threads-" + threads + ".json");
+
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.toString())
+                    .build();
+            new Runner(options).run();
+
+            System.out.println("Hasil benchmark " + threads + " thread: " + result.toAbsolutePath());
+        }
+    }
+}
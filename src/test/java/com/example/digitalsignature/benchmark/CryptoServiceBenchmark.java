@@ -0,0 +1,67 @@
+package com.example.digitalsignature.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.digitalsignature.service.CryptoService;
+
+/**
+ * hashWithBlake3 untuk beberapa ukuran payload, serta signData dan verifySignature atas hash payload
+ * yang sudah dihitung di setup (sama seperti endpoint /sign). Biaya tanda tangan tidak bergantung pada
+ * ukuran payload; skala terhadap ukuran hanya diukur oleh hashWithBlake3.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CryptoServiceBenchmark {
+
+    private static final long VALIDITY = 7 * 24L * 60 * 60 * 1000;
+
+    // Byte: 1 KiB, 1 MiB, 16 MiB (di atas ambang hashing paralel default 8 MiB)
+    @Param({"1024", "1048576", "16777216"})
+    public int payloadSize;
+
+    private CryptoService cryptoService;
+    private byte[] payload;
+    private byte[] hash;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        cryptoService = new CryptoService();
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        hash = cryptoService.digestBlake3(payload);
+        token = cryptoService.signData(hash, VALIDITY);
+    }
+
+    @Benchmark
+    public String hashWithBlake3() {
+        return cryptoService.hashWithBlake3(payload);
+    }
+
+    @Benchmark
+    public String signData() throws Exception {
+        return cryptoService.signData(hash, VALIDITY);
+    }
+
+    @Benchmark
+    public boolean verifySignature() throws Exception {
+        return cryptoService.verifySignature(hash, token);
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.digitalsignature.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.digitalsignature.DigitalSignatureApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Load test end-to-end untuk endpoint /api/signature/*. Aplikasi dijalankan di port acak di JVM yang sama,
+ * lalu sejumlah klien mengirim campuran request sign, verify, watermark dan QR dengan gambar sintetis
+ * beberapa ukuran. Latensi dicatat per endpoint dengan HdrHistogram (p50/p90/p99/p999) dan laporan
+ * ditulis sebagai JSON. Tidak butuh jaringan selain loopback.
+ * <p>
+ * Pengaturan lewat system property atau environment variable (LOAD_CLIENTS, dst.):
+ * <ul>
+ * <li>{@code load.clients} - jumlah klien paralel (default 16)</li>
+ * <li>{@code load.warmupSeconds} / {@code load.durationSeconds} - lama pemanasan dan pengukuran (5 / 30)</li>
+ * <li>{@code load.mix} - bobot skenario, misalnya "sign=4,verify=4,signWithWatermark=2,signWithVisibleWatermark=1,generateQR=2"</li>
+ * <li>{@code load.sizes} - resolusi gambar fixture, misalnya "640x480,1920x1080"</li>
+ * <li>{@code load.report} - file laporan JSON (default target/load/report.json)</li>
+ * </ul>
+ * Klien memakai thread pool biasa (proyek ini Java 17, belum ada virtual thread).
+ */
+public final class LoadHarness {
+
+    private static final String DEFAULT_MIX =
+            "sign=4,verify=4,signWithWatermark=2,signWithVisibleWatermark=1,generateQR=2";
+
+    // Latensi dicatat dalam mikrodetik, sampai 10 menit
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final List<Fixture> fixtures = new ArrayList<>();
+    private final Map<String, ConcurrentHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+    private final String[] weightedScenarios;
+
+    private LoadHarness(String baseUrl, String mix) {
+        this.baseUrl = baseUrl;
+        List<String> scenarios = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            String name = parts[0].trim();
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (!List.of("sign", "verify", "signWithWatermark", "signWithVisibleWatermark", "generateQR").contains(name)) {
+                throw new IllegalArgumentException("Skenario tidak dikenal: " + name);
+            }
+            latencies.put(name, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(name, new LongAdder());
+            for (int i = 0; i < weight; i++) {
+                scenarios.add(name);
+            }
+        }
+        weightedScenarios = scenarios.toArray(new String[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.parseInt(setting("load.clients", "16"));
+        int warmupSeconds = Integer.parseInt(setting("load.warmupSeconds", "5"));
+        int durationSeconds = Integer.parseInt(setting("load.durationSeconds", "30"));
+        String mix = setting("load.mix", DEFAULT_MIX);
+        String sizes = setting("load.sizes", "640x480,1920x1080");
+        Path reportFile = Paths.get(setting("load.report", "target/load/report.json"));
+
+        ConfigurableApplicationContext context = SpringApplication.run(DigitalSignatureApplication.class,
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.digitalsignature=WARN",
+                "--logging.level.org.springframework.web=WARN");
+        PrintStream console = System.out;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadHarness harness = new LoadHarness("http://localhost:" + port + "/api/signature", mix);
+            harness.prepareFixtures(sizes.split(","));
+
+            // Service mencetak log per request ke System.out; dibungkam selama pengukuran
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            harness.run(clients, warmupSeconds, false);
+            long start = System.nanoTime();
+            harness.run(clients, durationSeconds, true);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            System.setOut(console);
+
+            Map<String, Object> report = harness.report(clients, durationSeconds, elapsedSeconds, mix, sizes);
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+            JSON.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+            harness.printSummary(elapsedSeconds);
+            System.out.println("Laporan: " + reportFile.toAbsolutePath());
+        } finally {
+            System.setOut(console);
+            context.close();
+        }
+    }
+
+    /**
+     * Gambar PNG sintetis untuk setiap resolusi, ditandatangani sekali lewat /sign supaya skenario
+     * verify dan generateQR punya hash + signature yang valid
+     */
+    private void prepareFixtures(String[] resolutions) throws Exception {
+        for (String resolution : resolutions) {
+            byte[] png = BenchmarkImages.encode(BenchmarkImages.create(resolution.trim()), "png");
+            Fixture fixture = new Fixture(resolution.trim(), png);
+            HttpResponse<byte[]> response = send(new Multipart().file("file", fixture.fileName(), png), "/sign");
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Gagal menyiapkan fixture " + resolution + ": HTTP " + response.statusCode());
+            }
+            JsonNode signed = JSON.readTree(response.body());
+            fixture.hash = signed.get("hash").asText();
+            fixture.signature = signed.get("signature").asText();
+            fixtures.add(fixture);
+            System.out.println("Fixture " + resolution + ": " + png.length + " byte");
+        }
+    }
+
+    private void run(int clients, int seconds, boolean record) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                workers.add(pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(record);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void execute(boolean record) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String scenario = weightedScenarios[random.nextInt(weightedScenarios.length)];
+        Fixture fixture = fixtures.get(random.nextInt(fixtures.size()));
+
+        Multipart body = new Multipart();
+        switch (scenario) {
+            case "sign":
+                body.file("file", fixture.fileName(), fixture.png);
+                break;
+            case "verify":
+                body.file("file", fixture.fileName(), fixture.png).field("signature", fixture.signature);
+                break;
+            case "signWithWatermark":
+                body.file("file", fixture.fileName(), fixture.png).field("ownerInfo", "Load Test");
+                break;
+            case "signWithVisibleWatermark":
+                body.file("file", fixture.fileName(), fixture.png).field("watermarkText", "LOAD TEST");
+                break;
+            default:
+                body.field("hash", fixture.hash).field("signature", fixture.signature)
+                        .field("designerName", "Load Test");
+                break;
+        }
+
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = send(body, "/" + scenario).statusCode() < 400;
+        } catch (Exception e) {
+            ok = false;
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+
+        if (record) {
+            latencies.get(scenario).recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+            if (!ok) {
+                errors.get(scenario).increment();
+            }
+        }
+    }
+
+    private HttpResponse<byte[]> send(Multipart body, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "multipart/form-data; boundary=" + body.boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.finish()))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private Map<String, Object> report(int clients, int durationSeconds, double elapsedSeconds,
+                                       String mix, String sizes) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("clients", clients);
+        config.put("durationSeconds", durationSeconds);
+        config.put("mix", mix);
+        config.put("sizes", sizes);
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, ConcurrentHistogram> entry : latencies.entrySet()) {
+            ConcurrentHistogram histogram = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", histogram.getTotalCount());
+            stats.put("errors", errors.get(entry.getKey()).sum());
+            stats.put("throughputPerSecond", histogram.getTotalCount() / elapsedSeconds);
+            stats.put("meanMs", histogram.getMean() / 1000.0);
+            stats.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+            stats.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+            stats.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+            stats.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+            stats.put("maxMs", histogram.getMaxValue() / 1000.0);
+            endpoints.put(entry.getKey(), stats);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private void printSummary(double elapsedSeconds) {
+        System.out.printf("%-26s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, ConcurrentHistogram> entry : latencies.entrySet()) {
+            ConcurrentHistogram histogram = entry.getValue();
+            System.out.printf("%-26s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey(),
+                    histogram.getTotalCount(),
+                    errors.get(entry.getKey()).sum(),
+                    histogram.getTotalCount() / elapsedSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    // System property lebih dulu, lalu environment variable (load.clients -> LOAD_CLIENTS)
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name.replace('.', '_').replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase());
+        }
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    private static final class Fixture {
+        private final String resolution;
+        private final byte[] png;
+        private String hash;
+        private String signature;
+
+        private Fixture(String resolution, byte[] png) {
+            this.resolution = resolution;
+            this.png = png;
+        }
+
+        private String fileName() {
+            return "load-" + resolution + ".png";
+        }
+    }
+
+    /**
+     * Body multipart/form-data sederhana untuk HttpClient, yang tidak punya builder multipart bawaan
+     */
+    private static final class Multipart {
+        private final String boundary = "load-" + UUID.randomUUID();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private Multipart field(String name, String value) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                    + value + "\r\n");
+            return this;
+        }
+
+        private Multipart file(String name, String fileName, byte[] content) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name
+                    + "\"; filename=\"" + fileName + "\"\r\nContent-Type: image/png\r\n\r\n");
+            out.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        private byte[] finish() {
+            write("--" + boundary + "--\r\n");
+            return out.toByteArray();
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
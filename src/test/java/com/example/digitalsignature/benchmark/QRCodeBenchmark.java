@@ -0,0 +1,56 @@
+package com.example.digitalsignature.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.digitalsignature.service.QRCodeService;
+
+/**
+ * generateQRCodeBase64 tanpa cache untuk beberapa panjang isi QR dan ukuran gambar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QRCodeBenchmark {
+
+    // Karakter; isi QR tanda tangan teks biasanya sekitar 250-300 karakter
+    @Param({"64", "256", "1024"})
+    public int contentLength;
+
+    @Param({"250", "500"})
+    public int size;
+
+    private QRCodeService qrCodeService;
+    private String content;
+
+    @Setup
+    public void setup() {
+        qrCodeService = new QRCodeService();
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(contentLength);
+        for (int i = 0; i < contentLength; i++) {
+            builder.append((char) ('A' + random.nextInt(26)));
+        }
+        content = builder.toString();
+    }
+
+    @Benchmark
+    public String generateQRCodeBase64() throws Exception {
+        return qrCodeService.generateQRCodeBase64(content, size, size);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.digitalsignature.service.CryptoService;
+import com.example.digitalsignature.service.QRCodeService;
+
+/**
+ * Render QR code 250x250 (level H) untuk payload teks lama dibandingkan payload biner.
+ * QRCodeService dibuat tanpa cache, jadi setiap panggilan benar-benar meng-encode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QRPayloadBenchmark {
+
+    private QRCodeService qrCodeService;
+    private String textContent;
+    private String binaryContent;
+
+    @Setup
+    public void setup() throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        qrCodeService = new QRCodeService();
+
+        byte[] digest = cryptoService.digestBlake3("benchmark-payload".getBytes(StandardCharsets.UTF_8));
+        String hash = Base64.getEncoder().encodeToString(digest);
+        String signature = cryptoService.signDigest(digest);
+
+        textContent = qrCodeService.createTextQRContent(hash, signature, "Benchmark Designer");
+        binaryContent = qrCodeService.createBinaryQRContent(hash, signature, "Benchmark Designer");
+    }
+
+    @Benchmark
+    public String renderTextPayload() throws Exception {
+        return qrCodeService.generateQRCodeBase64(textContent, 250, 250);
+    }
+
+    @Benchmark
+    public String renderBinaryPayload() throws Exception {
+        return qrCodeService.generateQRCodeBase64(binaryContent, 250, 250);
+    }
+
+    public static void main(String[] args) throws Exception {
+        QRPayloadBenchmark state = new QRPayloadBenchmark();
+        state.setup();
+        System.out.println("Payload teks: " + state.textContent.length() + " karakter, versi QR "
+                + state.qrCodeService.getQRVersion(state.textContent));
+        System.out.println("Payload biner: " + state.binaryContent.length() + " byte, versi QR "
+                + state.qrCodeService.getQRVersion(state.binaryContent));
+
+        Options options = new OptionsBuilder()
+                .include(QRPayloadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
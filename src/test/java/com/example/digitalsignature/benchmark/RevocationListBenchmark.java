@@ -0,0 +1,101 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.digitalsignature.service.RevocationList;
+
+/**
+ * RevocationList.isRevoked untuk tanda tangan yang tidak dicabut (jalur Bloom filter)
+ * dan yang dicabut (Bloom filter + pencarian biner), dengan jumlah pencabutan yang berbeda.
+ * Latensi jalur tidak dicabut seharusnya tetap datar berapa pun ukuran daftarnya.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevocationListBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"0", "10000", "1000000"})
+    public int revokedCount;
+
+    private Path file;
+    private RevocationList revocationList;
+    private byte[][] revoked;
+    private byte[][] notRevoked;
+    private String token;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Files.createTempFile("revocations-", ".log");
+        revocationList = new RevocationList();
+        ReflectionTestUtils.setField(revocationList, "file", file.toString());
+        revocationList.load();
+
+        Random random = new Random(42);
+        List<byte[]> digests = new ArrayList<>(revokedCount);
+        for (int i = 0; i < revokedCount; i++) {
+            digests.add(randomDigest(random));
+        }
+        revocationList.revoke(digests, List.of());
+
+        revoked = new byte[PROBES][];
+        notRevoked = new byte[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            revoked[i] = revokedCount > 0 ? digests.get(random.nextInt(revokedCount)) : randomDigest(random);
+            notRevoked[i] = randomDigest(random);
+        }
+        token = "MEUCIQDxampleSignatureTokenForBenchmarkOnly0123456789abcdef:4102444800000";
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        revocationList.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static byte[] randomDigest(Random random) {
+        byte[] digest = new byte[32];
+        random.nextBytes(digest);
+        return digest;
+    }
+
+    @Benchmark
+    public boolean notRevokedDigest() {
+        return revocationList.isRevoked(notRevoked[next++ & (PROBES - 1)], null);
+    }
+
+    @Benchmark
+    public boolean revokedDigest() {
+        return revocationList.isRevoked(revoked[next++ & (PROBES - 1)], null);
+    }
+
+    // Digest dan token sekaligus, seperti di CryptoService.verifyDigest
+    @Benchmark
+    public boolean notRevokedDigestAndToken() {
+        return revocationList.isRevoked(notRevoked[next++ & (PROBES - 1)], token);
+    }
+}
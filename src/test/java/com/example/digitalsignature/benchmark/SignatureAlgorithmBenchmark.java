@@ -0,0 +1,67 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.digitalsignature.service.CryptoService;
+
+/**
+ * Throughput signDigest dan verifyDigest untuk ECDSA P-256 (ES256) dibandingkan Ed25519,
+ * dengan token compact (hash Base64 + expiry) dan digest (digest BLAKE3 mentah).
+ * Jumlah thread diatur lewat BenchmarkRunner, misalnya:
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.include=SignatureAlgorithmBenchmark -Dbenchmark.threads=1,4,16
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureAlgorithmBenchmark {
+
+    private static final long VALIDITY = 7 * 24L * 60 * 60 * 1000;
+
+    @Param({"ES256", "Ed25519"})
+    public String algorithm;
+
+    @Param({"compact", "digest"})
+    public String tokenFormat;
+
+    private CryptoService cryptoService;
+    private byte[] digest;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        cryptoService = new CryptoService();
+        cryptoService.setDefaultAlgorithm(algorithm);
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", tokenFormat);
+
+        digest = cryptoService.digestBlake3("benchmark-payload".getBytes(StandardCharsets.UTF_8));
+        token = cryptoService.signDigest(digest, VALIDITY);
+    }
+
+    @Benchmark
+    public String sign() throws Exception {
+        return cryptoService.signDigest(digest, VALIDITY);
+    }
+
+    // Tanpa VerificationCache (CryptoService di luar Spring), jadi setiap panggilan benar-benar memverifikasi
+    @Benchmark
+    public boolean verify() throws Exception {
+        return cryptoService.verifyDigest(digest, token);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.digitalsignature.service.CryptoService;
+
+/**
+ * Biaya per tanda tangan: Signature.getInstance + initSign/initVerify di setiap panggilan
+ * (cara lama) dibandingkan engine per thread di CryptoService, pada 1, 8 dan 32 thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureEngineBenchmark {
+
+    private static final String ALGORITHM = "SHA256withECDSA";
+    private static final long VALIDITY = 7 * 24L * 60 * 60 * 1000;
+
+    private CryptoService cryptoService;
+    private KeyPair freshKeyPair;
+    private byte[] hash;
+    private String pooledToken;
+    private String freshToken;
+
+    @Setup
+    public void setup() throws Exception {
+        cryptoService = new CryptoService();
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+        keyGen.initialize(256);
+        freshKeyPair = keyGen.generateKeyPair();
+
+        hash = cryptoService.hashWithBlake3("benchmark-payload".getBytes(StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        pooledToken = cryptoService.signData(hash, VALIDITY);
+        freshToken = signFresh(hash, VALIDITY);
+    }
+
+    @Benchmark
+    public String signFreshEngine() throws Exception {
+        return signFresh(hash, VALIDITY);
+    }
+
+    @Benchmark
+    public String signPooledEngine() throws Exception {
+        return cryptoService.signData(hash, VALIDITY);
+    }
+
+    @Benchmark
+    public boolean verifyFreshEngine() throws Exception {
+        return verifyFresh(hash, freshToken);
+    }
+
+    @Benchmark
+    public boolean verifyPooledEngine() throws Exception {
+        return cryptoService.verifySignature(hash, pooledToken);
+    }
+
+    // Salinan jalur lama CryptoService.signData sebagai baseline
+    private String signFresh(byte[] data, long validityMillis) throws Exception {
+        long expiryTime = System.currentTimeMillis() + validityMillis;
+        byte[] dataToSign = ByteBuffer.allocate(data.length + 8).put(data).putLong(expiryTime).array();
+        Signature signature = Signature.getInstance(ALGORITHM);
+        signature.initSign(freshKeyPair.getPrivate());
+        signature.update(dataToSign);
+        return Base64.getEncoder().encodeToString(signature.sign()) + ":" + expiryTime;
+    }
+
+    // Salinan jalur lama CryptoService.verifySignature sebagai baseline
+    private boolean verifyFresh(byte[] data, String token) throws Exception {
+        String[] parts = token.split(":");
+        long expiryTime = Long.parseLong(parts[1]);
+        byte[] dataToVerify = ByteBuffer.allocate(data.length + 8).put(data).putLong(expiryTime).array();
+        Signature signature = Signature.getInstance(ALGORITHM);
+        signature.initVerify(freshKeyPair.getPublic());
+        signature.update(dataToVerify);
+        return signature.verify(Base64.getDecoder().decode(parts[0]));
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : new int[] {1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(SignatureEngineBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
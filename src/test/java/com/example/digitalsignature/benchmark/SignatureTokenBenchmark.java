@@ -0,0 +1,95 @@
+package com.example.digitalsignature.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.digitalsignature.service.CryptoService;
+import com.example.digitalsignature.service.SignatureToken;
+
+/**
+ * Parsing dan verifikasi token legacy (Base64 DER + ":" + expiry) dibandingkan token compact,
+ * pada 1, 8 dan 32 thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureTokenBenchmark {
+
+    private static final long VALIDITY = 7 * 24L * 60 * 60 * 1000;
+
+    private CryptoService legacyService;
+    private CryptoService compactService;
+    private byte[] hash;
+    private String legacyToken;
+    private String compactToken;
+
+    @Setup
+    public void setup() throws Exception {
+        legacyService = new CryptoService();
+        compactService = new CryptoService();
+        ReflectionTestUtils.setField(compactService, "tokenFormat", "compact");
+
+        hash = legacyService.hashWithBlake3("benchmark-payload".getBytes(StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        legacyToken = legacyService.signData(hash, VALIDITY);
+        compactToken = compactService.signData(hash, VALIDITY);
+    }
+
+    // Cara parsing lama: split(":") + Long.parseLong + Base64 decode
+    @Benchmark
+    public void parseLegacySplit(Blackhole blackhole) {
+        String[] parts = legacyToken.split(":");
+        blackhole.consume(Long.parseLong(parts[1]));
+        blackhole.consume(Base64.getDecoder().decode(parts[0]));
+    }
+
+    @Benchmark
+    public SignatureToken parseLegacyToken() {
+        return SignatureToken.parse(legacyToken);
+    }
+
+    @Benchmark
+    public SignatureToken parseCompactToken() {
+        return SignatureToken.parse(compactToken);
+    }
+
+    @Benchmark
+    public boolean verifyLegacyToken() throws Exception {
+        return legacyService.verifySignature(hash, legacyToken);
+    }
+
+    @Benchmark
+    public boolean verifyCompactToken() throws Exception {
+        return compactService.verifySignature(hash, compactToken);
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : new int[] {1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(SignatureTokenBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.digitalsignature.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.digitalsignature.service.SteganographyService;
+
+/**
+ * Embed watermark LSB (decode + embed + encode PNG), ekstraksi watermark,
+ * dan kompresi JPEG sebelum Base64, untuk beberapa resolusi gambar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SteganographyBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String resolution;
+
+    private SteganographyService steganographyService;
+    private MockMultipartFile upload;
+    private byte[] pngData;
+    private byte[] watermarkedData;
+
+    @Setup
+    public void setup() throws Exception {
+        steganographyService = new SteganographyService();
+        pngData = BenchmarkImages.encode(BenchmarkImages.create(resolution), "png");
+        upload = BenchmarkImages.upload(pngData, "png");
+        watermarkedData = steganographyService.embedWatermark(upload, "Benchmark Owner");
+    }
+
+    @Benchmark
+    public byte[] embedWatermark() throws Exception {
+        return steganographyService.embedWatermark(upload, "Benchmark Owner");
+    }
+
+    @Benchmark
+    public String extractWatermark() throws Exception {
+        return steganographyService.extractWatermark(watermarkedData);
+    }
+
+    @Benchmark
+    public byte[] compressBeforeBase64() throws Exception {
+        return steganographyService.compressBeforeBase64(pngData, 0.7f);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.digitalsignature.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.digitalsignature.service.VisibleWatermarkService;
+
+/**
+ * addVisibleWatermark (decode + render + encode) untuk beberapa resolusi dan format gambar.
+ * Service dibuat tanpa cache sprite, jadi setiap panggilan juga merender teks watermark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisibleWatermarkBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String resolution;
+
+    @Param({"png", "jpg"})
+    public String format;
+
+    private VisibleWatermarkService visibleWatermarkService;
+    private MockMultipartFile upload;
+
+    @Setup
+    public void setup() throws Exception {
+        visibleWatermarkService = new VisibleWatermarkService();
+        upload = BenchmarkImages.upload(
+                BenchmarkImages.encode(BenchmarkImages.create(resolution), format.equals("jpg") ? "jpeg" : format),
+                format);
+    }
+
+    @Benchmark
+    public byte[] addVisibleWatermark() throws Exception {
+        return visibleWatermarkService.addVisibleWatermark(upload, "COPYRIGHT BENCHMARK", 0.5f, 36);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * Blake3TreeHasher harus menghasilkan digest yang sama persis dengan library BLAKE3 referensi,
+ * termasuk di batas chunk (1024 byte) dan batas subtree sekuensial (256 KiB).
+ */
+class Blake3TreeHasherTest {
+
+    private static final int KIB = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final Blake3TreeHasher treeHasher = new Blake3TreeHasher(ForkJoinPool.commonPool());
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 63, 64, 65, 1023, 1024, 1025, 2048, 3 * 1024 + 7,
+            256 * KIB - 1, 256 * KIB, 256 * KIB + 1, 1024 * KIB + 513})
+    void matchesReferenceLibrary(int length) {
+        byte[] data = randomBytes(length, length);
+
+        assertArrayEquals(reference(data), treeHasher.digest(ByteBuffer.wrap(data)), "panjang " + length);
+    }
+
+    @Test
+    void readsFromBufferPositionZeroToLimit() {
+        byte[] data = randomBytes(300 * KIB, 7);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        buffer.position(100);
+
+        assertArrayEquals(reference(data), treeHasher.digest(buffer));
+        // Posisi buffer pemanggil tidak diubah
+        assertEquals(100, buffer.position());
+    }
+
+    @Test
+    void fileJustAboveParallelThresholdMatchesStreamingDigest() throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        int threshold = 1024 * KIB;
+        ReflectionTestUtils.setField(cryptoService, "parallelHashThreshold", (long) threshold);
+
+        byte[] data = randomBytes(threshold + 1, 11);
+        Path file = tempDir.resolve("large.bin");
+        Files.write(file, data);
+
+        // digestBlake3(Path) memakai memory map + Blake3TreeHasher di atas threshold
+        assertArrayEquals(reference(data), cryptoService.digestBlake3(file));
+    }
+
+    @Test
+    void fileAboveDefaultParallelThresholdMatchesReference() throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        byte[] data = randomBytes((int) cryptoService.getParallelHashThreshold() + 1, 13);
+        Path file = tempDir.resolve("default-threshold.bin");
+        Files.write(file, data);
+
+        assertArrayEquals(reference(data), cryptoService.digestBlake3(file));
+    }
+
+    private static byte[] reference(byte[] data) {
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update(data);
+        return hasher.digest();
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
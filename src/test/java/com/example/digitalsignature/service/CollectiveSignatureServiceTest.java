@@ -0,0 +1,148 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tanda tangan kolektif terikat peran: token dari /sign atau dari pihak lain tidak valid untuk peran
+ * lain, tanda tangan pihak tidak dicatat di ledger, sedangkan format legacy HASH || designer || brand
+ * tetap diverifikasi seperti dulu.
+ */
+class CollectiveSignatureServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CollectiveSignatureService service = new CollectiveSignatureService();
+    private CryptoService cryptoService;
+    private ExecutorService executor;
+    private byte[] digest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cryptoService = new CryptoService();
+        executor = Executors.newFixedThreadPool(4);
+        ReflectionTestUtils.setField(service, "cryptoService", cryptoService);
+        ReflectionTestUtils.setField(service, "cryptoExecutor", executor);
+        digest = cryptoService.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void signedChainVerifies() throws Exception {
+        CollectiveSignature collective = null;
+        for (String role : List.of("designer", "manufacturer", "brand", "retailer")) {
+            collective = service.sign(digest, collective, role);
+        }
+
+        Map<String, Object> result = service.verify(digest, CollectiveSignature.parse(collective.encode()), false);
+
+        assertEquals(true, result.get("valid"));
+        assertEquals(4, ((List<?>) result.get("parties")).size());
+    }
+
+    @Test
+    void plainDigestTokenIsNotValidForAnyRole() throws Exception {
+        // Token biasa dari /sign (atau /lookup) atas digest dokumen yang sama
+        String plain = cryptoService.signDigest(digest);
+        CollectiveSignature forged = new CollectiveSignature(digest, List.of())
+                .with("designer", plain)
+                .with("manufacturer", plain)
+                .with("brand", plain);
+
+        Map<String, Object> result = service.verify(digest, forged, false);
+
+        assertEquals(false, result.get("valid"));
+        for (Object party : (List<?>) result.get("parties")) {
+            assertEquals(false, ((Map<?, ?>) party).get("valid"));
+        }
+    }
+
+    @Test
+    void tokenCannotMoveToAnotherRoleOrPosition() throws Exception {
+        CollectiveSignature signed = service.sign(digest, service.sign(digest, null, "designer"), "brand");
+        String designerToken = signed.getParties().get(0).getSignature();
+        String brandToken = signed.getParties().get(1).getSignature();
+
+        CollectiveSignature renamed = new CollectiveSignature(digest, List.of())
+                .with("manufacturer", designerToken);
+        CollectiveSignature swapped = new CollectiveSignature(digest, List.of())
+                .with("designer", brandToken)
+                .with("brand", designerToken);
+        CollectiveSignature brandFirst = new CollectiveSignature(digest, List.of())
+                .with("brand", brandToken);
+
+        assertEquals(false, service.verify(digest, renamed, false).get("valid"));
+        assertEquals(false, service.verify(digest, swapped, false).get("valid"));
+        assertEquals(false, service.verify(digest, brandFirst, false).get("valid"));
+    }
+
+    @Test
+    void legacyFormatUsesUnboundTokens() throws Exception {
+        String hash = Base64.getEncoder().encodeToString(digest);
+        String legacy = hash + "||" + cryptoService.signDigest(digest) + "||" + cryptoService.signDigest(digest);
+
+        CollectiveSignature collective = CollectiveSignature.parse(legacy);
+
+        assertEquals(true, service.verify(digest, collective, false).get("valid"));
+        assertThrows(IllegalArgumentException.class, () -> service.sign(digest, collective, "retailer"));
+    }
+
+    @Test
+    void partySignaturesAreNotRecordedInLedger() throws Exception {
+        SignatureLedger ledger = new SignatureLedger();
+        ReflectionTestUtils.setField(ledger, "directory", tempDir.resolve("ledger").toString());
+        ReflectionTestUtils.setField(ledger, "initialCapacity", 16);
+        ledger.open();
+        ReflectionTestUtils.setField(cryptoService, "signatureLedger", ledger);
+        try {
+            CollectiveSignature signed = service.sign(digest, service.sign(digest, null, "designer"), "brand");
+
+            assertEquals(true, service.verify(digest, signed, false).get("valid"));
+            for (byte[] message : signed.partyMessages()) {
+                assertNull(ledger.lookup(message));
+            }
+            assertNull(ledger.lookup(digest));
+            assertEquals(0, ledger.getStats().get("entries"));
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    void revokedDocumentInvalidatesEveryParty() throws Exception {
+        CollectiveSignature signed = service.sign(digest, null, "designer");
+        RevocationList revocationList = new RevocationList();
+        ReflectionTestUtils.setField(revocationList, "file", tempDir.resolve("revocations.log").toString());
+        revocationList.load();
+        ReflectionTestUtils.setField(cryptoService, "revocationList", revocationList);
+        try {
+            assertTrue((Boolean) service.verify(digest, signed, false).get("valid"));
+            revocationList.revoke(List.of(digest), List.of());
+            assertFalse((Boolean) service.verify(digest, signed, false).get("valid"));
+        } finally {
+            revocationList.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Encoding tanda tangan kolektif: round trip compact dengan token biner dan legacy, format lama
+ * HASH || designer || brand, batas jumlah pihak, input terpotong, dan pesan per pihak.
+ */
+class CollectiveSignatureTest {
+
+    private static final String LEGACY_TOKEN =
+            Base64.getEncoder().encodeToString(SignatureToken.rawToDer(raw(1))) + ":1700000000000:k001";
+    private static final String COMPACT_TOKEN =
+            SignatureToken.compact(SignatureToken.ALGORITHM_ES256, 1_700_000_000_000L, "k001", raw(2)).encode();
+    private static final String DIGEST_TOKEN =
+            SignatureToken.digest(SignatureToken.ALGORITHM_ED25519, 1_700_000_000_000L, null, raw(3)).encode();
+
+    private static byte[] digest() {
+        byte[] digest = new byte[32];
+        for (int i = 0; i < digest.length; i++) {
+            digest[i] = (byte) (i * 3);
+        }
+        return digest;
+    }
+
+    private static byte[] raw(int seed) {
+        byte[] raw = new byte[64];
+        Arrays.fill(raw, (byte) seed);
+        raw[0] = (byte) 0x80;
+        return raw;
+    }
+
+    @Test
+    void compactRoundTripWithBinaryAndLegacyTokens() {
+        CollectiveSignature collective = new CollectiveSignature(digest(), List.of())
+                .with(CollectiveSignature.ROLE_DESIGNER, COMPACT_TOKEN)
+                .with("manufacturer", LEGACY_TOKEN)
+                .with("pengecer ü", DIGEST_TOKEN);
+
+        String encoded = collective.encode();
+        CollectiveSignature decoded = CollectiveSignature.parse(encoded);
+
+        assertFalse(CollectiveSignature.isLegacy(encoded));
+        assertFalse(decoded.isLegacyFormat());
+        assertArrayEquals(digest(), decoded.getDigest());
+        assertEquals(3, decoded.getParties().size());
+        assertEquals("designer", decoded.getParties().get(0).getRole());
+        assertEquals(COMPACT_TOKEN, decoded.getParties().get(0).getSignature());
+        assertEquals(LEGACY_TOKEN, decoded.getParties().get(1).getSignature());
+        assertEquals("pengecer ü", decoded.getParties().get(2).getRole());
+        assertEquals(DIGEST_TOKEN, decoded.getParties().get(2).getSignature());
+        assertEquals(encoded, decoded.encode());
+    }
+
+    @Test
+    void binaryTokenIsStoredWithoutBase64() {
+        byte[] bytes = Base64.getUrlDecoder().decode(
+                new CollectiveSignature(digest(), List.of()).with("a", COMPACT_TOKEN).encode());
+        int tokenBytes = Base64.getUrlDecoder().decode(COMPACT_TOKEN).length;
+
+        // version | digest | jumlah | panjang peran | "a" | jenis | panjang token (u16) | token
+        assertEquals(1 + 32 + 1 + 1 + 1 + 1 + 2 + tokenBytes, bytes.length);
+        assertEquals(CollectiveSignature.VERSION_COMPACT, bytes[0]);
+        assertEquals(1, bytes[33]);
+        assertEquals(1, bytes[36]); // token biner
+    }
+
+    @Test
+    void legacyFormatIsParsed() {
+        String hash = Base64.getEncoder().encodeToString(digest());
+        String encoded = hash + "||" + LEGACY_TOKEN + "||" + COMPACT_TOKEN;
+
+        CollectiveSignature collective = CollectiveSignature.parse(encoded);
+
+        assertTrue(CollectiveSignature.isLegacy(encoded));
+        assertTrue(collective.isLegacyFormat());
+        assertArrayEquals(digest(), collective.getDigest());
+        assertEquals(CollectiveSignature.ROLE_DESIGNER, collective.getParties().get(0).getRole());
+        assertEquals(LEGACY_TOKEN, collective.getParties().get(0).getSignature());
+        assertEquals(CollectiveSignature.ROLE_BRAND, collective.getParties().get(1).getRole());
+        assertEquals(COMPACT_TOKEN, collective.getParties().get(1).getSignature());
+        assertEquals(encoded, collective.encodeLegacy());
+    }
+
+    @Test
+    void malformedLegacyIsRejected() {
+        String hash = Base64.getEncoder().encodeToString(digest());
+        assertThrows(IllegalArgumentException.class, () -> CollectiveSignature.parse(hash + "||" + LEGACY_TOKEN));
+        assertThrows(IllegalArgumentException.class,
+                () -> CollectiveSignature.parse(hash + "||a||b||c"));
+        assertThrows(IllegalArgumentException.class, () -> CollectiveSignature.parse(hash + "||||b"));
+        assertThrows(IllegalArgumentException.class, () -> CollectiveSignature.parse("AAAA||a||b"));
+        assertThrows(IllegalArgumentException.class, () -> CollectiveSignature.parse(""));
+    }
+
+    @Test
+    void maxPartiesIsEnforced() {
+        List<CollectiveSignature.Party> parties = new ArrayList<>();
+        for (int i = 0; i < CollectiveSignature.MAX_PARTIES; i++) {
+            parties.add(new CollectiveSignature.Party("r" + i, DIGEST_TOKEN));
+        }
+        CollectiveSignature full = new CollectiveSignature(digest(), parties);
+
+        CollectiveSignature decoded = CollectiveSignature.parse(full.encode());
+        assertEquals(CollectiveSignature.MAX_PARTIES, decoded.getParties().size());
+        assertEquals("r254", decoded.getParties().get(254).getRole());
+
+        assertThrows(IllegalArgumentException.class, () -> full.with("extra", DIGEST_TOKEN));
+        assertThrows(IllegalArgumentException.class, () -> full.nextPartyMessage("extra"));
+    }
+
+    @Test
+    void duplicateRoleAndBadDigestAreRejected() {
+        CollectiveSignature one = new CollectiveSignature(digest(), List.of()).with("brand", COMPACT_TOKEN);
+        assertThrows(IllegalArgumentException.class, () -> one.with("brand", DIGEST_TOKEN));
+        assertThrows(IllegalArgumentException.class, () -> new CollectiveSignature(new byte[31], List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new CollectiveSignature.Party("", COMPACT_TOKEN));
+        assertThrows(IllegalArgumentException.class, () -> new CollectiveSignature.Party("a".repeat(256), "x"));
+    }
+
+    @Test
+    void truncatedCompactIsRejected() {
+        CollectiveSignature collective = new CollectiveSignature(digest(), List.of())
+                .with(CollectiveSignature.ROLE_DESIGNER, COMPACT_TOKEN)
+                .with("retailer", LEGACY_TOKEN);
+        byte[] bytes = Base64.getUrlDecoder().decode(collective.encode());
+
+        for (int length = 0; length < bytes.length; length++) {
+            String truncated = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(bytes, length));
+            assertThrows(IllegalArgumentException.class, () -> CollectiveSignature.parse(truncated),
+                    "panjang " + length);
+        }
+
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> CollectiveSignature.parse(Base64.getUrlEncoder().withoutPadding().encodeToString(trailing)));
+
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[0] = 9;
+        assertThrows(IllegalArgumentException.class,
+                () -> CollectiveSignature.parse(Base64.getUrlEncoder().withoutPadding().encodeToString(unknownVersion)));
+    }
+
+    @Test
+    void partyMessagesBindRolePositionAndEarlierParties() {
+        CollectiveSignature empty = new CollectiveSignature(digest(), List.of());
+        byte[] designerMessage = empty.nextPartyMessage("designer");
+        CollectiveSignature one = empty.with("designer", COMPACT_TOKEN);
+        byte[] brandMessage = one.nextPartyMessage("brand");
+        CollectiveSignature two = one.with("brand", DIGEST_TOKEN);
+
+        List<byte[]> messages = two.partyMessages();
+        assertArrayEquals(designerMessage, messages.get(0));
+        assertArrayEquals(brandMessage, messages.get(1));
+
+        // Peran, posisi, pihak sebelumnya dan digest dokumen semuanya mengubah pesan
+        assertFalse(Arrays.equals(designerMessage, empty.nextPartyMessage("brand")));
+        assertFalse(Arrays.equals(brandMessage, empty.nextPartyMessage("brand")));
+        assertFalse(Arrays.equals(brandMessage,
+                empty.with("designer", LEGACY_TOKEN).nextPartyMessage("brand")));
+        assertFalse(Arrays.equals(designerMessage, digest()));
+        byte[] otherDigest = digest();
+        otherDigest[0] ^= 1;
+        assertFalse(Arrays.equals(designerMessage,
+                new CollectiveSignature(otherDigest, List.of()).nextPartyMessage("designer")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Ed25519 lewat CryptoService: tanda tangan dan verifikasi di semua format token, backend verifikasi
+ * dipilih dari id algoritma di token, dan token ES256 tetap valid saat Ed25519 menjadi default.
+ */
+class CryptoServiceTest {
+
+    private CryptoService cryptoService;
+    private byte[] digest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cryptoService = new CryptoService();
+        cryptoService.setDefaultAlgorithm("Ed25519");
+        digest = cryptoService.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"legacy", "compact", "digest"})
+    void ed25519SignsAndVerifiesInEveryFormat(String format) throws Exception {
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+
+        String token = cryptoService.signDigest(digest);
+        SignatureToken parsed = SignatureToken.parse(token);
+
+        // Ed25519 tidak punya format legacy (DER): "legacy" menghasilkan token compact
+        int expectedVersion = "digest".equals(format) ? SignatureToken.VERSION_DIGEST : SignatureToken.VERSION_COMPACT;
+        assertEquals(expectedVersion, parsed.getVersion());
+        assertEquals(SignatureToken.ALGORITHM_ED25519, parsed.getAlgorithm());
+        assertEquals(SignatureAlgorithm.ED25519,
+                cryptoService.getKeyRing().find(parsed.getKeyId()).getAlgorithm());
+        assertTrue(cryptoService.verifyDigest(digest, token));
+
+        byte[] tampered = digest.clone();
+        tampered[0] ^= 1;
+        assertFalse(cryptoService.verifyDigest(tampered, token));
+    }
+
+    @Test
+    void ed25519SignDataVerifiesThroughBase64Api() throws Exception {
+        byte[] hash = Base64.getEncoder().encode(digest);
+
+        String token = cryptoService.signData(hash);
+
+        assertEquals(SignatureToken.ALGORITHM_ED25519, SignatureToken.parse(token).getAlgorithm());
+        assertTrue(cryptoService.verifySignature(hash, token));
+        assertTrue(cryptoService.verifyDigest(digest, token));
+        assertFalse(cryptoService.verifySignature(Base64.getEncoder().encode(new byte[32]), token));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"compact", "digest"})
+    void algorithmIdInTokenSelectsBackend(String format) throws Exception {
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+        SignatureToken ed25519 = SignatureToken.parse(cryptoService.signDigest(digest));
+        SignatureToken es256 = SignatureToken.parse(
+                cryptoService.signDigest(digest, 60_000, null, SignatureAlgorithm.ES256));
+
+        // Tanda tangan 64 byte yang sama, dengan id algoritma yang ditukar: tidak valid dengan atau tanpa key id
+        for (String keyId : new String[] {ed25519.getKeyId(), null}) {
+            assertFalse(cryptoService.verifyDigest(digest, relabel(ed25519, SignatureToken.ALGORITHM_ES256, keyId)));
+        }
+        for (String keyId : new String[] {es256.getKeyId(), null}) {
+            assertFalse(cryptoService.verifyDigest(digest, relabel(es256, SignatureToken.ALGORITHM_ED25519, keyId)));
+        }
+        assertTrue(cryptoService.verifyDigest(digest, relabel(ed25519, SignatureToken.ALGORITHM_ED25519, null)));
+        assertTrue(cryptoService.verifyDigest(digest, relabel(es256, SignatureToken.ALGORITHM_ES256, null)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"legacy", "compact", "digest"})
+    void es256TokensVerifyWhileEd25519IsDefault(String format) throws Exception {
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+        cryptoService.setDefaultAlgorithm("ES256");
+        String before = cryptoService.signDigest(digest);
+        cryptoService.setDefaultAlgorithm("Ed25519");
+
+        String requested = cryptoService.signDigest(digest, 60_000, null, SignatureAlgorithm.ES256);
+        String ed25519 = cryptoService.signDigest(digest);
+
+        assertEquals(SignatureAlgorithm.ED25519, cryptoService.getDefaultAlgorithm());
+        assertEquals(SignatureToken.ALGORITHM_ES256, SignatureToken.parse(before).getAlgorithm());
+        assertEquals(SignatureToken.ALGORITHM_ES256, SignatureToken.parse(requested).getAlgorithm());
+        assertEquals(SignatureToken.ALGORITHM_ED25519, SignatureToken.parse(ed25519).getAlgorithm());
+        assertEquals("legacy".equals(format), SignatureToken.parse(requested).isLegacy());
+        assertTrue(cryptoService.verifyDigest(digest, before));
+        assertTrue(cryptoService.verifyDigest(digest, requested));
+        assertTrue(cryptoService.verifyDigest(digest, ed25519));
+    }
+
+    private static String relabel(SignatureToken token, int algorithm, String keyId) {
+        return SignatureToken.fromRaw(token.getVersion(), algorithm, token.getExpiry(), keyId, token.getRawSignature())
+                .encode();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * KeyRing dan KeyDirectory: satu kunci CURRENT per algoritma, token lama tetap valid setelah rotasi,
+ * kunci RETIRED ditolak (juga untuk token tanpa key id), kunci environment dipasangkan lagi saat
+ * direktori dimuat, dan file kunci hanya bisa dibaca pemilik tanpa private key environment.
+ */
+class KeyRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void onlyOneCurrentKeyPerAlgorithm() throws Exception {
+        KeyRing ring = new KeyRing(SignatureAlgorithm.ES256.generateKeyPair());
+        KeyRing.KeyEntry first = ring.current(SignatureAlgorithm.ES256);
+        ring.rotate(SignatureAlgorithm.ES256.generateKeyPair());
+        KeyRing.KeyEntry ed25519 = ring.rotate(SignatureAlgorithm.ED25519.generateKeyPair());
+        KeyRing.KeyEntry second = ring.rotate(SignatureAlgorithm.ES256.generateKeyPair());
+
+        for (SignatureAlgorithm algorithm : SignatureAlgorithm.values()) {
+            assertEquals(1, ring.keys().stream()
+                    .filter(entry -> entry.getAlgorithm() == algorithm && entry.getStatus() == KeyRing.Status.CURRENT)
+                    .count(), algorithm.name());
+        }
+        assertEquals(second.getId(), ring.current(SignatureAlgorithm.ES256).getId());
+        assertEquals(ed25519.getId(), ring.current(SignatureAlgorithm.ED25519).getId());
+        assertEquals(KeyRing.Status.ACTIVE, ring.find(first.getId()).getStatus());
+        // CURRENT lebih dulu, lalu ACTIVE dari yang terbaru
+        assertEquals(3, ring.verificationKeys(SignatureAlgorithm.ES256).size());
+        assertEquals(second.getId(), ring.verificationKeys(SignatureAlgorithm.ES256).get(0).getId());
+
+        KeyRing.KeyEntry other = new KeyRing.KeyEntry(SignatureAlgorithm.ES256.generateKeyPair().getPublic(),
+                SignatureAlgorithm.ES256.generateKeyPair().getPrivate(), KeyRing.Status.CURRENT, 0);
+        assertThrows(IllegalArgumentException.class, () -> ring.replace(List.of(second, other)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ring.replace(List.of(second.withStatus(KeyRing.Status.ACTIVE))));
+        assertThrows(IllegalStateException.class, () -> ring.retire(second.getId()));
+        assertThrows(IllegalArgumentException.class, () -> ring.retire("00000000"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"legacy", "compact", "digest"})
+    void oldTokensVerifyAfterRotationUntilRetired(String format) throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+        byte[] digest = cryptoService.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+        String oldKeyId = cryptoService.getKeyId();
+        String oldToken = cryptoService.signDigest(digest);
+        SignatureToken parsed = SignatureToken.parse(oldToken);
+        String withoutKeyId = SignatureToken.fromRaw(parsed.getVersion(), parsed.getAlgorithm(), parsed.getExpiry(),
+                null, parsed.getRawSignature()).encode();
+
+        cryptoService.rotateKey();
+        String newToken = cryptoService.signDigest(digest);
+
+        assertNotEquals(oldKeyId, cryptoService.getKeyId());
+        assertEquals(cryptoService.getKeyId(), SignatureToken.parse(newToken).getKeyId());
+        assertTrue(cryptoService.verifyDigest(digest, oldToken));
+        assertTrue(cryptoService.verifyDigest(digest, withoutKeyId));
+        assertTrue(cryptoService.verifyDigest(digest, newToken));
+
+        cryptoService.retireKey(oldKeyId);
+
+        assertFalse(cryptoService.verifyDigest(digest, oldToken));
+        assertFalse(cryptoService.verifyDigest(digest, withoutKeyId));
+        assertTrue(cryptoService.verifyDigest(digest, newToken));
+    }
+
+    @Test
+    void keyDirectoryKeepsStatusAcrossRestart() throws Exception {
+        CryptoService first = withDirectory(new CryptoService());
+        first.loadKeyDirectory();
+        byte[] digest = first.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+        String retiredId = first.getKeyId();
+        String retiredToken = first.signDigest(digest);
+        first.rotateKey();
+        String activeId = first.getKeyId();
+        String activeToken = first.signDigest(digest);
+        first.rotateKey();
+        first.retireKey(retiredId);
+
+        CryptoService restarted = withDirectory(new CryptoService());
+        restarted.loadKeyDirectory();
+
+        KeyRing ring = restarted.getKeyRing();
+        assertEquals(3, ring.keys().size());
+        assertEquals(first.getKeyId(), restarted.getKeyId());
+        assertEquals(KeyRing.Status.ACTIVE, ring.find(activeId).getStatus());
+        assertEquals(KeyRing.Status.RETIRED, ring.find(retiredId).getStatus());
+        assertTrue(restarted.verifyDigest(digest, activeToken));
+        assertFalse(restarted.verifyDigest(digest, retiredToken));
+    }
+
+    @Test
+    void envKeyIsRepairedOnReloadAndNeverWritten() throws Exception {
+        KeyPair envKeyPair = SignatureAlgorithm.ES256.generateKeyPair();
+        String envKeyId = KeyRing.keyId(envKeyPair.getPublic());
+        String envPrivateKey = Base64.getEncoder().encodeToString(envKeyPair.getPrivate().getEncoded());
+
+        CryptoService first = withEnvKey(withDirectory(new CryptoService()), envKeyPair);
+        first.loadKeyDirectory();
+        byte[] digest = first.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+        String envToken = first.signDigest(digest);
+        assertEquals(envKeyId, first.getKeyId());
+
+        // Start ulang dengan environment yang sama: file hanya berisi kunci publik, private key
+        // dipasangkan lagi dari environment sehingga kunci itu tetap bisa menandatangani
+        CryptoService restarted = withEnvKey(withDirectory(new CryptoService()), envKeyPair);
+        restarted.loadKeyDirectory();
+        KeyRing.KeyEntry repaired = restarted.getKeyRing().find(envKeyId);
+        assertEquals(KeyRing.Status.CURRENT, repaired.getStatus());
+        assertNotNull(repaired.getPrivateKey());
+        assertTrue(restarted.verifyDigest(digest, restarted.signDigest(digest)));
+        assertTrue(restarted.verifyDigest(digest, envToken));
+
+        restarted.rotateKey();
+        assertEquals(KeyRing.Status.ACTIVE, restarted.getKeyRing().find(envKeyId).getStatus());
+
+        // Tanpa environment: kunci env tinggal kunci verifikasi tanpa private key
+        CryptoService withoutEnv = withDirectory(new CryptoService());
+        withoutEnv.loadKeyDirectory();
+        assertNull(withoutEnv.getKeyRing().find(envKeyId).getPrivateKey());
+        assertTrue(withoutEnv.verifyDigest(digest, envToken));
+
+        List<Path> files = keyFiles();
+        assertEquals(2, files.size());
+        for (Path file : files) {
+            String content = Files.readString(file);
+            assertFalse(content.contains(envPrivateKey), file.toString());
+            if (file.getFileName().toString().startsWith(envKeyId)) {
+                assertFalse(content.contains("privateKey"), file.toString());
+            } else {
+                assertTrue(content.contains("privateKey"), file.toString());
+            }
+        }
+    }
+
+    @Test
+    void keyFilesAreReadableByOwnerOnly() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        CryptoService cryptoService = withDirectory(new CryptoService());
+        cryptoService.loadKeyDirectory();
+        cryptoService.rotateKey();
+        cryptoService.rotateKey(SignatureAlgorithm.ED25519);
+
+        List<Path> files = keyFiles();
+        assertEquals(3, files.size());
+        for (Path file : files) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)),
+                    file.toString());
+        }
+    }
+
+    private CryptoService withDirectory(CryptoService cryptoService) {
+        ReflectionTestUtils.setField(cryptoService, "keyDirectory", tempDir.resolve("keys").toString());
+        return cryptoService;
+    }
+
+    // Sama seperti CryptoService yang dibuat dengan SIGNATURE_PRIVATE_KEY/SIGNATURE_PUBLIC_KEY
+    private static CryptoService withEnvKey(CryptoService cryptoService, KeyPair envKeyPair) {
+        ReflectionTestUtils.setField(cryptoService, "keyRing", new KeyRing(envKeyPair));
+        ReflectionTestUtils.setField(cryptoService, "envKeyId", KeyRing.keyId(envKeyPair.getPublic()));
+        return cryptoService;
+    }
+
+    private List<Path> keyFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir.resolve("keys"))) {
+            return files.sorted().toList();
+        }
+    }
+}
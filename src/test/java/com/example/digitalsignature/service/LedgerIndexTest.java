@@ -0,0 +1,133 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * LedgerIndex: probing saat fingerprint atau slot bertabrakan, pertumbuhan kapasitas,
+ * dan status bersih/watermark yang bertahan setelah file dibuka ulang.
+ */
+class LedgerIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameFingerprintIsResolvedByCallerPredicate() throws Exception {
+        try (LedgerIndex index = LedgerIndex.open(tempDir.resolve("ledger.idx"), 16)) {
+            long fingerprint = 0x1234_5678_9ABC_DEF0L;
+            // Tiga record berbeda dengan 8 byte pertama digest yang sama
+            for (long location = 1; location <= 3; location++) {
+                long current = location;
+                index.put(fingerprint, location, existing -> existing == current);
+            }
+
+            assertEquals(3, index.size());
+            for (long location = 1; location <= 3; location++) {
+                long wanted = location;
+                assertEquals(location, index.get(fingerprint, candidate -> candidate == wanted));
+            }
+            assertEquals(0, index.get(fingerprint, candidate -> candidate == 4));
+        }
+    }
+
+    @Test
+    void sameDigestOverwritesExistingSlot() throws Exception {
+        try (LedgerIndex index = LedgerIndex.open(tempDir.resolve("ledger.idx"), 16)) {
+            index.put(42, 100, existing -> false);
+            index.put(42, 200, existing -> existing == 100);
+
+            assertEquals(1, index.size());
+            assertEquals(200, index.get(42, candidate -> true));
+        }
+    }
+
+    @Test
+    void collidingSlotsAreProbedLinearly() throws Exception {
+        try (LedgerIndex index = LedgerIndex.open(tempDir.resolve("ledger.idx"), 16)) {
+            int capacity = index.capacity();
+            // Fingerprint berbeda yang jatuh ke slot awal yang sama (kelipatan kapasitas)
+            for (int i = 0; i < 5; i++) {
+                index.put((long) i * capacity, i + 1, existing -> false);
+            }
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i + 1, index.get((long) i * capacity, candidate -> true));
+            }
+            assertEquals(0, index.get(5L * capacity, candidate -> true));
+        }
+    }
+
+    @Test
+    void growKeepsEveryEntry() throws Exception {
+        Path file = tempDir.resolve("ledger.idx");
+        try (LedgerIndex index = LedgerIndex.open(file, 16)) {
+            int initialCapacity = index.capacity();
+            int entries = initialCapacity * 2;
+            for (int i = 1; i <= entries; i++) {
+                index.put(fingerprint(i), i, existing -> false);
+            }
+
+            assertTrue(index.capacity() > initialCapacity);
+            assertTrue(index.size() <= index.capacity() * 0.7);
+            assertEquals(entries, index.size());
+            assertEquals(index.mappedBytes(), Files.size(file));
+            assertFalse(Files.exists(tempDir.resolve("ledger.idx.tmp")));
+            for (int i = 1; i <= entries; i++) {
+                assertEquals(i, index.get(fingerprint(i), candidate -> true), "entry " + i);
+            }
+        }
+    }
+
+    @Test
+    void cleanStateAndWatermarkSurviveReopen() throws Exception {
+        Path file = tempDir.resolve("ledger.idx");
+        int capacity;
+        try (LedgerIndex index = LedgerIndex.open(file, 16)) {
+            for (int i = 1; i <= 2000; i++) {
+                index.put(fingerprint(i), i, existing -> false);
+            }
+            capacity = index.capacity();
+            index.markClean(12345);
+        }
+
+        try (LedgerIndex reopened = LedgerIndex.open(file, 16)) {
+            assertTrue(reopened.isClean());
+            assertEquals(12345, reopened.getWatermark());
+            assertEquals(2000, reopened.size());
+            assertEquals(capacity, reopened.capacity());
+            assertEquals(777, reopened.get(fingerprint(777), candidate -> true));
+
+            reopened.markDirty();
+        }
+
+        try (LedgerIndex dirty = LedgerIndex.open(file, 16)) {
+            assertFalse(dirty.isClean());
+        }
+    }
+
+    @Test
+    void corruptFileIsReplacedByEmptyIndex() throws Exception {
+        Path file = tempDir.resolve("ledger.idx");
+        Files.write(file, new byte[100]);
+
+        try (LedgerIndex index = LedgerIndex.open(file, 16)) {
+            assertFalse(index.isClean());
+            assertEquals(0, index.size());
+            assertEquals(index.mappedBytes(), Files.size(file));
+        }
+    }
+
+    // Sebaran acak seperti 8 byte pertama digest BLAKE3, tidak pernah 0
+    private static long fingerprint(int i) {
+        long x = i * 0x9E37_79B9_7F4A_7C15L;
+        return x ^ (x >>> 29);
+    }
+}
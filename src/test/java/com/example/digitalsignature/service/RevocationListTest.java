@@ -0,0 +1,328 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.github.rctcwyvrn.blake3.Blake3;
+
+/**
+ * RevocationList: quicksort key 4-long, deduplikasi saat load dan merge, delta yang langsung terlihat,
+ * Bloom filter yang dipakai ulang atau dibangun ulang, load ulang file yang terpotong, dan token yang
+ * tetap dicabut setelah di-encode ulang.
+ */
+class RevocationListTest {
+
+    private static final int RECORD_BYTES = 1 + 32 + 8;
+    private static final long EXPIRY = 4_000_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 16, 17, 100, 5000})
+    void sortKeysOrdersUnsigned(int count) {
+        Random random = new Random(count);
+        long[] keys = new long[count * 4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        // Sebagian key kembar dan hanya berbeda di long terakhir, supaya semua posisi dibandingkan
+        for (int i = 1; i < count; i += 7) {
+            System.arraycopy(keys, (i - 1) * 4, keys, i * 4, 3);
+        }
+        List<long[]> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(Arrays.copyOfRange(keys, i * 4, i * 4 + 4));
+        }
+        expected.sort(Arrays::compareUnsigned);
+
+        ReflectionTestUtils.invokeMethod(RevocationList.class, "sortKeys", keys, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(expected.get(i), Arrays.copyOfRange(keys, i * 4, i * 4 + 4), "key " + i);
+        }
+    }
+
+    @Test
+    void loadSortsAndDeduplicatesRecords() throws Exception {
+        Path file = tempDir.resolve("revocations.log");
+        ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 60);
+        for (int i = 0; i < 60; i++) {
+            // 20 digest berbeda, masing-masing tiga kali dalam urutan acak
+            records.put((byte) 1).put(digest((i * 7) % 20)).putLong(i);
+        }
+        Files.write(file, records.array());
+
+        RevocationList list = open(file, 4096);
+        try {
+            assertEquals(20, list.getStats().get("sortedKeys"));
+            assertEquals(0, list.getStats().get("deltaKeys"));
+            for (int i = 0; i < 20; i++) {
+                assertTrue(list.isRevoked(digest(i), null), "digest " + i);
+            }
+            assertFalse(list.isRevoked(digest(20), null));
+            // Sudah dicabut: tidak ada record baru
+            assertEquals(0, list.revoke(List.of(digest(3)), List.of()));
+            assertEquals(RECORD_BYTES * 60L, Files.size(file));
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void deltaKeyIsVisibleBeforeMerge() throws Exception {
+        RevocationList list = open(tempDir.resolve("revocations.log"), 4096);
+        try {
+            assertEquals(3, list.revoke(List.of(digest(1), digest(1)), List.of(token(1), token(1), token(2))));
+
+            assertEquals(0, list.getStats().get("sortedKeys"));
+            assertEquals(3, list.getStats().get("deltaKeys"));
+            assertTrue(list.isRevoked(digest(1), null));
+            assertTrue(list.isRevoked(digest(2), token(1)));
+            assertTrue(list.isRevoked(null, token(2)));
+            assertFalse(list.isRevoked(digest(2), token(3)));
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void mergeMovesDeltaIntoSortedArray() throws Exception {
+        RevocationList list = open(tempDir.resolve("revocations.log"), 8);
+        try {
+            for (int i = 0; i < 20; i++) {
+                list.revoke(List.of(digest(i)), List.of());
+            }
+            // Dua merge (setelah key ke-8 dan ke-16), empat key sisanya masih di delta
+            assertEquals(16, list.getStats().get("sortedKeys"));
+            assertEquals(4, list.getStats().get("deltaKeys"));
+            // Key yang sudah digabung tidak dicabut dua kali
+            assertEquals(1, list.revoke(List.of(digest(0), digest(19), digest(20)), List.of()));
+            for (int i = 0; i <= 20; i++) {
+                assertTrue(list.isRevoked(digest(i), null), "digest " + i);
+            }
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void bloomIsReusedUntilCapacityThenRebuilt() throws Exception {
+        RevocationList list = open(tempDir.resolve("revocations.log"), 1000);
+        try {
+            Object initialBloom = bloom(list);
+            int capacity = (Integer) ReflectionTestUtils.getField(initialBloom, "capacity");
+            long initialBits = (Long) list.getStats().get("bloomBits");
+
+            revokeRange(list, 0, 1000);
+            assertEquals(1000, list.getStats().get("sortedKeys"));
+            assertSame(initialBloom, bloom(list));
+
+            // Merge terakhir melewati kapasitas Bloom filter awal
+            revokeRange(list, 1000, 5000);
+            assertTrue(5000 > capacity);
+            assertEquals(5000, list.getStats().get("sortedKeys"));
+            assertNotSame(initialBloom, bloom(list));
+            assertTrue((Long) list.getStats().get("bloomBits") > initialBits);
+            for (int i = 0; i < 5000; i++) {
+                assertTrue(list.isRevoked(digest(i), null), "digest " + i);
+            }
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void moreThanMergeThresholdKeysSurviveReload() throws Exception {
+        Path file = tempDir.resolve("revocations.log");
+        RevocationList list = open(file, 16);
+        for (int i = 0; i < 100; i++) {
+            list.revoke(List.of(digest(i)), List.of(token(i)));
+        }
+        list.close();
+
+        RevocationList reloaded = open(file, 16);
+        try {
+            assertEquals(200, reloaded.getStats().get("sortedKeys"));
+            assertEquals(100L, reloaded.getStats().get("revokedDigests"));
+            assertEquals(100L, reloaded.getStats().get("revokedTokens"));
+            for (int i = 0; i < 100; i++) {
+                assertTrue(reloaded.isRevoked(digest(i), null), "digest " + i);
+                assertTrue(reloaded.isRevoked(null, token(i)), "token " + i);
+            }
+            for (int i = 100; i < 1100; i++) {
+                assertFalse(reloaded.isRevoked(digest(i), token(i)), "digest " + i);
+            }
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void truncatedRecordIsDroppedOnReload() throws Exception {
+        Path file = tempDir.resolve("revocations.log");
+        RevocationList list = open(file, 4096);
+        list.revoke(List.of(digest(1), digest(2), digest(3)), List.of());
+        list.close();
+
+        // Record keempat terputus setelah 10 byte
+        Files.write(file, Arrays.copyOf(digest(4), 10), StandardOpenOption.APPEND);
+
+        RevocationList reloaded = open(file, 4096);
+        assertEquals(3L * RECORD_BYTES, Files.size(file));
+        assertEquals(3, reloaded.getStats().get("sortedKeys"));
+        assertFalse(reloaded.isRevoked(digest(4), null));
+        assertEquals(1, reloaded.revoke(List.of(digest(4)), List.of()));
+        reloaded.close();
+
+        RevocationList appended = open(file, 4096);
+        try {
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(appended.isRevoked(digest(i), null), "digest " + i);
+            }
+        } finally {
+            appended.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"legacy", "compact", "digest"})
+    void reEncodedTokenIsStillRevoked(String format) throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+        byte[] digest = cryptoService.digestBlake3("dokumen".getBytes(StandardCharsets.UTF_8));
+        String token = cryptoService.signDigest(digest, 60_000);
+        SignatureToken parsed = SignatureToken.parse(token);
+
+        List<String> variants = new ArrayList<>();
+        // Tanpa key id: verifikasi mencoba semua kunci aktif
+        variants.add(SignatureToken.fromRaw(parsed.getVersion(), parsed.getAlgorithm(), parsed.getExpiry(), null,
+                parsed.getRawSignature()).encode());
+        // (r, n - s): tanda tangan ECDSA lain yang sama-sama valid
+        variants.add(SignatureToken.fromRaw(parsed.getVersion(), parsed.getAlgorithm(), parsed.getExpiry(),
+                parsed.getKeyId(), negateS(parsed.getRawSignature())).encode());
+        if (parsed.isLegacy()) {
+            // Expiry dengan nol di depan, dan tanda tangan yang sama sebagai token compact versi 1
+            variants.add(token.replace(":" + parsed.getExpiry(), ":0" + parsed.getExpiry()));
+            variants.add(SignatureToken.compact(parsed.getAlgorithm(), parsed.getExpiry(), null,
+                    parsed.getRawSignature()).encode());
+        }
+        for (String variant : variants) {
+            assertTrue(cryptoService.verifyDigest(digest, variant), variant);
+        }
+
+        RevocationList list = open(tempDir.resolve("revocations.log"), 4096);
+        ReflectionTestUtils.setField(cryptoService, "revocationList", list);
+        try {
+            assertEquals(1, list.revoke(List.of(), List.of(token)));
+            assertEquals(0, list.revoke(List.of(), variants));
+
+            assertFalse(cryptoService.verifyDigest(digest, token));
+            for (String variant : variants) {
+                assertTrue(list.isRevoked(null, variant), variant);
+                assertFalse(cryptoService.verifyDigest(digest, variant), variant);
+            }
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void unreadableTokenIsRejected() throws Exception {
+        RevocationList list = open(tempDir.resolve("revocations.log"), 4096);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> list.revoke(List.of(), List.of("bukan-token")));
+            list.revoke(List.of(), List.of(token(1)));
+            assertFalse(list.isRevoked(null, "bukan-token"));
+        } finally {
+            list.close();
+        }
+    }
+
+    @Test
+    void textTokenRecordsFromOlderFilesStillMatch() throws Exception {
+        Path file = tempDir.resolve("revocations.log");
+        Blake3 hasher = Blake3.newInstance();
+        hasher.update("revoked-token:".getBytes(StandardCharsets.US_ASCII));
+        hasher.update(token(1).getBytes(StandardCharsets.UTF_8));
+        Files.write(file, ByteBuffer.allocate(RECORD_BYTES).put((byte) 2).put(hasher.digest()).putLong(0).array());
+
+        RevocationList list = open(file, 4096);
+        try {
+            assertEquals(1L, list.getStats().get("revokedTokens"));
+            assertTrue(list.isRevoked(null, token(1)));
+            assertFalse(list.isRevoked(null, token(2)));
+        } finally {
+            list.close();
+        }
+    }
+
+    private static RevocationList open(Path file, int mergeThreshold) throws Exception {
+        RevocationList list = new RevocationList();
+        ReflectionTestUtils.setField(list, "file", file.toString());
+        ReflectionTestUtils.setField(list, "mergeThreshold", mergeThreshold);
+        list.load();
+        return list;
+    }
+
+    private static void revokeRange(RevocationList list, int from, int to) throws Exception {
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            digests.add(digest(i));
+            if (digests.size() == 100) {
+                list.revoke(digests, List.of());
+                digests.clear();
+            }
+        }
+        list.revoke(digests, List.of());
+    }
+
+    private static Object bloom(RevocationList list) {
+        return ReflectionTestUtils.getField(ReflectionTestUtils.getField(list, "snapshot"), "bloom");
+    }
+
+    // s' = n - s untuk kurva P-256
+    private static byte[] negateS(byte[] raw) {
+        BigInteger order = new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+        byte[] s = order.subtract(new BigInteger(1, Arrays.copyOfRange(raw, 32, 64))).toByteArray();
+        byte[] negated = raw.clone();
+        Arrays.fill(negated, 32, 64, (byte) 0);
+        int length = Math.min(s.length, 32);
+        System.arraycopy(s, s.length - length, negated, 64 - length, length);
+        return negated;
+    }
+
+    private static String token(int seed) {
+        byte[] raw = new byte[64];
+        new Random(-seed - 1).nextBytes(raw);
+        return SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, "k001", raw).encode();
+    }
+
+    private static byte[] digest(int seed) {
+        byte[] digest = new byte[32];
+        new Random(seed).nextBytes(digest);
+        return digest;
+    }
+}
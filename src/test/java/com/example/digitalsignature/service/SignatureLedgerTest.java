@@ -0,0 +1,248 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * SignatureLedger di direktori sementara: lookup, pergantian segmen, start ulang bersih dari watermark,
+ * rebuild setelah berhenti tidak normal, dan pemotongan record terakhir yang tidak lengkap.
+ */
+class SignatureLedgerTest {
+
+    private static final long EXPIRY = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lookupReturnsLatestRecord() throws Exception {
+        SignatureLedger ledger = open(tempDir, 1 << 20);
+        try {
+            byte[] digest = digest(1);
+            ledger.record(digest, "sig-a", EXPIRY, "k001", "Désainer");
+            ledger.record(digest, "sig-b", EXPIRY + 1, null, null);
+
+            LedgerEntry entry = ledger.lookup(digest);
+            assertEquals("sig-b", entry.getSignature());
+            assertEquals(EXPIRY + 1, entry.getExpiry());
+            assertNull(entry.getKeyId());
+            assertNull(entry.getDesignerName());
+            assertEquals(1, ledger.getStats().get("entries"));
+            assertNull(ledger.lookup(digest(2)));
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    void digestsWithSameFingerprintAreKeptApart() throws Exception {
+        SignatureLedger ledger = open(tempDir, 1 << 20);
+        try {
+            byte[] first = digest(1);
+            byte[] second = first.clone();
+            second[31] ^= 1; // 8 byte pertama (fingerprint index) sama
+
+            ledger.record(first, "sig-first", EXPIRY, "k001", null);
+            ledger.record(second, "sig-second", EXPIRY, "k001", null);
+
+            assertEquals("sig-first", ledger.lookup(first).getSignature());
+            assertEquals("sig-second", ledger.lookup(second).getSignature());
+            assertEquals(2, ledger.getStats().get("entries"));
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    void recordsRollOverToNewSegments() throws Exception {
+        SignatureLedger ledger = open(tempDir, 256);
+        for (int i = 0; i < 20; i++) {
+            ledger.record(digest(i), "sig-" + i, EXPIRY, "k001", "designer " + i);
+        }
+        assertTrue((Integer) ledger.getStats().get("segments") > 1);
+        ledger.close();
+
+        List<Path> segments = segments(tempDir);
+        assertTrue(segments.size() > 1);
+        for (Path segment : segments) {
+            assertTrue(Files.size(segment) <= 256, segment.toString());
+        }
+
+        // Index dihapus: semua segmen dibaca ulang
+        Files.delete(tempDir.resolve("ledger.idx"));
+        SignatureLedger reopened = open(tempDir, 256);
+        try {
+            assertEquals(true, reopened.getStats().get("indexRebuilt"));
+            assertEquals(20L, reopened.getStats().get("replayedRecords"));
+            for (int i = 0; i < 20; i++) {
+                assertEquals("sig-" + i, reopened.lookup(digest(i)).getSignature());
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void cleanReopenReplaysOnlyRecordsAfterWatermark() throws Exception {
+        SignatureLedger ledger = open(tempDir, 256);
+        for (int i = 0; i < 3; i++) {
+            ledger.record(digest(i), "sig-" + i, EXPIRY, "k001", null);
+        }
+        ledger.close();
+        Path savedIndex = Files.copy(tempDir.resolve("ledger.idx"), tempDir.resolve("saved.idx"));
+
+        SignatureLedger reopened = open(tempDir, 256);
+        assertEquals(false, reopened.getStats().get("indexRebuilt"));
+        assertEquals(0L, reopened.getStats().get("replayedRecords"));
+        for (int i = 3; i < 8; i++) {
+            reopened.record(digest(i), "sig-" + i, EXPIRY, "k001", null);
+        }
+        reopened.close();
+
+        // Index bersih dengan watermark setelah 3 record: hanya 5 record berikutnya yang dibaca ulang,
+        // termasuk yang sudah pindah ke segmen baru
+        Files.copy(savedIndex, tempDir.resolve("ledger.idx"), StandardCopyOption.REPLACE_EXISTING);
+        SignatureLedger replayed = open(tempDir, 256);
+        try {
+            assertEquals(false, replayed.getStats().get("indexRebuilt"));
+            assertEquals(5L, replayed.getStats().get("replayedRecords"));
+            assertEquals(8, replayed.getStats().get("entries"));
+            for (int i = 0; i < 8; i++) {
+                assertEquals("sig-" + i, replayed.lookup(digest(i)).getSignature());
+            }
+        } finally {
+            replayed.close();
+        }
+    }
+
+    @Test
+    void uncleanStopRebuildsIndexFromLog() throws Exception {
+        Path crashed = tempDir.resolve("crashed");
+        SignatureLedger ledger = open(tempDir.resolve("live"), 1 << 20);
+        for (int i = 0; i < 10; i++) {
+            ledger.record(digest(i), "sig-" + i, EXPIRY, "k001", null);
+        }
+        // Salinan direktori selagi ledger masih terbuka = kondisi setelah proses mati tanpa close()
+        copyDirectory(tempDir.resolve("live"), crashed);
+        ledger.close();
+
+        SignatureLedger reopened = open(crashed, 1 << 20);
+        try {
+            Map<String, Object> stats = reopened.getStats();
+            assertEquals(true, stats.get("indexRebuilt"));
+            assertEquals(10L, stats.get("replayedRecords"));
+            assertEquals(10, stats.get("entries"));
+            for (int i = 0; i < 10; i++) {
+                assertEquals("sig-" + i, reopened.lookup(digest(i)).getSignature());
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void tornTailRecordIsTruncated() throws Exception {
+        SignatureLedger ledger = open(tempDir, 1 << 20);
+        for (int i = 0; i < 4; i++) {
+            ledger.record(digest(i), "sig-" + i, EXPIRY, "k001", null);
+        }
+        ledger.close();
+        Path segment = segments(tempDir).get(0);
+        long completeSize = Files.size(segment);
+
+        // Header record yang menjanjikan 200 byte payload, tapi hanya 10 byte yang sempat ditulis
+        ByteBuffer torn = ByteBuffer.allocate(8 + 10).putInt(200).putInt(0);
+        Files.write(segment, torn.array(), StandardOpenOption.APPEND);
+        Files.delete(tempDir.resolve("ledger.idx"));
+
+        SignatureLedger reopened = open(tempDir, 1 << 20);
+        assertEquals(completeSize, Files.size(segment));
+        assertEquals(4L, reopened.getStats().get("replayedRecords"));
+        reopened.record(digest(4), "sig-4", EXPIRY, "k001", null);
+        reopened.close();
+
+        SignatureLedger afterAppend = open(tempDir, 1 << 20);
+        try {
+            for (int i = 0; i < 5; i++) {
+                LedgerEntry entry = afterAppend.lookup(digest(i));
+                assertNotNull(entry, "digest " + i);
+                assertEquals("sig-" + i, entry.getSignature());
+            }
+        } finally {
+            afterAppend.close();
+        }
+    }
+
+    @Test
+    void corruptRecordInActiveSegmentIsTruncated() throws Exception {
+        SignatureLedger ledger = open(tempDir, 1 << 20);
+        for (int i = 0; i < 3; i++) {
+            ledger.record(digest(i), "sig-" + i, EXPIRY, "k001", null);
+        }
+        ledger.close();
+        Path segment = segments(tempDir).get(0);
+        long size = Files.size(segment);
+
+        // Byte terakhir record ketiga dirusak: CRC tidak cocok, record itu dibuang
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(segment, bytes);
+        Files.delete(tempDir.resolve("ledger.idx"));
+
+        SignatureLedger reopened = open(tempDir, 1 << 20);
+        try {
+            assertTrue(Files.size(segment) < size);
+            assertEquals(2L, reopened.getStats().get("replayedRecords"));
+            assertNotNull(reopened.lookup(digest(1)));
+            assertNull(reopened.lookup(digest(2)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static SignatureLedger open(Path directory, long segmentBytes) throws Exception {
+        SignatureLedger ledger = new SignatureLedger();
+        ReflectionTestUtils.setField(ledger, "directory", directory.toString());
+        ReflectionTestUtils.setField(ledger, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(ledger, "initialCapacity", 16);
+        ledger.open();
+        return ledger;
+    }
+
+    private static List<Path> segments(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static void copyDirectory(Path source, Path target) throws Exception {
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static byte[] digest(int seed) {
+        byte[] digest = new byte[32];
+        new Random(seed).nextBytes(digest);
+        return digest;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Payload QR biner: round trip untuk token legacy dan compact, layout tetap, dan input rusak.
+ */
+class SignatureQRPayloadTest {
+
+    private static final long EXPIRY = 1_700_000_000_000L;
+    private static final LocalDate DATE = LocalDate.of(2024, 5, 17);
+
+    private static byte[] digest() {
+        byte[] digest = new byte[32];
+        for (int i = 0; i < digest.length; i++) {
+            digest[i] = (byte) i;
+        }
+        return digest;
+    }
+
+    private static byte[] rawSignature() {
+        byte[] raw = new byte[64];
+        raw[0] = (byte) 0x80; // r dengan bit tertinggi menyala
+        raw[63] = 0x01;       // s = 1
+        return raw;
+    }
+
+    @Test
+    void compactTokenRoundTrip() {
+        SignatureToken token = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, "k001", rawSignature());
+        SignatureQRPayload payload = new SignatureQRPayload(digest(), token, "Désainer Ñ", DATE);
+
+        byte[] encoded = payload.encode();
+        SignatureQRPayload decoded = SignatureQRPayload.decode(encoded);
+
+        assertTrue(SignatureQRPayload.isBinary(encoded));
+        assertArrayEquals(digest(), decoded.getDigest());
+        assertEquals(token.encode(), decoded.getToken().encode());
+        assertEquals("Désainer Ñ", decoded.getDesigner());
+        assertEquals(DATE, decoded.getDate());
+    }
+
+    @Test
+    void fixedLayout() {
+        SignatureToken token = SignatureToken.digest(SignatureToken.ALGORITHM_ED25519, 300, null, rawSignature());
+        byte[] encoded = new SignatureQRPayload(digest(), token, "A", LocalDate.ofEpochDay(1)).encode();
+
+        // header 4 + digest 32 + tanda tangan 64 + varint 300 (2 byte) + varint 1 (1 byte) + "A"
+        assertEquals(4 + 32 + 64 + 2 + 1 + 1, encoded.length);
+        assertEquals(SignatureQRPayload.VERSION_BINARY, encoded[0]);
+        assertEquals(SignatureToken.VERSION_DIGEST, encoded[1]);
+        assertEquals(SignatureToken.ALGORITHM_ED25519, encoded[2]);
+        assertEquals(0, encoded[3]);
+        assertArrayEquals(digest(), Arrays.copyOfRange(encoded, 4, 36));
+        assertArrayEquals(rawSignature(), Arrays.copyOfRange(encoded, 36, 100));
+        assertEquals((byte) 0xAC, encoded[100]); // 300 = 0b10_0101100 -> 0xAC 0x02
+        assertEquals(0x02, encoded[101]);
+        assertEquals(0x01, encoded[102]);
+        assertEquals('A', encoded[103]);
+    }
+
+    @Test
+    void legacyTokenIsStoredRawAndRestoredAsDer() {
+        byte[] der = SignatureToken.rawToDer(rawSignature());
+        SignatureToken token = SignatureToken.legacy(EXPIRY, "k001", der);
+
+        SignatureQRPayload decoded = SignatureQRPayload.decode(
+                new SignatureQRPayload(digest(), token, "", DATE).encode());
+
+        assertTrue(decoded.getToken().isLegacy());
+        assertArrayEquals(der, decoded.getToken().getSignature());
+        assertEquals(token.encode(), decoded.getToken().encode());
+        assertEquals("", decoded.getDesigner());
+    }
+
+    @Test
+    void tokenWithoutKeyId() {
+        SignatureToken token = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, null, rawSignature());
+
+        SignatureQRPayload decoded = SignatureQRPayload.decode(
+                new SignatureQRPayload(digest(), token, "x", DATE).encode());
+
+        assertNull(decoded.getToken().getKeyId());
+    }
+
+    @Test
+    void truncatedPayloadIsRejected() {
+        SignatureToken token = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, "k001", rawSignature());
+        byte[] encoded = new SignatureQRPayload(digest(), token, "", DATE).encode();
+
+        // Tanpa designer, setiap potongan berhenti di tengah field wajib
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> SignatureQRPayload.decode(truncated),
+                    "panjang " + length);
+        }
+    }
+
+    @Test
+    void unknownAlgorithmOrVersionIsRejected() {
+        SignatureToken token = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, null, rawSignature());
+        byte[] encoded = new SignatureQRPayload(digest(), token, "x", DATE).encode();
+
+        byte[] unknownAlgorithm = encoded.clone();
+        unknownAlgorithm[2] = 9;
+        assertThrows(IllegalArgumentException.class, () -> SignatureQRPayload.decode(unknownAlgorithm));
+
+        byte[] unknownTokenVersion = encoded.clone();
+        unknownTokenVersion[1] = 7;
+        assertThrows(IllegalArgumentException.class, () -> SignatureQRPayload.decode(unknownTokenVersion));
+    }
+
+    @Test
+    void textPayloadIsNotBinary() {
+        assertFalse(SignatureQRPayload.isBinary("hash:abc".getBytes(StandardCharsets.ISO_8859_1)));
+        assertFalse(SignatureQRPayload.isBinary(new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureQRPayload.decode("hash:abc".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    void invalidInputIsRejectedOnEncode() {
+        SignatureToken token = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, -1, null, rawSignature());
+        assertThrows(IllegalArgumentException.class,
+                () -> new SignatureQRPayload(digest(), token, "x", DATE).encode());
+        assertThrows(IllegalArgumentException.class,
+                () -> new SignatureQRPayload(new byte[31], token, "x", DATE));
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Format token legacy (Base64 DER + ":" + expiry [+ ":" + key id]) dan compact/digest (biner),
+ * dengan vektor tetap dan input rusak.
+ */
+class SignatureTokenTest {
+
+    private static final long EXPIRY = 1_700_000_000_000L;
+
+    // r = 1 (31 byte nol di depan), s = 0x80 00..00 (bit tertinggi menyala, perlu byte 0x00 di DER)
+    private static final byte[] RAW = raw();
+    private static final byte[] DER = der();
+
+    private static byte[] raw() {
+        byte[] raw = new byte[64];
+        raw[31] = 0x01;
+        raw[32] = (byte) 0x80;
+        return raw;
+    }
+
+    private static byte[] der() {
+        byte[] der = new byte[2 + 3 + 35];
+        der[0] = 0x30;
+        der[1] = 38;
+        der[2] = 0x02;
+        der[3] = 1;
+        der[4] = 0x01;
+        der[5] = 0x02;
+        der[6] = 33;
+        der[7] = 0x00;
+        der[8] = (byte) 0x80;
+        return der;
+    }
+
+    @Test
+    void legacyWithoutKeyIdRoundTrip() {
+        String encoded = Base64.getEncoder().encodeToString(DER) + ":" + EXPIRY;
+
+        SignatureToken token = SignatureToken.parse(encoded);
+
+        assertTrue(token.isLegacy());
+        assertEquals(SignatureToken.ALGORITHM_ES256, token.getAlgorithm());
+        assertEquals(EXPIRY, token.getExpiry());
+        assertNull(token.getKeyId());
+        assertArrayEquals(DER, token.getSignature());
+        assertArrayEquals(RAW, token.getRawSignature());
+        assertEquals(encoded, token.encode());
+    }
+
+    @Test
+    void legacyWithKeyIdRoundTrip() {
+        String encoded = Base64.getEncoder().encodeToString(DER) + ":" + EXPIRY + ":ab12_CD-34";
+
+        SignatureToken token = SignatureToken.parse(encoded);
+
+        assertEquals("ab12_CD-34", token.getKeyId());
+        assertEquals(EXPIRY, token.getExpiry());
+        assertEquals(encoded, SignatureToken.legacy(EXPIRY, "ab12_CD-34", DER).encode());
+        assertEquals(encoded, token.encode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {":1700000000000", "AAAA:", "AAAA:17x0", "AAAA:99999999999999999999",
+            "AAAA::kid", "AAAA:1700000000000:", "AAAA:1700000000000:bad kid", "AAAA:1700000000000:a:b"})
+    void malformedLegacyIsRejected(String encoded) {
+        assertThrows(IllegalArgumentException.class, () -> SignatureToken.parse(encoded));
+    }
+
+    @Test
+    void compactEncodingMatchesFixedVector() {
+        ByteBuffer expected = ByteBuffer.allocate(11 + 1 + 4 + 64);
+        expected.put((byte) SignatureToken.VERSION_COMPACT).put((byte) SignatureToken.ALGORITHM_ES256).put((byte) 1);
+        expected.putLong(EXPIRY);
+        expected.put((byte) 4).put("k001".getBytes(StandardCharsets.US_ASCII));
+        expected.put(RAW);
+        String vector = Base64.getUrlEncoder().withoutPadding().encodeToString(expected.array());
+
+        String encoded = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, "k001", RAW).encode();
+        assertEquals(vector, encoded);
+
+        SignatureToken token = SignatureToken.parse(vector);
+        assertFalse(token.isLegacy());
+        assertFalse(token.isDigest());
+        assertEquals("k001", token.getKeyId());
+        assertEquals(EXPIRY, token.getExpiry());
+        assertArrayEquals(RAW, token.getRawSignature());
+    }
+
+    @Test
+    void compactWithoutKeyIdRoundTrip() {
+        String encoded = SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, null, RAW).encode();
+
+        SignatureToken token = SignatureToken.parse(encoded);
+
+        assertNull(token.getKeyId());
+        assertArrayEquals(RAW, token.getSignature());
+        assertEquals(encoded, token.encode());
+    }
+
+    @Test
+    void digestTokenKeepsVersionAndAlgorithm() {
+        String encoded = SignatureToken.digest(SignatureToken.ALGORITHM_ED25519, EXPIRY, "k002", RAW).encode();
+
+        SignatureToken token = SignatureToken.parse(encoded);
+
+        assertTrue(token.isDigest());
+        assertEquals(SignatureToken.VERSION_DIGEST, token.getVersion());
+        assertEquals(SignatureToken.ALGORITHM_ED25519, token.getAlgorithm());
+        assertEquals(encoded, token.encode());
+    }
+
+    @Test
+    void unknownAlgorithmAndVersionAreRejected() {
+        byte[] bytes = Base64.getUrlDecoder().decode(
+                SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, null, RAW).encode());
+
+        byte[] unknownAlgorithm = bytes.clone();
+        unknownAlgorithm[1] = 9;
+        assertThrows(IllegalArgumentException.class, () -> SignatureToken.parse(urlEncode(unknownAlgorithm)));
+
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[0] = 7;
+        assertThrows(IllegalArgumentException.class, () -> SignatureToken.parse(urlEncode(unknownVersion)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureToken.compact(9, EXPIRY, null, RAW));
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, null, new byte[63]));
+    }
+
+    @Test
+    void truncatedCompactTokenIsRejected() {
+        byte[] bytes = Base64.getUrlDecoder().decode(
+                SignatureToken.compact(SignatureToken.ALGORITHM_ES256, EXPIRY, "k001", RAW).encode());
+
+        for (int length = 0; length < bytes.length; length++) {
+            String truncated = urlEncode(Arrays.copyOf(bytes, length));
+            assertThrows(IllegalArgumentException.class, () -> SignatureToken.parse(truncated),
+                    "panjang " + length);
+        }
+    }
+
+    @Test
+    void derToRawHandlesLeadingZerosAndHighBit() {
+        assertArrayEquals(DER, SignatureToken.rawToDer(RAW));
+        assertArrayEquals(RAW, SignatureToken.derToRaw(DER, 64));
+
+        // r dan s 32 byte penuh dengan bit tertinggi menyala: kedua INTEGER 33 byte
+        byte[] full = new byte[64];
+        Arrays.fill(full, (byte) 0xFF);
+        byte[] fullDer = SignatureToken.rawToDer(full);
+        assertEquals(2 + 2 * 35, fullDer.length);
+        assertArrayEquals(full, SignatureToken.derToRaw(fullDer, 64));
+
+        // s = 0 tetap dikodekan sebagai satu byte 0x00
+        byte[] zeroS = new byte[64];
+        zeroS[0] = 0x11;
+        assertArrayEquals(zeroS, SignatureToken.derToRaw(SignatureToken.rawToDer(zeroS), 64));
+    }
+
+    @Test
+    void malformedDerIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SignatureToken.derToRaw(new byte[4], 64));
+        byte[] wrongTag = DER.clone();
+        wrongTag[2] = 0x03;
+        assertThrows(IllegalArgumentException.class, () -> SignatureToken.derToRaw(wrongTag, 64));
+        assertThrows(IllegalArgumentException.class,
+                () -> SignatureToken.derToRaw(Arrays.copyOf(DER, DER.length - 1), 64));
+    }
+
+    @Test
+    void fromRawRestoresLegacyDer() {
+        SignatureToken token = SignatureToken.fromRaw(SignatureToken.VERSION_LEGACY, SignatureToken.ALGORITHM_ES256,
+                EXPIRY, "k001", RAW);
+
+        assertTrue(token.isLegacy());
+        assertArrayEquals(DER, token.getSignature());
+    }
+
+    @Test
+    void realSignatureSurvivesRawConversion() throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        byte[] digest = cryptoService.digestBlake3("payload".getBytes(StandardCharsets.UTF_8));
+        for (String format : new String[] {"legacy", "compact", "digest"}) {
+            ReflectionTestUtils.setField(cryptoService, "tokenFormat", format);
+            SignatureToken token = SignatureToken.parse(cryptoService.signDigest(digest, 60_000));
+
+            String rebuilt = SignatureToken.fromRaw(token.getVersion(), token.getAlgorithm(), token.getExpiry(),
+                    token.getKeyId(), token.getRawSignature()).encode();
+
+            assertTrue(cryptoService.verifyDigest(digest, rebuilt), format);
+        }
+    }
+
+    private static String urlEncode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
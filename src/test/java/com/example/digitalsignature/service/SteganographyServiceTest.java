@@ -0,0 +1,183 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Watermark LSB: embed lalu extract untuk setiap jenis gambar hasil decode (INT_ARGB, INT_RGB,
+ * 3BYTE_BGR, 4BYTE_ABGR), termasuk payload yang melewati banyak baris, dan extract yang hanya
+ * men-decode baris payload dibandingkan dengan decode penuh lewat ImageIO.read.
+ */
+class SteganographyServiceTest {
+
+    private static final String PAYLOAD = "OWNER:Désainer Ünik;DATE:2026-10-17T10:15:30;ID:1a2b3c4d";
+
+    private final SteganographyService service = new SteganographyService();
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+    void embedThenExtractForEveryImageType(int type) throws Exception {
+        BufferedImage source = noise(64, 48, type, 1);
+
+        BufferedImage watermarked = embed(source, PAYLOAD);
+
+        assertPixelsKept(source, watermarked, 32 + PAYLOAD.length() * 8);
+        assertEquals(PAYLOAD, service.extractWatermark(png(watermarked)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+    void payloadSpanningManyRows(int type) throws Exception {
+        // 7 piksel per baris: header 32 bit dan payload tersebar di puluhan baris
+        BufferedImage source = noise(7, 200, type, 2);
+
+        BufferedImage watermarked = embed(source, PAYLOAD);
+
+        assertPixelsKept(source, watermarked, 32 + PAYLOAD.length() * 8);
+        assertEquals(PAYLOAD, service.extractWatermark(png(watermarked)));
+    }
+
+    @Test
+    void payloadEndingOnRowBoundary() throws Exception {
+        // 32 + 8 * 4 = 64 bit = tepat 8 baris penuh
+        BufferedImage watermarked = embed(noise(8, 20, BufferedImage.TYPE_INT_RGB, 3), "ABCD");
+
+        assertEquals("ABCD", service.extractWatermark(png(watermarked)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {64, 5, 1})
+    void regionExtractMatchesFullDecodeForPng(int width) throws Exception {
+        // Lebar 5 dan 1: header dan payload di banyak baris, header dibaca lalu dibatalkan, payload dibaca ulang
+        byte[] png = png(embed(noise(width, 2000 / width + 600, BufferedImage.TYPE_INT_RGB, width), PAYLOAD));
+
+        assertEquals(PAYLOAD, fullDecodeExtract(png));
+        assertEquals(PAYLOAD, service.extractWatermark(new ByteArrayInputStream(png)));
+    }
+
+    @Test
+    void regionExtractMatchesFullDecodeForInterlacedPngAndBmp() throws Exception {
+        BufferedImage watermarked = embed(noise(9, 300, BufferedImage.TYPE_INT_RGB, 4), PAYLOAD);
+        byte[] interlaced = interlacedPng(watermarked);
+        // Writer BMP tidak menerima INT_ARGB; salinan INT_RGB dengan piksel yang sama
+        BufferedImage rgb = new BufferedImage(9, 300, BufferedImage.TYPE_INT_RGB);
+        rgb.setRGB(0, 0, 9, 300, watermarked.getRGB(0, 0, 9, 300, null, 0, 9), 0, 9);
+        ByteArrayOutputStream bmp = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(rgb, "bmp", bmp));
+
+        assertEquals(1, interlaced[28]); // IHDR interlace method: Adam7
+        assertEquals(PAYLOAD, fullDecodeExtract(interlaced));
+        assertEquals(PAYLOAD, service.extractWatermark(new ByteArrayInputStream(interlaced)));
+        assertEquals(PAYLOAD, fullDecodeExtract(bmp.toByteArray()));
+        assertEquals(PAYLOAD, service.extractWatermark(new ByteArrayInputStream(bmp.toByteArray())));
+    }
+
+    @Test
+    void regionExtractNeverReadsRowsAfterPayload() throws Exception {
+        // Noise tidak terkompresi, jadi separuh file PNG masih memuat ratusan baris pertama
+        byte[] png = png(embed(noise(16, 4000, BufferedImage.TYPE_INT_RGB, 5), PAYLOAD));
+        byte[] truncated = Arrays.copyOf(png, png.length / 2);
+
+        assertEquals(PAYLOAD, fullDecodeExtract(png));
+        assertThrows(IOException.class, () -> ImageIO.read(new ByteArrayInputStream(truncated)));
+        assertEquals(PAYLOAD, service.extractWatermark(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    void imageWithoutWatermarkGivesNull() throws Exception {
+        BufferedImage plain = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        byte[] png = png(plain);
+
+        assertNull(fullDecodeExtract(png));
+        assertNull(service.extractWatermark(new ByteArrayInputStream(png)));
+    }
+
+    // Referensi: decode seluruh gambar dengan ImageIO.read lalu baca LSB biru dari getRGB
+    private static String fullDecodeExtract(byte[] imageData) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageData));
+        int width = image.getWidth();
+        int[] pixels = image.getRGB(0, 0, width, image.getHeight(), null, 0, width);
+        int dataLength = 0;
+        for (int i = 0; i < 32; i++) {
+            dataLength = (dataLength << 1) | (pixels[i] & 1);
+        }
+        if (dataLength <= 0 || dataLength > 10000) {
+            return null;
+        }
+        byte[] data = new byte[Math.min(dataLength, pixels.length - 32) / 8];
+        for (int i = 0; i < data.length * 8; i++) {
+            data[i >> 3] |= (pixels[32 + i] & 1) << (7 - (i & 7));
+        }
+        return new String(data, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] interlacedPng(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private BufferedImage embed(BufferedImage source, String payload) {
+        return ReflectionTestUtils.invokeMethod(service, "embedLSBWatermark", source, payload);
+    }
+
+    // Semua piksel sama dengan sumber (sebagai ARGB), kecuali LSB biru di piksel header + payload
+    private static void assertPixelsKept(BufferedImage source, BufferedImage watermarked, int embeddedPixels) {
+        int width = source.getWidth();
+        for (int i = 0; i < width * source.getHeight(); i++) {
+            int expected = source.getRGB(i % width, i / width);
+            int actual = watermarked.getRGB(i % width, i / width);
+            int mask = i < embeddedPixels ? 0xFFFFFFFE : 0xFFFFFFFF;
+            assertEquals(expected & mask, actual & mask, "piksel " + i);
+        }
+    }
+
+    static BufferedImage noise(int width, int height, int type, long seed) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Alpha tidak nol, supaya nilai RGB tetap utuh di gambar non-premultiplied
+                image.setRGB(x, y, (0x80 + random.nextInt(0x80)) << 24 | random.nextInt(1 << 24));
+            }
+        }
+        return image;
+    }
+
+    static byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
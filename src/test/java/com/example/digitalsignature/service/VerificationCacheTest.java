@@ -0,0 +1,66 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Generasi VerificationCache: hasil dari verifikasi yang dimulai sebelum invalidate() tidak pernah
+ * terbaca, dan retire kunci langsung membatalkan hasil "valid" di cache.
+ */
+class VerificationCacheTest {
+
+    private static final byte[] HASH = new byte[32];
+
+    @Test
+    void resultStartedBeforeInvalidateIsNotStored() {
+        VerificationCache cache = new VerificationCache();
+        long expiry = System.currentTimeMillis() + 60_000;
+
+        // Verifikasi dimulai, lalu kunci di-retire sebelum hasilnya disimpan
+        long generation = cache.generation();
+        cache.invalidate();
+        cache.put(HASH, "token", expiry, true, generation);
+
+        assertNull(cache.get(HASH, "token"));
+        assertEquals(0, cache.getStats().get("size"));
+    }
+
+    @Test
+    void invalidateHidesStoredResults() {
+        VerificationCache cache = new VerificationCache();
+        long expiry = System.currentTimeMillis() + 60_000;
+
+        cache.put(HASH, "token", expiry, true, cache.generation());
+        assertTrue(cache.get(HASH, "token"));
+
+        cache.invalidate();
+        assertNull(cache.get(HASH, "token"));
+
+        cache.put(HASH, "token", expiry, false, cache.generation());
+        assertFalse(cache.get(HASH, "token"));
+    }
+
+    @Test
+    void retiredKeyIsNotServedFromCache() throws Exception {
+        CryptoService cryptoService = new CryptoService();
+        ReflectionTestUtils.setField(cryptoService, "verificationCache", new VerificationCache());
+        byte[] digest = cryptoService.digestBlake3("payload".getBytes(StandardCharsets.UTF_8));
+        String token = cryptoService.signDigest(digest, 60_000);
+        String keyId = SignatureToken.parse(token).getKeyId();
+
+        assertTrue(cryptoService.verifyDigest(digest, token));
+        assertTrue(cryptoService.verifyDigest(digest, token)); // dari cache
+
+        cryptoService.rotateKey();
+        cryptoService.retireKey(keyId);
+
+        assertFalse(cryptoService.verifyDigest(digest, token));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Render watermark visible per pita (band) di ForkJoin pool harus menghasilkan piksel yang sama persis
+ * dengan render satu thread, termasuk saat sprite melintasi batas pita.
+ */
+class VisibleWatermarkServiceTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY})
+    void tiledRenderMatchesSingleThread(int type) {
+        // 217 baris dengan pita 16 baris: pita terakhir tidak penuh, sprite 48 px melintasi beberapa pita
+        BufferedImage source = SteganographyServiceTest.noise(301, 217, type, type);
+
+        assertSameRendering(source, "© Désainer 2026", 0.5f, 48);
+    }
+
+    @Test
+    void tiledRenderMatchesForEdgeCases() {
+        BufferedImage source = SteganographyServiceTest.noise(120, 90, BufferedImage.TYPE_INT_RGB, 7);
+
+        assertSameRendering(source, "Teks yang jauh lebih lebar dari gambarnya", 0.8f, 36);
+        assertSameRendering(source, "   ", 0.5f, 24); // sprite tanpa piksel
+        assertSameRendering(source, "x", 1.0f, 200); // sprite lebih tinggi dari gambar
+    }
+
+    private static void assertSameRendering(BufferedImage source, String text, float opacity, int fontSize) {
+        int[] single = pixels(service(Long.MAX_VALUE).renderWatermark(source, text, opacity, fontSize));
+        int[] tiled = pixels(service(1).renderWatermark(source, text, opacity, fontSize));
+
+        assertArrayEquals(single, tiled, text);
+        if (!text.isBlank()) {
+            assertFalse(Arrays.equals(single, pixels(service(Long.MAX_VALUE).renderWatermark(source, "", 0f, 1))),
+                    "watermark tidak terlihat: " + text);
+        }
+    }
+
+    private static VisibleWatermarkService service(long tiledPixelThreshold) {
+        VisibleWatermarkService service = new VisibleWatermarkService();
+        ReflectionTestUtils.setField(service, "tiledPixelThreshold", tiledPixelThreshold);
+        ReflectionTestUtils.setField(service, "bandHeight", 16);
+        return service;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
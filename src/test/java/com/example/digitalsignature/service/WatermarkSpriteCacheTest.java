@@ -0,0 +1,66 @@
+package com.example.digitalsignature.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Batas WatermarkSpriteCache: sprite tanpa piksel (teks spasi) dan teks key yang panjang tetap
+ * dihitung, dan jumlah entri dibatasi.
+ */
+class WatermarkSpriteCacheTest {
+
+    private static final WatermarkSpriteCache.Sprite EMPTY = new WatermarkSpriteCache.Sprite(null, 0, 0, 0);
+
+    @Test
+    void spritesWithoutPixelsAreBoundedByEntryCount() {
+        WatermarkSpriteCache cache = cache(1L << 30, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(" ".repeat(i + 1), 12, 0.5f, EMPTY);
+        }
+
+        assertEquals(100, cache.getStats().get("size"));
+        assertEquals(900L, cache.getStats().get("evictions"));
+        assertNull(cache.get(" ", 12, 0.5f));
+        assertNotNull(cache.get(" ".repeat(1000), 12, 0.5f));
+    }
+
+    @Test
+    void keyTextAndOverheadCountTowardsMaxBytes() {
+        long perEntry = 2L * 1000 + WatermarkSpriteCache.ENTRY_OVERHEAD_BYTES;
+        WatermarkSpriteCache cache = cache(10 * perEntry, 4096);
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(String.format("%1000d", i), 12, 0.5f, EMPTY);
+        }
+
+        assertEquals(10, cache.getStats().get("size"));
+        assertEquals(10 * perEntry, cache.getStats().get("bytes"));
+    }
+
+    @Test
+    void replacedSpriteIsNotCountedTwice() {
+        WatermarkSpriteCache cache = cache(1L << 30, 4096);
+        WatermarkSpriteCache.Sprite sprite =
+                new WatermarkSpriteCache.Sprite(new BufferedImage(10, 5, BufferedImage.TYPE_INT_ARGB), 0, 0, 10);
+
+        cache.put("teks", 12, 0.5f, sprite);
+        cache.put("teks", 12, 0.5f, sprite);
+
+        assertEquals(1, cache.getStats().get("size"));
+        assertEquals(4L * 10 * 5 + 2 * 4 + WatermarkSpriteCache.ENTRY_OVERHEAD_BYTES, cache.getStats().get("bytes"));
+    }
+
+    private static WatermarkSpriteCache cache(long maxBytes, int maxEntries) {
+        WatermarkSpriteCache cache = new WatermarkSpriteCache();
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        return cache;
+    }
+}